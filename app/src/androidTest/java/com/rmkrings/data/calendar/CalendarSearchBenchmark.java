@@ -0,0 +1,101 @@
+package com.rmkrings.data.calendar;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Reports search time of CalendarSearchIndex against scanning each event, the way calendar
+ * search used to work, while a query is typed character by character on calendars over
+ * several years. Runs on a device, as timings on host say little about the app.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CalendarSearchBenchmark {
+    private static final String TAG = "CalendarSearch";
+
+    private static final String[] WORDS = {
+            "Elternsprechtag", "Klausur", "Abitur", "Zeugnisausgabe", "Ferien", "Konferenz", "Prüfung",
+            "Mündliche", "Sportfest", "Wandertag", "Gottesdienst", "Schulpflegschaft", "Beweglicher",
+            "Ferientag", "EF", "Q1", "Q2", "Jahrgang", "Känguru", "Wettbewerb", "Studienfahrt", "Berlin"
+    };
+
+    /**
+     * Synthetic calendar with given number of school years, about 400 events each.
+     */
+    private static String[] newEvents(int years) {
+        final Random random = new Random(years);
+        final String[] events = new String[years * 400];
+
+        for (int e = 0; e < events.length; e++) {
+            final StringBuilder event = new StringBuilder();
+            final int words = 2 + random.nextInt(5);
+            for (int w = 0; w < words; w++) {
+                event.append(w > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            events[e] = event.append(String.format(Locale.ROOT, " (%d)", e % 13)).toString();
+        }
+
+        return events;
+    }
+
+    /**
+     * Number of events that contain query.
+     */
+    private static int scan(String[] events, String s) {
+        final String query = CalendarSearchIndex.fold(s);
+        int hits = 0;
+
+        for (String event : events) {
+            if (CalendarSearchIndex.fold(event).contains(query)) {
+                hits += 1;
+            }
+        }
+
+        return hits;
+    }
+
+    @Test
+    public void searchWhileTyping() {
+        final String[] queries = { "s", "sc", "sch", "schu", "schul", "schulp", "schulpf", "schulpfl", "q", "q2", "prü", "prüfung" };
+        final int rounds = 20;
+
+        for (int years : new int[] { 1, 5, 20 }) {
+            final String[] events = newEvents(years);
+
+            long start = System.nanoTime();
+            final CalendarSearchIndex index = new CalendarSearchIndex(events);
+            final long buildNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int scanned = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    scanned += scan(events, query);
+                }
+            }
+            final long scanNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int indexed = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    indexed += index.search(query).getEvents().length;
+                }
+            }
+            final long searchNanos = System.nanoTime() - start;
+
+            assertEquals(scanned, indexed);
+            Log.i(TAG, String.format(Locale.ROOT,
+                    "%6d events: scan %.3f ms/query, index build %.3f ms, search %.4f ms/query",
+                    events.length, scanNanos / 1e6 / (rounds * queries.length), buildNanos / 1e6, searchNanos / 1e6 / (rounds * queries.length)));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.rmkrings.data.vertretungsplan;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rmkrings.helper.StringDictionary;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Reports lookup time of next() on lesson timeline against a scan over every row, the way
+ * next() used to work, on plans with thousands of rows. Runs on a device, as timings on host
+ * say little about the app.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LessonTimelineBenchmark {
+    private static final String TAG = "LessonTimeline";
+
+    private static final String[] LESSON_START_TIMES = { "07:55", "08:40", "09:45", "10:35", "11:25", "12:40", "13:25", "14:30", "15:15", "16:00", "16:45" };
+
+    private static Vertretungsplan newVertretungsplan(int days, int rowsPerDay) {
+        final DateFormat dateFormat = new SimpleDateFormat("EEEE, dd.MM.yyyy", Locale.GERMANY);
+        final Calendar calendar = Calendar.getInstance();
+        final ArrayList<VertretungsplanForDate> vertretungsplaene = new ArrayList<>();
+
+        calendar.set(2020, Calendar.NOVEMBER, 2, 0, 0, 0);
+        for (int d = 0; d < days; d++) {
+            final ArrayList<String[]> items = new ArrayList<>();
+            for (int r = 0; r < rowsPerDay; r++) {
+                final int lesson = 1 + r * LESSON_START_TIMES.length / rowsPerDay;
+                items.add(new String[] { String.format("%d. - %d.", lesson, lesson + 1), "Vertretung", "M GK" + (r % 5), "(A101)", "Foo", "", "" });
+            }
+
+            final ArrayList<GradeItem> gradeItems = new ArrayList<>();
+            gradeItems.add(new GradeItem("Q1", items, new StringDictionary()));
+            vertretungsplaene.add(new VertretungsplanForDate(dateFormat.format(calendar.getTime()), gradeItems));
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+
+        return new Vertretungsplan("", "", vertretungsplaene, null);
+    }
+
+    private static Date date(int day, int hour, int minute) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2020, Calendar.NOVEMBER, day, hour, minute);
+        return calendar.getTime();
+    }
+
+    /**
+     * Next lesson as found by scanning and parsing each row, the way next() used to work.
+     */
+    private static String[] scanNext(Vertretungsplan vertretungsplan, Date currentDate) throws Exception {
+        final Pattern datePattern = Pattern.compile("(\\d{2}.\\d{2}.\\d{4})");
+        final Pattern firstNumberPattern = Pattern.compile("\\d+");
+        final DateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy'-'HH:mm", Locale.GERMANY);
+
+        for (VertretungsplanForDate vertretungsplanForDate : vertretungsplan.getVertretungsplaene()) {
+            final Matcher dateMatcher = datePattern.matcher(vertretungsplanForDate.getDate());
+            if (dateMatcher.find()) {
+                final String forDate = dateMatcher.group(1).concat("-");
+                final GradeItem gradeItem = vertretungsplanForDate.getGradeItems().get(0);
+                for (int row = 0; row < gradeItem.size(); row++) {
+                    final String[] item = gradeItem.getDetailItems(row);
+                    final Matcher lessonMatcher = firstNumberPattern.matcher(item[0]);
+                    if (lessonMatcher.find()) {
+                        final int lesson = Integer.parseInt(lessonMatcher.group());
+                        if (dateFormat.parse(forDate.concat(LESSON_START_TIMES[lesson - 1])).after(currentDate)) {
+                            return item;
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Test
+    public void nextOnLargePlans() throws Exception {
+        final int lookups = 200;
+
+        for (int rows : new int[] { 1000, 5000, 20000 }) {
+            final int days = 10;
+            final Vertretungsplan vertretungsplan = newVertretungsplan(days, rows / days);
+            final Date[] dates = new Date[lookups];
+            for (int k = 0; k < lookups; k++) {
+                dates[k] = date(2 + k % days, 7 + k % 10, (k * 7) % 60);
+            }
+
+            long start = System.nanoTime();
+            final String[][] scanned = new String[lookups][];
+            for (int k = 0; k < lookups; k++) {
+                scanned[k] = scanNext(vertretungsplan, dates[k]);
+            }
+            final long scanNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            final LessonTimeline timeline = vertretungsplan.getTimeline();
+            final long buildNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            final String[][] indexed = new String[lookups][];
+            for (int k = 0; k < lookups; k++) {
+                VertretungsplanForDate next = vertretungsplan.next(dates[k]);
+                indexed[k] = (next != null) ? next.getGradeItems().get(0).getDetailItems(0) : null;
+            }
+            final long lookupNanos = System.nanoTime() - start;
+
+            for (int k = 0; k < lookups; k++) {
+                assertArrayEquals(scanned[k], indexed[k]);
+            }
+
+            Log.i(TAG, String.format(Locale.ROOT,
+                    "%6d rows (%d indexed): scan %.3f ms/lookup, index build %.3f ms, lookup %.4f ms",
+                    rows, timeline.size(), scanNanos / 1e6 / lookups, buildNanos / 1e6, lookupNanos / 1e6 / lookups));
+        }
+    }
+}
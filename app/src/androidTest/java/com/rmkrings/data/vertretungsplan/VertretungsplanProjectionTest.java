@@ -0,0 +1,164 @@
+package com.rmkrings.data.vertretungsplan;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.CredentialSession;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Golden files in resources/golden/vertretungsplan: full.json is a full schedule,
+ * forGrade-&lt;grade&gt;.json what backend delivers for the same data with forGrade. Local
+ * projection must match backend's result except for digest. Needs a device as JsonReader is
+ * not available on host.
+ *
+ * The golden files have been written by hand after backend's filter, they are no captured
+ * responses. Projection is checked against live backend, too, for every grade in current
+ * schedule; that check is skipped when device is not logged in or backend cannot be reached.
+ * Until golden files have been replaced by forGrade responses recorded along with the full
+ * schedule VertretungsplanLoader does not use the projection.
+ */
+@RunWith(AndroidJUnit4.class)
+public class VertretungsplanProjectionTest {
+    private static final String[] GRADES = { "5A", "Q1", "8B" };
+
+    private static Vertretungsplan read(String name) throws IOException {
+        final InputStream inputStream = VertretungsplanProjectionTest.class.getClassLoader()
+                .getResourceAsStream("golden/vertretungsplan/" + name + ".json");
+        assertNotNull("Missing golden file " + name, inputStream);
+
+        try {
+            return Vertretungsplan.decoder.decode(inputStream);
+        }
+        finally {
+            inputStream.close();
+        }
+    }
+
+    private static void assertSameSchedule(String grade, Vertretungsplan expected, Vertretungsplan actual) {
+        assertEquals(grade, expected.getTickerText(), actual.getTickerText());
+        assertEquals(grade, expected.getAdditionalText(), actual.getAdditionalText());
+        assertEquals(grade, expected.getLastUpdate(), actual.getLastUpdate());
+        assertEquals(grade, expected.getVertretungsplaene().size(), actual.getVertretungsplaene().size());
+
+        for (int d = 0; d < expected.getVertretungsplaene().size(); d++) {
+            final VertretungsplanForDate expectedForDate = expected.getVertretungsplaene().get(d);
+            final VertretungsplanForDate actualForDate = actual.getVertretungsplaene().get(d);
+            final List<GradeItem> expectedGradeItems = expectedForDate.getGradeItems();
+            final List<GradeItem> actualGradeItems = actualForDate.getGradeItems();
+            final String where = grade + " " + expectedForDate.getDate();
+
+            assertEquals(where, expectedForDate.getDate(), actualForDate.getDate());
+            assertEquals(where, expectedGradeItems.size(), actualGradeItems.size());
+
+            for (int g = 0; g < expectedGradeItems.size(); g++) {
+                final GradeItem expectedGradeItem = expectedGradeItems.get(g);
+                final GradeItem actualGradeItem = actualGradeItems.get(g);
+
+                assertEquals(where, expectedGradeItem.getGrade(), actualGradeItem.getGrade());
+                assertEquals(where, expectedGradeItem.size(), actualGradeItem.size());
+                for (int row = 0; row < expectedGradeItem.size(); row++) {
+                    assertArrayEquals(where + " row " + row, expectedGradeItem.getDetailItems(row), actualGradeItem.getDetailItems(row));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void projectionMatchesBackendFilter() throws IOException {
+        final Vertretungsplan full = read("full");
+
+        for (String grade : GRADES) {
+            final Vertretungsplan projection = full.forGrade(grade);
+
+            assertSameSchedule(grade, read("forGrade-" + grade), projection);
+            assertNull(projection.getDigest());
+        }
+    }
+
+    /**
+     * Load schedule from backend like VertretungsplanLoader does, but never projected.
+     * @param grade - Grade to filter by, null for full schedule.
+     * @return Schedule as delivered by backend.
+     */
+    private static Vertretungsplan load(String grade) throws IOException {
+        String urlString = String.format("%s/v2/vertretungsplan", AppDefaults.getBaseUrl());
+        if (grade != null) {
+            urlString += String.format("/?forGrade=%s", URLEncoder.encode(grade, "UTF-8"));
+        }
+
+        final HttpURLConnection connection = (HttpURLConnection)new URL(urlString).openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.addRequestProperty("Authorization", CredentialSession.getAuthorization());
+            assumeTrue("Backend responded with " + connection.getResponseCode(), connection.getResponseCode() == 200);
+
+            final InputStream inputStream = connection.getInputStream();
+            try {
+                return Vertretungsplan.decoder.decode(inputStream);
+            }
+            finally {
+                inputStream.close();
+            }
+        }
+        finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void projectionMatchesLiveBackendFilter() throws IOException {
+        assumeTrue("Device is not logged in", AppDefaults.isAuthenticated());
+
+        Vertretungsplan full;
+        try {
+            full = load(null);
+        }
+        catch (IOException e) {
+            assumeNoException(e);
+            return;
+        }
+
+        final LinkedHashSet<String> grades = new LinkedHashSet<>();
+        for (VertretungsplanForDate vertretungsplanForDate : full.getVertretungsplaene()) {
+            for (GradeItem gradeItem : vertretungsplanForDate.getGradeItems()) {
+                grades.add(gradeItem.getGrade());
+            }
+        }
+
+        for (String grade : grades) {
+            final Vertretungsplan forGrade = load(grade);
+
+            // Backend may have been updated in between.
+            if (!forGrade.getLastUpdate().equals(full.getLastUpdate())) {
+                full = load(null);
+            }
+
+            assertSameSchedule(grade, forGrade, full.forGrade(grade));
+        }
+    }
+
+    @Test
+    public void projectionIsBuiltOnce() throws IOException {
+        final Vertretungsplan full = read("full");
+        assertSame(full.forGrade("Q1"), full.forGrade("Q1"));
+    }
+}
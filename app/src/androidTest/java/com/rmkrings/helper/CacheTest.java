@@ -0,0 +1,102 @@
+package com.rmkrings.helper;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rmkrings.pius_app_for_android;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Needs a device as Cache stores its files in app's files directory.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CacheTest {
+    // Index is kept for app's lifetime, thus each test uses a dataset of its own.
+    private static final String LEGACY = "cachetest-legacy";
+    private static final String RECORD = "cachetest-record";
+    private static final String FAILING = "cachetest-failing";
+
+    private final Cache cache = new Cache();
+
+    private static boolean exists(String filename) {
+        return pius_app_for_android.getAppContext().getFileStreamPath(filename).exists();
+    }
+
+    private static String payload(Cache cache, String name) {
+        final ByteBuffer payload = cache.readPayload(name);
+        return StandardCharsets.UTF_8.decode(payload).toString();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        cache.flush();
+        final File failing = pius_app_for_android.getAppContext().getFileStreamPath(Config.recordFilename(FAILING));
+        //noinspection ResultOfMethodCallIgnored
+        new File(failing, "blocker").delete();
+        //noinspection ResultOfMethodCallIgnored
+        failing.delete();
+        for (String name : new String[] { LEGACY, RECORD }) {
+            for (String filename : new String[] { Config.recordFilename(name), name + ".json", name + ".md5" }) {
+                //noinspection ResultOfMethodCallIgnored
+                pius_app_for_android.getAppContext().getFileStreamPath(filename).delete();
+            }
+        }
+    }
+
+    @Test
+    public void legacyFilesAreConvertedIntoRecord() {
+        assertTrue(cache.store(LEGACY + ".json", "{\"_digest\":\"abc\"}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(cache.store(LEGACY + ".md5", "abc\n".getBytes(StandardCharsets.UTF_8)));
+
+        Cache.loadDigestIndex();
+
+        assertTrue(cache.hasRecord(LEGACY));
+        assertEquals("abc", cache.getDigest(LEGACY));
+        assertEquals("{\"_digest\":\"abc\"}", payload(cache, LEGACY));
+        assertEquals(200, cache.readRecord(LEGACY).getHttpStatus());
+        assertTrue(exists(Config.recordFilename(LEGACY)));
+        assertFalse(exists(LEGACY + ".json"));
+        assertFalse(exists(LEGACY + ".md5"));
+    }
+
+    @Test
+    public void recordWinsOverLegacyFiles() throws InterruptedException {
+        cache.storeRecord(RECORD, new CacheRecord("{}".getBytes(StandardCharsets.UTF_8), "new", 200));
+        cache.flush();
+        assertTrue(cache.store(RECORD + ".json", "{\"old\":true}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(cache.store(RECORD + ".md5", "old".getBytes(StandardCharsets.UTF_8)));
+
+        Cache.loadDigestIndex();
+
+        assertEquals("new", cache.getDigest(RECORD));
+        assertEquals("{}", payload(cache, RECORD));
+        assertFalse(exists(RECORD + ".json"));
+        assertFalse(exists(RECORD + ".md5"));
+    }
+
+    @Test
+    public void recordThatCannotBeWrittenIsNotAnnounced() throws IOException, InterruptedException {
+        // A non-empty directory in place of record file cannot be replaced.
+        final File failing = pius_app_for_android.getAppContext().getFileStreamPath(Config.recordFilename(FAILING));
+        assertTrue(failing.mkdir());
+        assertTrue(new File(failing, "blocker").createNewFile());
+
+        cache.storeRecord(FAILING, new CacheRecord("{}".getBytes(StandardCharsets.UTF_8), "lost", 200));
+        assertEquals("lost", cache.getDigest(FAILING));
+        cache.flush();
+
+        assertFalse(cache.hasRecord(FAILING));
+        assertEquals(0, cache.getFetchedAt(FAILING));
+    }
+}
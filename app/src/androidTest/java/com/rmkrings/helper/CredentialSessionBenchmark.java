@@ -0,0 +1,65 @@
+package com.rmkrings.helper;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures per-request cost of building the Authorization header with and without
+ * credential session. Needs a device as Keystore is not available on host.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CredentialSessionBenchmark {
+    private static final String TAG = "CredentialSession";
+    private static final int ITERATIONS = 50;
+
+    private String savedUsername;
+    private String savedPassword;
+
+    @Before
+    public void setUp() {
+        savedUsername = AppDefaults.getUsername();
+        savedPassword = AppDefaults.getPassword();
+        AppDefaults.setUsername("benchmark");
+        AppDefaults.setPassword("secret");
+    }
+
+    @After
+    public void tearDown() {
+        AppDefaults.setUsername(savedUsername);
+        AppDefaults.setPassword(savedPassword);
+    }
+
+    @Test
+    public void authorizationHeaderCost() {
+        // Before: every request decrypted password from Keystore.
+        long start = System.nanoTime();
+        String uncached = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            uncached = "Basic " + CredentialSession.encode(AppDefaults.getUsername(), AppDefaults.decryptPassword());
+        }
+        long uncachedNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        // After: first access unlocks session, all others are served from memory.
+        start = System.nanoTime();
+        String cached = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            cached = CredentialSession.getAuthorization();
+        }
+        long cachedNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        Log.i(TAG, String.format("Authorization header per request: %d µs without session, %d µs with session",
+                uncachedNanos / 1000, cachedNanos / 1000));
+
+        assertEquals(uncached, cached);
+        assertTrue(cachedNanos < uncachedNanos);
+    }
+}
@@ -0,0 +1,169 @@
+package com.rmkrings.helper;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rmkrings.data.calendar.Calendar;
+import com.rmkrings.data.eva.Eva;
+import com.rmkrings.data.news.NewsItems;
+import com.rmkrings.data.postings.Postings;
+import com.rmkrings.data.staff.StaffDictionary;
+import com.rmkrings.data.vertretungsplan.GradeItem;
+import com.rmkrings.data.vertretungsplan.Vertretungsplan;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Streaming decoders must build the same models the former org.json constructors built from
+ * the golden files in resources/golden/decoders. Needs a device as JsonReader and org.json
+ * are not available on host.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DecoderEquivalenceTest {
+
+    static String read(String name) throws IOException {
+        final InputStream inputStream = DecoderEquivalenceTest.class.getClassLoader()
+                .getResourceAsStream("golden/" + name + ".json");
+        assertNotNull("Missing golden file " + name, inputStream);
+
+        try {
+            final ByteArrayOutputStream data = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = inputStream.read(buffer)) != -1) {
+                data.write(buffer, 0, n);
+            }
+            return new String(data.toByteArray(), StandardCharsets.UTF_8);
+        }
+        finally {
+            inputStream.close();
+        }
+    }
+
+    @Test
+    public void vertretungsplan() throws Exception {
+        for (String name : new String[] { "decoders/vertretungsplan", "decoders/vertretungsplan-minimal", "vertretungsplan/full" }) {
+            final String data = read(name);
+            assertEquals(name, LegacyDecoders.vertretungsplan(new JSONObject(data)), ModelViews.vertretungsplan(Vertretungsplan.decoder.decode(data)));
+        }
+    }
+
+    @Test
+    public void vertretungsplanEvaColumnAndDigest() throws IOException {
+        final Vertretungsplan vertretungsplan = Vertretungsplan.decoder.decode(read("decoders/vertretungsplan"));
+        final GradeItem q1 = vertretungsplan.getVertretungsplaene().get(0).getGradeItems().get(1);
+
+        assertEquals("Seiten 12 - 14 bearbeiten", q1.getEva(0));
+        assertEquals("", q1.getEva(1));
+        assertNull(vertretungsplan.getVertretungsplaene().get(0).getGradeItems().get(0).getEva(0));
+        assertEquals("8b1a9953c4611296a827abf8c47804d7", vertretungsplan.getDigest());
+
+        final Vertretungsplan minimal = Vertretungsplan.decoder.decode(read("decoders/vertretungsplan-minimal"));
+        assertNull(minimal.getDigest());
+        assertNull(minimal.getAdditionalText());
+    }
+
+    @Test
+    public void calendar() throws Exception {
+        final String data = read("decoders/calendar");
+        assertEquals(LegacyDecoders.calendar(new JSONObject(data)), ModelViews.calendar(Calendar.decoder.decode(data)));
+    }
+
+    @Test
+    public void eva() throws Exception {
+        final String data = read("decoders/eva");
+        assertEquals(LegacyDecoders.eva(new JSONObject(data)), ModelViews.eva(Eva.decoder.decode(data)));
+    }
+
+    @Test
+    public void newsItems() throws Exception {
+        final String data = read("decoders/news");
+        assertEquals(LegacyDecoders.newsItems(new JSONObject(data)), ModelViews.newsItems(NewsItems.decoder.decode(data)));
+    }
+
+    @Test
+    public void postings() throws Exception {
+        final String data = read("decoders/postings");
+        assertEquals(LegacyDecoders.postings(new JSONObject(data)), ModelViews.postings(Postings.decoder.decode(data)));
+    }
+
+    @Test
+    public void staffDictionary() throws Exception {
+        final String data = read("decoders/staff");
+        assertEquals(LegacyDecoders.staffDictionary(new JSONObject(data)), ModelViews.staffDictionary(StaffDictionary.decoder.decode(data)));
+    }
+
+    /**
+     * Required properties are required by both.
+     */
+    @Test
+    public void missingRequiredPropertiesAreRejected() throws IOException {
+        final String[] schedules = {
+                "{\"lastUpdate\":\"\",\"dateItems\":[]}",
+                "{\"tickerText\":\"\",\"dateItems\":[]}",
+                "{\"tickerText\":\"\",\"lastUpdate\":\"\"}",
+                "{\"tickerText\":\"\",\"lastUpdate\":\"\",\"dateItems\":[{\"gradeItems\":[]}]}",
+                "{\"tickerText\":\"\",\"lastUpdate\":\"\",\"dateItems\":[{\"title\":\"Montag, 02.11.2020\",\"gradeItems\":[{\"vertretungsplanItems\":[]}]}]}",
+        };
+
+        for (String schedule : schedules) {
+            try {
+                LegacyDecoders.vertretungsplan(new JSONObject(schedule));
+                fail("Legacy accepted " + schedule);
+            }
+            catch (JSONException expected) {
+                // Former constructor threw, too.
+            }
+
+            try {
+                Vertretungsplan.decoder.decode(schedule);
+                fail("Decoder accepted " + schedule);
+            }
+            catch (RuntimeException expected) {
+                // Rejected like before.
+            }
+        }
+    }
+
+    /**
+     * Deliberate differences: org.json's getString() turns JSON null into the text "null"
+     * and a grade without vertretungsplanItems failed the whole schedule. Decoders keep null
+     * as null, an empty detail item as empty text and take a missing list as empty.
+     */
+    @Test
+    public void nullsAndMissingListsDifferDeliberately() throws Exception {
+        final String schedule = "{\"tickerText\":\"\",\"lastUpdate\":\"\",\"_digest\":null,\"dateItems\":[{\"title\":\"Montag, 02.11.2020\",\"gradeItems\":["
+                + "{\"grade\":\"5A\",\"vertretungsplanItems\":[{\"detailItems\":[\"2.\",\"Entfall\",null,\"\",\"\",\"\",\"\"]}]},"
+                + "{\"grade\":\"5B\"}]}]}";
+
+        final Vertretungsplan vertretungsplan = Vertretungsplan.decoder.decode(schedule);
+        assertNull(vertretungsplan.getDigest());
+        assertArrayEquals(new String[] { "2.", "Entfall", "", "", "", "", "" }, vertretungsplan.getVertretungsplaene().get(0).getGradeItems().get(0).getDetailItems(0));
+        assertEquals(0, vertretungsplan.getVertretungsplaene().get(0).getGradeItems().get(1).size());
+
+        try {
+            LegacyDecoders.vertretungsplan(new JSONObject(schedule));
+            fail("Legacy accepted grade without vertretungsplanItems");
+        }
+        catch (NullPointerException expected) {
+            // Former constructor failed on Objects.requireNonNull().
+        }
+
+        final JSONObject withNull = new JSONObject("{\"_digest\":null,\"detailItems\":[null]}");
+        assertEquals("null", withNull.getString("_digest"));
+        assertEquals("null", withNull.getJSONArray("detailItems").getString(0));
+    }
+}
@@ -0,0 +1,206 @@
+package com.rmkrings.helper;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Models as the org.json constructors built them before models were decoded from a stream.
+ * The parsing rules are those of the former constructors, including their use of getString()
+ * and optString(), but values are kept in plain maps and lists. ModelViews renders streaming
+ * decoded models into the same shape, thus both can be compared with equals().
+ */
+final class LegacyDecoders {
+    private LegacyDecoders() { }
+
+    private static String optDigest(JSONObject data) {
+        try {
+            return data.getString("_digest");
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    static Map<String, Object> vertretungsplan(JSONObject data) throws JSONException {
+        final LinkedHashMap<String, Object> vertretungsplan = new LinkedHashMap<>();
+        vertretungsplan.put("tickerText", data.getString("tickerText"));
+
+        String additionalText;
+        try {
+            additionalText = data.getString("_additionalText");
+        } catch (JSONException e) {
+            additionalText = null;
+        }
+        vertretungsplan.put("additionalText", additionalText);
+        vertretungsplan.put("lastUpdate", data.getString("lastUpdate"));
+
+        final ArrayList<Object> dateItems = new ArrayList<>();
+        final JSONArray jsonDateItems = data.getJSONArray("dateItems");
+        for (int i = 0; i < jsonDateItems.length(); i++) {
+            final JSONObject jsonDateItem = jsonDateItems.getJSONObject(i);
+            final LinkedHashMap<String, Object> dateItem = new LinkedHashMap<>();
+            dateItem.put("title", jsonDateItem.getString("title"));
+
+            final ArrayList<Object> gradeItems = new ArrayList<>();
+            final JSONArray jsonGradeItems = jsonDateItem.getJSONArray("gradeItems");
+            for (int g = 0; g < jsonGradeItems.length(); g++) {
+                final JSONObject jsonGradeItem = jsonGradeItems.getJSONObject(g);
+                final LinkedHashMap<String, Object> gradeItem = new LinkedHashMap<>();
+                gradeItem.put("grade", jsonGradeItem.getString("grade"));
+
+                final ArrayList<Object> rows = new ArrayList<>();
+                final JSONArray jsonRows = Objects.requireNonNull(jsonGradeItem.optJSONArray("vertretungsplanItems"));
+                for (int r = 0; r < jsonRows.length(); r++) {
+                    final JSONArray jsonDetailItems = jsonRows.getJSONObject(r).getJSONArray("detailItems");
+                    final ArrayList<String> detailItems = new ArrayList<>();
+                    for (int c = 0; c < jsonDetailItems.length(); c++) {
+                        detailItems.add(jsonDetailItems.getString(c));
+                    }
+                    rows.add(detailItems);
+                }
+                gradeItem.put("rows", rows);
+                gradeItems.add(gradeItem);
+            }
+            dateItem.put("gradeItems", gradeItems);
+            dateItems.add(dateItem);
+        }
+        vertretungsplan.put("dateItems", dateItems);
+        vertretungsplan.put("digest", optDigest(data));
+
+        return vertretungsplan;
+    }
+
+    static Map<String, Object> calendar(JSONObject data) throws JSONException {
+        final LinkedHashMap<String, Object> calendar = new LinkedHashMap<>();
+        final ArrayList<Object> monthItems = new ArrayList<>();
+
+        final JSONArray jsonMonthItems = Objects.requireNonNull(data.optJSONArray("monthItems"));
+        for (int m = 0; m < jsonMonthItems.length(); m++) {
+            final JSONObject jsonMonthItem = jsonMonthItems.getJSONObject(m);
+            final LinkedHashMap<String, Object> monthItem = new LinkedHashMap<>();
+            final String fullName = StringHelper.replaceHtmlEntities(jsonMonthItem.getString("name"));
+            monthItem.put("name", fullName.substring(0, 3) + " " + fullName.substring(fullName.length() - 2));
+
+            final ArrayList<Object> dayItems = new ArrayList<>();
+            final JSONArray jsonDayItems = Objects.requireNonNull(jsonMonthItem.optJSONArray("dayItems"));
+            for (int d = 0; d < jsonDayItems.length(); d++) {
+                final JSONArray jsonDetailItems = jsonDayItems.getJSONObject(d).getJSONArray("detailItems");
+                final ArrayList<String> dayItem = new ArrayList<>();
+                dayItem.add(jsonDetailItems.getString(0));
+                dayItem.add(jsonDetailItems.getString(1));
+                dayItems.add(dayItem);
+            }
+            monthItem.put("dayItems", dayItems);
+            monthItems.add(monthItem);
+        }
+        calendar.put("monthItems", monthItems);
+        calendar.put("digest", optDigest(data));
+
+        return calendar;
+    }
+
+    static Map<String, Object> eva(JSONObject data) throws JSONException {
+        final LinkedHashMap<String, Object> eva = new LinkedHashMap<>();
+        final ArrayList<String> dates = new ArrayList<>();
+        final LinkedHashMap<String, Object> evaData = new LinkedHashMap<>();
+
+        final JSONArray jsonEvaDataItems = Objects.requireNonNull(data.optJSONArray("evaData"));
+        for (int i = 0; i < jsonEvaDataItems.length(); i++) {
+            final JSONObject jsonEvaDataItem = jsonEvaDataItems.getJSONObject(i);
+            final String date = jsonEvaDataItem.getString("date");
+            dates.add(date);
+
+            final ArrayList<Object> evaItems = new ArrayList<>();
+            final JSONArray jsonEvaItems = Objects.requireNonNull(jsonEvaDataItem.optJSONArray("evaItems"));
+            for (int j = 0; j < jsonEvaItems.length(); j++) {
+                final JSONObject jsonEvaItem = jsonEvaItems.getJSONObject(j);
+                final ArrayList<String> evaItem = new ArrayList<>();
+                evaItem.add(jsonEvaItem.getString("uuid"));
+                evaItem.add(jsonEvaItem.getString("course"));
+                evaItem.add(jsonEvaItem.getString("evaText"));
+                evaItems.add(evaItem);
+            }
+            evaData.put(date, evaItems);
+        }
+        eva.put("dates", dates);
+        eva.put("evaData", evaData);
+        eva.put("digest", optDigest(data));
+
+        return eva;
+    }
+
+    static Map<String, Object> newsItems(JSONObject data) throws JSONException {
+        final LinkedHashMap<String, Object> newsItems = new LinkedHashMap<>();
+        final ArrayList<Object> items = new ArrayList<>();
+
+        final JSONArray jsonNewsItems = data.getJSONArray("newsItems");
+        for (int i = 0; i < jsonNewsItems.length(); i++) {
+            final JSONObject jsonNewsItem = jsonNewsItems.getJSONObject(i);
+            final ArrayList<String> newsItem = new ArrayList<>();
+            newsItem.add(jsonNewsItem.optString("img"));
+            newsItem.add(jsonNewsItem.optString("href"));
+            newsItem.add(jsonNewsItem.optString("heading"));
+            newsItem.add(jsonNewsItem.getString("text"));
+            items.add(newsItem);
+        }
+        newsItems.put("newsItems", items);
+        newsItems.put("digest", optDigest(data));
+
+        return newsItems;
+    }
+
+    static Map<String, Object> postings(JSONObject data) throws Exception {
+        final LinkedHashMap<String, Object> postings = new LinkedHashMap<>();
+        final ArrayList<Object> messages = new ArrayList<>();
+
+        final JSONArray jsonPostings = Objects.requireNonNull(data.optJSONArray("messages"));
+        for (int i = 0; i < jsonPostings.length(); i++) {
+            final JSONObject jsonPosting = jsonPostings.getJSONObject(i);
+            final ArrayList<String> posting = new ArrayList<>();
+            posting.add(jsonPosting.getString("message"));
+            posting.add(DateHelper.convert(
+                    jsonPosting.getString("timestamp").replace("Z", "+00:00"), "yyyy-MM-dd'T'HH:mm:ssz", "EEEE, d. MMMM yyyy, HH:mm 'Uhr'"));
+            messages.add(posting);
+        }
+        postings.put("messages", messages);
+        postings.put("digest", optDigest(data));
+
+        return postings;
+    }
+
+    /**
+     * Former StaffDictionary constructor; digest was read by StaffLoader with optString().
+     */
+    static Map<String, Object> staffDictionary(JSONObject data) throws JSONException {
+        final LinkedHashMap<String, Object> staffDictionary = new LinkedHashMap<>();
+        final TreeMap<String, Object> staffMembers = new TreeMap<>();
+
+        final JSONObject jsonStaffDictionary = data.getJSONObject("staffDictionary");
+        final Iterator<String> shortcutNames = jsonStaffDictionary.keys();
+        while (shortcutNames.hasNext()) {
+            final String shortcutName = shortcutNames.next();
+            if (jsonStaffDictionary.get(shortcutName) instanceof JSONObject) {
+                final JSONObject jsonStaffMember = jsonStaffDictionary.getJSONObject(shortcutName);
+                final ArrayList<String> staffMember = new ArrayList<>();
+                staffMember.add(jsonStaffMember.getString("name"));
+
+                final JSONArray jsonSubjects = jsonStaffMember.getJSONArray("subjects");
+                for (int i = 0; i < jsonSubjects.length(); i++) {
+                    staffMember.add(jsonSubjects.getString(i));
+                }
+                staffMembers.put(shortcutName, staffMember);
+            }
+        }
+        staffDictionary.put("staffDictionary", staffMembers);
+        staffDictionary.put("digest", data.optString("_digest", null));
+
+        return staffDictionary;
+    }
+}
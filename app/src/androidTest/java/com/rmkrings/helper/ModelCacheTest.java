@@ -0,0 +1,198 @@
+package com.rmkrings.helper;
+
+import android.util.JsonReader;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rmkrings.pius_app_for_android;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Needs a device as Cache stores its records in app's files directory and LruCache is not
+ * available on host.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ModelCacheTest {
+    private static final String NAME = "modelcachetest";
+    private static final String OTHER_NAME = "modelcachetest-other";
+
+    /**
+     * Hands out a new object on each parse and counts parses. An optional action runs while
+     * parsing, i.e. between ModelCache's lookup and its put.
+     */
+    private static class CountingDecoder extends JsonDecoder<Object> {
+        int parses = 0;
+        Runnable duringParse;
+
+        @Override
+        public Object decode(JsonReader reader) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object decode(ByteBuffer buffer) {
+            parses += 1;
+            if (duringParse != null) {
+                final Runnable action = duringParse;
+                duringParse = null;
+                action.run();
+            }
+            return new Object();
+        }
+    }
+
+    private final Cache cache = new Cache();
+    private final ModelCache modelCache = ModelCache.getInstance();
+
+    private static CacheRecord record(String digest) {
+        return new CacheRecord(("{\"_digest\":\"" + digest + "\"}").getBytes(StandardCharsets.UTF_8), digest, 200);
+    }
+
+    @Before
+    public void setUp() {
+        modelCache.invalidate(NAME);
+        modelCache.invalidate(OTHER_NAME);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        cache.flush();
+        modelCache.invalidate(NAME);
+        modelCache.invalidate(OTHER_NAME);
+        //noinspection ResultOfMethodCallIgnored
+        pius_app_for_android.getAppContext().getFileStreamPath(Config.recordFilename(NAME)).delete();
+        //noinspection ResultOfMethodCallIgnored
+        pius_app_for_android.getAppContext().getFileStreamPath(Config.recordFilename(OTHER_NAME)).delete();
+    }
+
+    @Test
+    public void modelIsSharedUntilDigestChanges() throws IOException {
+        final CountingDecoder decoder = new CountingDecoder();
+
+        cache.storeRecord(NAME, record("a"));
+        final Object model = modelCache.get(NAME, decoder);
+        assertSame(model, modelCache.get(NAME, decoder));
+        assertEquals(1, decoder.parses);
+
+        cache.storeRecord(NAME, record("b"));
+        final Object updated = modelCache.get(NAME, decoder);
+        assertNotSame(model, updated);
+        assertSame(updated, modelCache.get(NAME, decoder));
+        assertEquals(2, decoder.parses);
+    }
+
+    @Test
+    public void modelOfOtherDigestIsNotReturned() throws IOException {
+        final CountingDecoder decoder = new CountingDecoder();
+        final Object stale = new Object();
+
+        cache.storeRecord(NAME, record("b"));
+        modelCache.put(NAME, "a", stale, 16);
+
+        assertNotSame(stale, modelCache.get(NAME, decoder));
+        assertEquals(1, decoder.parses);
+    }
+
+    @Test
+    public void missingDatasetIsReported() throws IOException {
+        try {
+            modelCache.get("modelcachetest-missing", new CountingDecoder());
+            fail("Got model of missing dataset");
+        }
+        catch (FileNotFoundException expected) {
+            // No record, no model.
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedModelIsDroppedWhenBudgetIsExceeded() throws IOException {
+        final CountingDecoder decoder = new CountingDecoder();
+        final Object model = new Object();
+        final Object otherModel = new Object();
+
+        cache.storeRecord(NAME, record("a"));
+        modelCache.put(NAME, "a", model, ModelCache.MAX_SIZE / 2 + 1);
+        assertSame(model, modelCache.get(NAME, decoder));
+
+        // Both do not fit into budget, thus first one goes.
+        cache.storeRecord(OTHER_NAME, record("a"));
+        modelCache.put(OTHER_NAME, "a", otherModel, ModelCache.MAX_SIZE / 2 + 1);
+
+        assertSame(otherModel, modelCache.get(OTHER_NAME, decoder));
+        assertNotSame(model, modelCache.get(NAME, decoder));
+        assertEquals(1, decoder.parses);
+    }
+
+    @Test
+    public void modelIsNotKeptWhenDatasetIsStoredWhileParsing() throws IOException {
+        final CountingDecoder decoder = new CountingDecoder();
+
+        cache.storeRecord(NAME, record("a"));
+        decoder.duringParse = new Runnable() {
+            @Override
+            public void run() {
+                cache.storeRecord(NAME, record("b"));
+            }
+        };
+
+        final Object stale = modelCache.get(NAME, decoder);
+        final Object current = modelCache.get(NAME, decoder);
+
+        assertNotSame(stale, current);
+        assertSame(current, modelCache.get(NAME, decoder));
+        assertEquals(2, decoder.parses);
+    }
+
+    @Test
+    public void parsedModelDoesNotReplaceModelPutWhileParsing() throws IOException {
+        final CountingDecoder decoder = new CountingDecoder();
+        final Object fresh = new Object();
+
+        cache.storeRecord(NAME, record("a"));
+        decoder.duringParse = new Runnable() {
+            @Override
+            public void run() {
+                cache.storeRecord(NAME, record("b"));
+                modelCache.put(NAME, "b", fresh, 16);
+            }
+        };
+
+        assertNotSame(fresh, modelCache.get(NAME, decoder));
+        assertSame(fresh, modelCache.get(NAME, decoder));
+        assertEquals(1, decoder.parses);
+    }
+
+    @Test
+    public void generationGuardDropsModelWhenInvalidatedWhileParsing() throws IOException {
+        final CountingDecoder decoder = new CountingDecoder();
+
+        cache.storeRecord(NAME, record("a"));
+        decoder.duringParse = new Runnable() {
+            @Override
+            public void run() {
+                modelCache.invalidate(NAME);
+            }
+        };
+
+        final Object first = modelCache.get(NAME, decoder);
+        final Object second = modelCache.get(NAME, decoder);
+
+        assertNotSame(first, second);
+        assertSame(second, modelCache.get(NAME, decoder));
+        assertEquals(2, decoder.parses);
+    }
+}
@@ -0,0 +1,142 @@
+package com.rmkrings.helper;
+
+import com.rmkrings.data.calendar.Calendar;
+import com.rmkrings.data.calendar.DayItem;
+import com.rmkrings.data.calendar.MonthItem;
+import com.rmkrings.data.eva.Eva;
+import com.rmkrings.data.eva.EvaItem;
+import com.rmkrings.data.news.NewsItem;
+import com.rmkrings.data.news.NewsItems;
+import com.rmkrings.data.postings.Posting;
+import com.rmkrings.data.postings.Postings;
+import com.rmkrings.data.staff.StaffDictionary;
+import com.rmkrings.data.staff.StaffMember;
+import com.rmkrings.data.vertretungsplan.GradeItem;
+import com.rmkrings.data.vertretungsplan.Vertretungsplan;
+import com.rmkrings.data.vertretungsplan.VertretungsplanForDate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Renders streaming decoded models into the plain maps and lists LegacyDecoders builds.
+ */
+final class ModelViews {
+    private ModelViews() { }
+
+    static Map<String, Object> vertretungsplan(Vertretungsplan model) {
+        final LinkedHashMap<String, Object> vertretungsplan = new LinkedHashMap<>();
+        vertretungsplan.put("tickerText", model.getTickerText());
+        vertretungsplan.put("additionalText", model.getAdditionalText());
+        vertretungsplan.put("lastUpdate", model.getLastUpdate());
+
+        final ArrayList<Object> dateItems = new ArrayList<>();
+        for (VertretungsplanForDate vertretungsplanForDate : model.getVertretungsplaene()) {
+            final LinkedHashMap<String, Object> dateItem = new LinkedHashMap<>();
+            dateItem.put("title", vertretungsplanForDate.getDate());
+
+            final ArrayList<Object> gradeItems = new ArrayList<>();
+            for (GradeItem gradeItem : vertretungsplanForDate.getGradeItems()) {
+                final LinkedHashMap<String, Object> grade = new LinkedHashMap<>();
+                grade.put("grade", gradeItem.getGrade());
+
+                final ArrayList<Object> rows = new ArrayList<>();
+                for (int row = 0; row < gradeItem.size(); row++) {
+                    rows.add(new ArrayList<>(Arrays.asList(gradeItem.getDetailItems(row))));
+                }
+                grade.put("rows", rows);
+                gradeItems.add(grade);
+            }
+            dateItem.put("gradeItems", gradeItems);
+            dateItems.add(dateItem);
+        }
+        vertretungsplan.put("dateItems", dateItems);
+        vertretungsplan.put("digest", model.getDigest());
+
+        return vertretungsplan;
+    }
+
+    static Map<String, Object> calendar(Calendar model) {
+        final LinkedHashMap<String, Object> calendar = new LinkedHashMap<>();
+        final ArrayList<Object> monthItems = new ArrayList<>();
+
+        for (MonthItem monthItem : model.getMonthItems()) {
+            final LinkedHashMap<String, Object> month = new LinkedHashMap<>();
+            month.put("name", monthItem.getName());
+
+            final ArrayList<Object> dayItems = new ArrayList<>();
+            for (DayItem dayItem : monthItem.getDayItems()) {
+                dayItems.add(Arrays.asList(dayItem.getDay(), dayItem.getEvent()));
+            }
+            month.put("dayItems", dayItems);
+            monthItems.add(month);
+        }
+        calendar.put("monthItems", monthItems);
+        calendar.put("digest", model.getDigest());
+
+        return calendar;
+    }
+
+    static Map<String, Object> eva(Eva model) {
+        final LinkedHashMap<String, Object> eva = new LinkedHashMap<>();
+        final LinkedHashMap<String, Object> evaData = new LinkedHashMap<>();
+
+        for (String date : model.getDates()) {
+            final ArrayList<Object> evaItems = new ArrayList<>();
+            for (EvaItem evaItem : model.getEvaData().get(date)) {
+                evaItems.add(Arrays.asList(evaItem.getUuid(), evaItem.getCourse(), evaItem.getEvaText()));
+            }
+            evaData.put(date, evaItems);
+        }
+        eva.put("dates", new ArrayList<>(model.getDates()));
+        eva.put("evaData", evaData);
+        eva.put("digest", model.getDigest());
+
+        return eva;
+    }
+
+    static Map<String, Object> newsItems(NewsItems model) {
+        final LinkedHashMap<String, Object> newsItems = new LinkedHashMap<>();
+        final ArrayList<Object> items = new ArrayList<>();
+
+        for (NewsItem newsItem : model.getNewsItems()) {
+            items.add(Arrays.asList(newsItem.getImg(), newsItem.getHref(), newsItem.getHeading(), newsItem.getText()));
+        }
+        newsItems.put("newsItems", items);
+        newsItems.put("digest", model.getDigest());
+
+        return newsItems;
+    }
+
+    static Map<String, Object> postings(Postings model) {
+        final LinkedHashMap<String, Object> postings = new LinkedHashMap<>();
+        final ArrayList<Object> messages = new ArrayList<>();
+
+        for (Posting posting : model.getPostings()) {
+            messages.add(Arrays.asList(posting.getPostingMessage(), posting.getTimestamp()));
+        }
+        postings.put("messages", messages);
+        postings.put("digest", model.getDigest());
+
+        return postings;
+    }
+
+    static Map<String, Object> staffDictionary(StaffDictionary model) {
+        final LinkedHashMap<String, Object> staffDictionary = new LinkedHashMap<>();
+        final TreeMap<String, Object> staffMembers = new TreeMap<>();
+
+        for (Map.Entry<String, StaffMember> entry : model.entrySet()) {
+            final ArrayList<String> staffMember = new ArrayList<>();
+            staffMember.add(entry.getValue().getName());
+            staffMember.addAll(entry.getValue().getSubjects());
+            staffMembers.put(entry.getKey(), staffMember);
+        }
+        staffDictionary.put("staffDictionary", staffMembers);
+        staffDictionary.put("digest", model.getDigest());
+
+        return staffDictionary;
+    }
+}
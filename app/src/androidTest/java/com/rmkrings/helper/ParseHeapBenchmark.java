@@ -0,0 +1,248 @@
+package com.rmkrings.helper;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rmkrings.data.calendar.Calendar;
+import com.rmkrings.data.eva.Eva;
+import com.rmkrings.data.staff.StaffDictionary;
+import com.rmkrings.data.vertretungsplan.Vertretungsplan;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Reports heap retained by models parsed from large synthetic payloads. As baseline the
+ * same payload is read into plain lists and maps with one string per occurrence, which is
+ * what models looked like before parse-time interning.
+ *
+ * Also compares parsing before and after streaming decoders: the former org.json
+ * constructors, as kept in LegacyDecoders, against the model's decoder. Needs a device as
+ * JsonReader and org.json are not available on host.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ParseHeapBenchmark {
+    private static final String TAG = "ParseHeap";
+
+    private static final String[] TEACHERS = { "ABC", "DEF", "GHI", "JKL", "MNO", "PQR", "STU", "VWX" };
+    private static final String[] ROOMS = { "(A101)", "(A102)", "(B201)", "(B202)", "(Turnhalle)" };
+    private static final String[] TYPES = { "Vertretung", "Entfall", "Raum-Vtr.", "Klausur", "EVA" };
+    private static final String[] COURSES = { "M G1", "D L1", "E G2", "BI G1", "PH L1", "SP G3" };
+    private static final String[] GRADES = { "5A", "5B", "5C", "6A", "6B", "6C", "7A", "7B", "7C", "8A", "8B", "8C", "9A", "9B", "9C", "EF", "Q1", "Q2" };
+
+    private static String vertretungsplanPayload() {
+        final StringBuilder json = new StringBuilder("{\"tickerText\":\"\",\"lastUpdate\":\"\",\"dateItems\":[");
+        for (int d = 0; d < 10; d++) {
+            json.append(d > 0 ? "," : "").append(String.format("{\"title\":\"Montag, %02d.11.2020\",\"gradeItems\":[", d + 1));
+            for (int g = 0; g < GRADES.length; g++) {
+                json.append(g > 0 ? "," : "").append("{\"grade\":\"").append(GRADES[g]).append("\",\"vertretungsplanItems\":[");
+                for (int r = 0; r < 40; r++) {
+                    json.append(r > 0 ? "," : "").append(String.format(
+                            "{\"detailItems\":[\"%d.\",\"%s\",\"%s\",\"%s\",\"%s\",\"\",\"\"]}",
+                            1 + r % 11, TYPES[r % TYPES.length], COURSES[r % COURSES.length], ROOMS[r % ROOMS.length], TEACHERS[r % TEACHERS.length]));
+                }
+                json.append("]}");
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String evaPayload() {
+        final StringBuilder json = new StringBuilder("{\"evaData\":[");
+        for (int d = 0; d < 60; d++) {
+            json.append(d > 0 ? "," : "").append(String.format("{\"date\":\"Montag, %02d.11.2020\",\"evaItems\":[", 1 + d % 30));
+            for (int i = 0; i < 20; i++) {
+                json.append(i > 0 ? "," : "").append(String.format(
+                        "{\"uuid\":\"%d-%d\",\"course\":\"%s\",\"evaText\":\"Aufgabe %d\"}", d, i, COURSES[i % COURSES.length], i % 4));
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String calendarPayload() {
+        final StringBuilder json = new StringBuilder("{\"monthItems\":[");
+        for (int m = 0; m < 12; m++) {
+            json.append(m > 0 ? "," : "").append("{\"name\":\"November 2020\",\"dayItems\":[");
+            for (int d = 0; d < 80; d++) {
+                json.append(d > 0 ? "," : "").append(String.format(
+                        "{\"detailItems\":[\"Mo, %02d.11.\",\"%s\"]}", 1 + d % 30, (d % 3 == 0) ? "Ferien" : "Klausur " + COURSES[d % COURSES.length]));
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String staffPayload() {
+        final StringBuilder json = new StringBuilder("{\"staffDictionary\":{");
+        for (int s = 0; s < 200; s++) {
+            json.append(s > 0 ? "," : "").append(String.format(
+                    "\"T%03d\":{\"name\":\"Lehrer %d\",\"subjects\":[\"M\",\"%s\",\"SP\"]}", s, s, (s % 2 == 0) ? "D" : "E"));
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Read JSON value into lists, maps and one string per occurrence.
+     */
+    private static Object readPlain(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            final ArrayList<Object> list = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(readPlain(reader));
+            }
+            reader.endArray();
+            return list;
+        }
+
+        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+            final HashMap<String, Object> map = new HashMap<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                map.put(reader.nextName(), readPlain(reader));
+            }
+            reader.endObject();
+            return map;
+        }
+
+        return JsonDecoder.nextString(reader);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String name, String payload, JsonDecoder<?> decoder) throws IOException {
+        long start = usedHeap();
+        Object plain = readPlain(new JsonReader(new StringReader(payload)));
+        final long plainBytes = usedHeap() - start;
+        assertNotNull(plain);
+        //noinspection UnusedAssignment
+        plain = null;
+
+        start = usedHeap();
+        final Object model = decoder.decode(payload);
+        final long modelBytes = usedHeap() - start;
+        assertNotNull(model);
+
+        Log.i(TAG, String.format("%s (%d KiB payload): %d KiB one string per value, %d KiB parsed model",
+                name, payload.length() / 1024, plainBytes / 1024, modelBytes / 1024));
+    }
+
+    /**
+     * Former org.json path: Whole document as JSONObject tree, then model built from it.
+     */
+    private interface LegacyParser {
+        Object parse(String payload) throws Exception;
+    }
+
+    private static final LegacyParser legacyVertretungsplan = new LegacyParser() {
+        @Override
+        public Object parse(String payload) throws Exception {
+            return LegacyDecoders.vertretungsplan(new JSONObject(payload));
+        }
+    };
+
+    private static final LegacyParser legacyEva = new LegacyParser() {
+        @Override
+        public Object parse(String payload) throws Exception {
+            return LegacyDecoders.eva(new JSONObject(payload));
+        }
+    };
+
+    private static final LegacyParser legacyCalendar = new LegacyParser() {
+        @Override
+        public Object parse(String payload) throws Exception {
+            return LegacyDecoders.calendar(new JSONObject(payload));
+        }
+    };
+
+    private static final LegacyParser legacyStaffDictionary = new LegacyParser() {
+        @Override
+        public Object parse(String payload) throws Exception {
+            return LegacyDecoders.staffDictionary(new JSONObject(payload));
+        }
+    };
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    private static void compare(String name, String payload, LegacyParser legacy, JsonDecoder<?> decoder) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertNotNull(legacy.parse(payload));
+            assertNotNull(decoder.decode(payload));
+        }
+
+        // Peak is what the parse needs on top of heap in use, org.json keeps the whole tree.
+        long start = usedHeap();
+        final Runtime runtime = Runtime.getRuntime();
+        long legacyNanos = 0;
+        long legacyPeak = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            final long t = System.nanoTime();
+            final Object model = legacy.parse(payload);
+            legacyNanos += System.nanoTime() - t;
+            legacyPeak = Math.max(legacyPeak, runtime.totalMemory() - runtime.freeMemory() - start);
+            assertNotNull(model);
+        }
+
+        Object model = legacy.parse(payload);
+        final long legacyRetained = usedHeap() - start;
+        //noinspection UnusedAssignment
+        model = null;
+
+        start = usedHeap();
+        long decoderNanos = 0;
+        long decoderPeak = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            final long t = System.nanoTime();
+            final Object decoded = decoder.decode(payload);
+            decoderNanos += System.nanoTime() - t;
+            decoderPeak = Math.max(decoderPeak, runtime.totalMemory() - runtime.freeMemory() - start);
+            assertNotNull(decoded);
+        }
+
+        model = decoder.decode(payload);
+        final long decoderRetained = usedHeap() - start;
+        assertNotNull(model);
+
+        Log.i(TAG, String.format("%s (%d KiB payload): org.json %.1f ms, %d KiB peak, %d KiB retained; decoder %.1f ms, %d KiB peak, %d KiB retained",
+                name, payload.length() / 1024,
+                legacyNanos / 1e6 / ROUNDS, legacyPeak / 1024, legacyRetained / 1024,
+                decoderNanos / 1e6 / ROUNDS, decoderPeak / 1024, decoderRetained / 1024));
+    }
+
+    @Test
+    public void legacyAgainstStreamingDecoders() throws Exception {
+        compare("Vertretungsplan", vertretungsplanPayload(), legacyVertretungsplan, Vertretungsplan.decoder);
+        compare("Eva", evaPayload(), legacyEva, Eva.decoder);
+        compare("Calendar", calendarPayload(), legacyCalendar, Calendar.decoder);
+        compare("StaffDictionary", staffPayload(), legacyStaffDictionary, StaffDictionary.decoder);
+    }
+
+    @Test
+    public void retainedHeap() throws IOException {
+        report("Vertretungsplan", vertretungsplanPayload(), Vertretungsplan.decoder);
+        report("Eva", evaPayload(), Eva.decoder);
+        report("Calendar", calendarPayload(), Calendar.decoder);
+        report("StaffDictionary", staffPayload(), StaffDictionary.decoder);
+    }
+}
@@ -63,12 +63,19 @@ public class ScheduleChangedActivity extends AppCompatActivity {
         mVertretungsplanChangesAdapter = new VertretungsplanChangesAdapter(list);
         mList.setAdapter(mVertretungsplanChangesAdapter);
 
-        if (getIntent().getExtras() != null) {
+        if (getIntent().hasExtra("changeList")) {
+            // Changes that have been found by dashboard when polling.
+            VertretungsplanChangeList vertretungsplanChangeList = (VertretungsplanChangeList) getIntent().getSerializableExtra("changeList");
+            String lastUpdate = getIntent().getStringExtra("lastUpdate");
+            showChanges(Objects.requireNonNull(vertretungsplanChangeList), lastUpdate);
+        } else if (getIntent().getExtras() != null) {
             try {
                 String data = getIntent().getStringExtra("deltaList");
                 String timestamp = getIntent().getStringExtra("timestamp");
                 VertretungsplanChangeList vertretungsplanChangeList = new VertretungsplanChangeList(new JSONArray(data));
-                showChanges(vertretungsplanChangeList, Objects.requireNonNull(timestamp));
+                String readableTimestamp = DateHelper.convert(
+                        Objects.requireNonNull(timestamp).replace("Z", "+00:00"), "yyyy-MM-dd'T'HH:mm:ssz", "EEEE, d. MMMM yyyy, HH:mm 'Uhr'");
+                showChanges(vertretungsplanChangeList, readableTimestamp);
 
             } catch (JSONException e) {
                 e.printStackTrace();
@@ -76,10 +83,8 @@ public class ScheduleChangedActivity extends AppCompatActivity {
         }
     }
 
-    private void showChanges(VertretungsplanChangeList vertretungsplanChangeList, String timestamp) {
+    private void showChanges(VertretungsplanChangeList vertretungsplanChangeList, String readableTimestamp) {
         TextView mTimestamp = findViewById(R.id.timestamp);
-        String readableTimestamp = DateHelper.convert(
-                timestamp.replace("Z", "+00:00"), "yyyy-MM-dd'T'HH:mm:ssz", "EEEE, d. MMMM yyyy, HH:mm 'Uhr'");
         mTimestamp.setText(readableTimestamp);
 
         list.clear();
@@ -0,0 +1,57 @@
+package com.rmkrings.data.adapter;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.rmkrings.data.calendar.CalendarListItem;
+import com.rmkrings.data.calendar.CalendarSearchHit;
+import com.rmkrings.data.calendar.MonthHeaderItem;
+
+import java.util.List;
+
+/**
+ * Compares calendar search results. Hits are the same if they refer to the same day item
+ * of the calendar, their contents are the same if they highlight the same ranges.
+ */
+public class CalendarSearchDiffCallback extends DiffUtil.Callback {
+    private final List<CalendarListItem> oldItems;
+    private final List<CalendarListItem> newItems;
+
+    public CalendarSearchDiffCallback(List<CalendarListItem> oldItems, List<CalendarListItem> newItems) {
+        this.oldItems = oldItems;
+        this.newItems = newItems;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return oldItems.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return newItems.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        final CalendarListItem oldItem = oldItems.get(oldItemPosition);
+        final CalendarListItem newItem = newItems.get(newItemPosition);
+
+        if (oldItem.getType() != newItem.getType()) {
+            return false;
+        }
+
+        if (oldItem.getType() == CalendarListItem.monthHeader) {
+            return ((MonthHeaderItem)oldItem).getMonthName().equals(((MonthHeaderItem)newItem).getMonthName());
+        }
+
+        return ((CalendarSearchHit)oldItem).getDayItem() == ((CalendarSearchHit)newItem).getDayItem();
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        final CalendarListItem oldItem = oldItems.get(oldItemPosition);
+        final CalendarListItem newItem = newItems.get(newItemPosition);
+
+        return oldItem.getType() == CalendarListItem.monthHeader || ((CalendarSearchHit)oldItem).hasSameRanges((CalendarSearchHit)newItem);
+    }
+}
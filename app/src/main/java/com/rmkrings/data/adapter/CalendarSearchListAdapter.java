@@ -9,6 +9,7 @@ import android.widget.TextView;
 
 import com.rmkrings.data.calendar.CalendarListItem;
 import com.rmkrings.data.calendar.CalendarMessage;
+import com.rmkrings.data.calendar.CalendarSearchHit;
 import com.rmkrings.data.calendar.DayItem;
 import com.rmkrings.data.calendar.MonthHeaderItem;
 import com.rmkrings.helper.FormatHelper;
@@ -83,11 +84,16 @@ public class CalendarSearchListAdapter extends RecyclerView.Adapter<RecyclerView
             }
 
             case CalendarListItem.dayItem: {
-                DayItem dayItem = (DayItem)dateList.get(i);
+                // Search results come as hits, other lists show day items as they are.
+                CalendarListItem item = dateList.get(i);
+                CalendarSearchHit hit = (item instanceof CalendarSearchHit) ? (CalendarSearchHit)item : null;
+                DayItem dayItem = (hit != null) ? hit.getDayItem() : (DayItem)item;
                 DateListViewHolder dateListViewHolder = (DateListViewHolder)viewHolder;
                 dateListViewHolder.dateView.setText(dayItem.getDay());
                 dateListViewHolder.eventView.setText(dayItem.getEvent(), TextView.BufferType.SPANNABLE);
-                FormatHelper.highlight(dateListViewHolder.eventView, dayItem.getSearchMatches());
+                if (hit != null) {
+                    FormatHelper.highlight(dateListViewHolder.eventView, hit);
+                }
                 break;
             }
 
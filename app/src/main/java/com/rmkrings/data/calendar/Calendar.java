@@ -2,13 +2,18 @@ package com.rmkrings.data.calendar;
 
 import androidx.annotation.Nullable;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import android.util.JsonReader;
 
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Objects;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
 
 public class Calendar implements Serializable {
 
@@ -18,32 +23,58 @@ public class Calendar implements Serializable {
     // @serial
     private String digest;
 
+    private static final int[] NO_RANGES = new int[0];
+
+    // Indexes over all events in calendar order, rebuilt when calendar has been
+    // deserialized.
+    private transient DayItem[] indexedDayItems;
+    private transient int[] indexedMonths;
+    private transient HashMap<String, MonthItem> monthsByName;
+    private transient CalendarSearchIndex searchIndex;
+    private transient CalendarDateIndex dateIndex;
+
     private Calendar() {
         monthItems = new ArrayList<>();
         digest = null;
     }
 
-    public Calendar(JSONObject data) throws RuntimeException {
-        try {
-            monthItems = new ArrayList<>();
-            JSONArray jsonMonthItems = data.optJSONArray("monthItems");
-            for (int i = 0; i < Objects.requireNonNull(jsonMonthItems).length(); i++) {
-                JSONObject jsonMonthItem = jsonMonthItems.getJSONObject(i);
-                MonthItem monthItem = new MonthItem(jsonMonthItem);
-                monthItems.add(monthItem);
+    public static final JsonDecoder<Calendar> decoder = new JsonDecoder<Calendar>() {
+        @Override
+        public Calendar decode(JsonReader reader) throws IOException {
+            return new Calendar(reader);
+        }
+    };
+
+    private Calendar(JsonReader reader) throws IOException, RuntimeException {
+        final StringDictionary dictionary = new StringDictionary();
+        ArrayList<MonthItem> monthItems = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "monthItems":
+                    monthItems = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        monthItems.add(new MonthItem(reader, dictionary));
+                    }
+                    reader.endArray();
+                    break;
+                case "_digest":
+                    digest = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
             }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (monthItems == null) {
             throw(new RuntimeException("Failed to process calendar monthItems"));
         }
 
-        try {
-            digest = data.getString("_digest");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            digest = null;
-        }
+        this.monthItems = monthItems;
+        buildIndexes();
     }
 
     public ArrayList<MonthItem> getMonthItems() {
@@ -57,34 +88,142 @@ public class Calendar implements Serializable {
 
     @Nullable
     public MonthItem getMonthItem(String monthName) {
-        for (MonthItem monthItem: getMonthItems()) {
-            if (monthItem.getName().equals(monthName)) {
-                return monthItem;
+        buildIndexes();
+        return monthsByName.get(monthName);
+    }
+
+    /**
+     * Build indexes over events unless this has been done already.
+     */
+    private synchronized void buildIndexes() {
+        if (indexedDayItems != null) {
+            return;
+        }
+
+        final ArrayList<DayItem> dayItems = new ArrayList<>();
+        final ArrayList<Integer> months = new ArrayList<>();
+        final HashMap<String, MonthItem> monthsByName = new HashMap<>();
+        for (int month = 0; month < monthItems.size(); month++) {
+            final MonthItem monthItem = monthItems.get(month);
+            if (!monthsByName.containsKey(monthItem.getName())) {
+                monthsByName.put(monthItem.getName(), monthItem);
+            }
+
+            for (DayItem dayItem : monthItem.getDayItems()) {
+                dayItems.add(dayItem);
+                months.add(month);
             }
         }
 
-        return null;
+        final DayItem[] indexedDayItems = dayItems.toArray(new DayItem[0]);
+        final String[] events = new String[indexedDayItems.length];
+        final String[] days = new String[indexedDayItems.length];
+        final String[] monthNames = new String[indexedDayItems.length];
+        indexedMonths = new int[indexedDayItems.length];
+        for (int i = 0; i < indexedDayItems.length; i++) {
+            events[i] = indexedDayItems[i].getEvent();
+            days[i] = indexedDayItems[i].getDay();
+            monthNames[i] = monthItems.get(months.get(i)).getName();
+            indexedMonths[i] = months.get(i);
+        }
+
+        this.monthsByName = monthsByName;
+        searchIndex = new CalendarSearchIndex(events);
+        dateIndex = new CalendarDateIndex(days, monthNames);
+        this.indexedDayItems = indexedDayItems;
     }
 
-    public ArrayList<DayItem> getTodayEvents() {
-        MonthItem monthItem = getMonthItems().get(0);
-        return monthItem.getTodayEvents();
+    private synchronized CalendarSearchIndex getSearchIndex() {
+        buildIndexes();
+        return searchIndex;
     }
 
-    public Calendar filter(String s) {
-        if (s.length() == 0) {
-            return this;
+    private synchronized CalendarDateIndex getDateIndex() {
+        buildIndexes();
+        return dateIndex;
+    }
+
+    private List<DayItem> dayItems(int[] events) {
+        final ArrayList<DayItem> l = new ArrayList<>(events.length);
+        for (int event : events) {
+            l.add(indexedDayItems[event]);
         }
+        return l;
+    }
+
+    /**
+     * @param date - Date and time.
+     * @return Days since 1970-01-01 of date in local time.
+     */
+    public static int toEpochDay(Date date) {
+        final GregorianCalendar calendar = new GregorianCalendar();
+        calendar.setTime(date);
+        return CalendarDateIndex.epochDay(calendar);
+    }
 
-        Calendar c = new Calendar();
-        for (MonthItem monthItem: getMonthItems()) {
-            MonthItem m = monthItem.filter(s);
+    /**
+     * @param from - First day as epoch day, inclusive.
+     * @param to - Last day as epoch day, inclusive.
+     * @return Events that take place on any day of given range, events lasting several days
+     * included, ordered by first day.
+     */
+    public List<DayItem> getEvents(int from, int to) {
+        return dayItems(getDateIndex().range(from, to));
+    }
+
+    /**
+     * @param from - First day as epoch day, inclusive.
+     * @param count - Maximum number of events.
+     * @return Up to count events that take place on or after given day, ordered by first day.
+     */
+    public List<DayItem> getNextEvents(int from, int count) {
+        return dayItems(getDateIndex().next(from, count));
+    }
 
-            if (m != null) {
-                c.monthItems.add(m);
+    /**
+     * @return Events that take place today ordered by first day, thus events lasting several
+     * days that have started earlier come first; events of same first day in calendar order.
+     */
+    public List<DayItem> getTodayEvents() {
+        final int today = toEpochDay(new Date());
+        return getEvents(today, today);
+    }
+
+    /**
+     * @return Events from Monday through Sunday of current week.
+     */
+    public List<DayItem> getWeekEvents() {
+        final int today = toEpochDay(new Date());
+        // 1970-01-01 has been a Thursday.
+        final int monday = today - ((today + 3) % 7 + 7) % 7;
+        return getEvents(monday, monday + 6);
+    }
+
+    /**
+     * Search calendar for event text. Case and umlauts are ignored. Calendar is not
+     * modified, thus searches may run concurrently.
+     * @param s - Text to search for.
+     * @return Matching day items in calendar order, all day items without highlighting if
+     * s is empty.
+     */
+    public List<CalendarSearchHit> search(String s) {
+        final CalendarSearchIndex index = getSearchIndex();
+        final ArrayList<CalendarSearchHit> hits = new ArrayList<>();
+
+        if (s.length() == 0) {
+            for (int event = 0; event < indexedDayItems.length; event++) {
+                hits.add(new CalendarSearchHit(monthItems.get(indexedMonths[event]).getName(), indexedDayItems[event], NO_RANGES));
             }
+            return hits;
+        }
+
+        final CalendarSearchIndex.Result result = index.search(s);
+        final int[] events = result.getEvents();
+        for (int hit = 0; hit < events.length; hit++) {
+            final int event = events[hit];
+            hits.add(new CalendarSearchHit(monthItems.get(indexedMonths[event]).getName(), indexedDayItems[event], result.getMatches(hit)));
         }
 
-        return c;
+        return hits;
     }
 }
@@ -0,0 +1,215 @@
+package com.rmkrings.data.calendar;
+
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Date index over calendar events. First and last day of each event are parsed once when
+ * index is built and kept as epoch days, i.e. days since 1970-01-01, sorted by first day.
+ * Queries for a range of days are answered by binary search; an event is found on every day
+ * from its first through its last day.
+ *
+ * Day texts look like "Mo, 02.11." or "Mo, 21.12. - Mi, 23.12." for events that last several
+ * days; year is taken from name of month the event is listed in, e.g. "Nov 20".
+ */
+final class CalendarDateIndex {
+    static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final Pattern datePattern = Pattern.compile("(\\d{1,2})\\.(\\d{1,2})\\.");
+    private static final String[] MONTH_NAMES = { "Jan", "Feb", "Mär", "Apr", "Mai", "Jun", "Jul", "Aug", "Sep", "Okt", "Nov", "Dez" };
+
+    private final int[] firstDays;
+    private final int[] lastDays;
+    private final int[] events;
+
+    // Longest duration of an event in days minus one, bounds search for events that started
+    // before first day of a query.
+    private final int maxSpan;
+
+    /**
+     * Build index.
+     * @param days - Day texts of events, query results refer to events by index into this array.
+     * @param monthNames - Name of month each event is listed in.
+     */
+    CalendarDateIndex(String[] days, String[] monthNames) {
+        final long[] keys = new long[days.length];
+        final int[] lastDayOfEvent = new int[days.length];
+        int size = 0;
+        int maxSpan = 0;
+
+        for (int e = 0; e < days.length; e++) {
+            final int firstDay = parseEpochDay(days[e], monthNames[e], true);
+            if (firstDay != UNKNOWN) {
+                lastDayOfEvent[e] = Math.max(firstDay, parseEpochDay(days[e], monthNames[e], false));
+                maxSpan = Math.max(maxSpan, lastDayOfEvent[e] - firstDay);
+
+                // Sort by first day, events of same day keep calendar order.
+                keys[size++] = ((long)firstDay << 32) | e;
+            }
+        }
+
+        Arrays.sort(keys, 0, size);
+        firstDays = new int[size];
+        lastDays = new int[size];
+        events = new int[size];
+        for (int i = 0; i < size; i++) {
+            firstDays[i] = (int)(keys[i] >> 32);
+            events[i] = (int)keys[i];
+            lastDays[i] = lastDayOfEvent[events[i]];
+        }
+        this.maxSpan = maxSpan;
+    }
+
+    /**
+     * @param year - Year.
+     * @param month - Month, 1 to 12.
+     * @param day - Day of month.
+     * @return Days since 1970-01-01.
+     */
+    static int epochDay(int year, int month, int day) {
+        // Days from civil, years start in March thus leap day is last day of year.
+        final int y = (month <= 2) ? year - 1 : year;
+        final int era = ((y >= 0) ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * @param calendar - Date in local time.
+     * @return Days since 1970-01-01 of local date.
+     */
+    static int epochDay(GregorianCalendar calendar) {
+        return epochDay(calendar.get(GregorianCalendar.YEAR), calendar.get(GregorianCalendar.MONTH) + 1, calendar.get(GregorianCalendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * @param day - Day text of event.
+     * @param monthName - Name of month event is listed in.
+     * @return Last day of event as days since 1970-01-01 or UNKNOWN if day cannot be parsed.
+     */
+    static int parseEpochDay(String day, String monthName) {
+        return parseEpochDay(day, monthName, false);
+    }
+
+    /**
+     * @param day - Day text of event.
+     * @param monthName - Name of month event is listed in.
+     * @param first - true for first date in day text, false for last one.
+     * @return Days since 1970-01-01 or UNKNOWN if day cannot be parsed.
+     */
+    static int parseEpochDay(String day, String monthName, boolean first) {
+        if (day == null || monthName == null || monthName.length() < 2) {
+            return UNKNOWN;
+        }
+
+        final Matcher matcher = datePattern.matcher(day);
+        int dayOfMonth = 0;
+        int month = 0;
+        while (matcher.find()) {
+            dayOfMonth = Integer.parseInt(matcher.group(1));
+            month = Integer.parseInt(matcher.group(2));
+            if (first) {
+                break;
+            }
+        }
+
+        if (dayOfMonth < 1 || dayOfMonth > 31 || month < 1 || month > 12) {
+            return UNKNOWN;
+        }
+
+        int year;
+        try {
+            year = 2000 + Integer.parseInt(monthName.substring(monthName.length() - 2));
+        }
+        catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+
+        // An event listed in December may end in January of next year and vice versa.
+        for (int m = 0; m < MONTH_NAMES.length; m++) {
+            if (monthName.startsWith(MONTH_NAMES[m])) {
+                if (month - (m + 1) < -6) {
+                    year++;
+                } else if (month - (m + 1) > 6) {
+                    year--;
+                }
+                break;
+            }
+        }
+
+        return epochDay(year, month, dayOfMonth);
+    }
+
+    /**
+     * @param epochDay - Day to search for.
+     * @return Position of first event that starts on or after given day.
+     */
+    private int lowerBound(long epochDay) {
+        int low = 0;
+        int high = firstDays.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (firstDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @param from - First day, inclusive.
+     * @param to - Last day, inclusive.
+     * @return Events that take place on any day of given range, ordered by first day.
+     */
+    int[] range(int from, int to) {
+        if (to < from) {
+            return new int[0];
+        }
+
+        return collect(from, lowerBound((long)to + 1), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param from - First day, inclusive.
+     * @param count - Maximum number of events.
+     * @return Up to count events that take place on or after given day, ordered by first day.
+     */
+    int[] next(int from, int count) {
+        return collect(from, firstDays.length, count);
+    }
+
+    /**
+     * @param from - First day events must last until at least.
+     * @param end - Position after last event to consider.
+     * @param count - Maximum number of events.
+     * @return Events that have not ended before given day.
+     */
+    private int[] collect(int from, int end, int count) {
+        final int[] result = new int[Math.max(0, Math.min(count, end))];
+        int size = 0;
+
+        // Events that start earlier than this have ended before from.
+        for (int i = lowerBound((long)from - maxSpan); i < end && size < result.length; i++) {
+            if (lastDays[i] >= from) {
+                result[size++] = events[i];
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return Number of events with a known date.
+     */
+    int size() {
+        return firstDays.length;
+    }
+}
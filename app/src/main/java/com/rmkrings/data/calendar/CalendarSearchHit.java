@@ -0,0 +1,70 @@
+package com.rmkrings.data.calendar;
+
+import java.util.Arrays;
+
+/**
+ * A day item that matches a search, together with the ranges of event text that match.
+ * Hits are immutable and do not change the day item, thus searches may run concurrently
+ * and results may be kept.
+ */
+public final class CalendarSearchHit extends CalendarListItem {
+    private final String monthName;
+    private final DayItem dayItem;
+    private final int[] ranges;
+
+    /**
+     * @param monthName - Name of month day item belongs to.
+     * @param dayItem - Matching day item.
+     * @param ranges - Start and end of each match in event text as consecutive values, not
+     * modified afterwards.
+     */
+    CalendarSearchHit(String monthName, DayItem dayItem, int[] ranges) {
+        this.monthName = monthName;
+        this.dayItem = dayItem;
+        this.ranges = ranges;
+    }
+
+    public String getMonthName() {
+        return monthName;
+    }
+
+    public DayItem getDayItem() {
+        return dayItem;
+    }
+
+    /**
+     * @return Number of matches in event text.
+     */
+    public int getRangeCount() {
+        return ranges.length / 2;
+    }
+
+    /**
+     * @param range - Index of match.
+     * @return Position of first character of match in event text.
+     */
+    public int getRangeStart(int range) {
+        return ranges[2 * range];
+    }
+
+    /**
+     * @param range - Index of match.
+     * @return Position after last character of match in event text.
+     */
+    public int getRangeEnd(int range) {
+        return ranges[2 * range + 1];
+    }
+
+    /**
+     * @param other - Hit to compare with.
+     * @return true if both hits highlight the same ranges of the same day item.
+     */
+    public boolean hasSameRanges(CalendarSearchHit other) {
+        return dayItem == other.dayItem && Arrays.equals(ranges, other.ranges);
+    }
+
+    @Override
+    public int getType() {
+        return CalendarListItem.dayItem;
+    }
+}
@@ -0,0 +1,274 @@
+package com.rmkrings.data.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Full text index over calendar events. Event texts are folded once when index is built:
+ * lower case with umlauts replaced by their base letter, one character per character, thus
+ * match positions in folded text are positions in event text. For each trigram of folded
+ * texts a sorted posting list of events containing it is kept.
+ *
+ * A search intersects the postings of all trigrams of the query and then verifies the
+ * remaining candidates. When a query contains the previous one, e.g. while user is typing,
+ * only the previous hits are verified.
+ */
+final class CalendarSearchIndex {
+
+    /**
+     * Search result.
+     */
+    static final class Result {
+        private final String query;
+        private final int[] events;
+        private final int[][] matches;
+
+        Result(String query, int[] events, int[][] matches) {
+            this.query = query;
+            this.events = events;
+            this.matches = matches;
+        }
+
+        /**
+         * @return Indices of matching events in ascending order.
+         */
+        int[] getEvents() {
+            return events;
+        }
+
+        /**
+         * @param hit - Index into getEvents().
+         * @return Start and end of each match in event text as consecutive values.
+         */
+        int[] getMatches(int hit) {
+            return matches[hit];
+        }
+    }
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] folded;
+    private final HashMap<Long, int[]> postings;
+    private final int[] allEvents;
+
+    // Last search, a query that contains it only needs to check its hits. Results are
+    // immutable, concurrent searches just may start from an older one.
+    private volatile Result lastResult = null;
+
+    /**
+     * Build index.
+     * @param events - Event texts, search results refer to events by index into this array.
+     */
+    CalendarSearchIndex(String[] events) {
+        final HashMap<Long, PostingList> postingLists = new HashMap<>();
+
+        folded = new String[events.length];
+        allEvents = new int[events.length];
+        for (int e = 0; e < events.length; e++) {
+            final String text = fold(events[e]);
+            folded[e] = text;
+            allEvents[e] = e;
+
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                final Long trigram = trigram(text, i);
+                PostingList postingList = postingLists.get(trigram);
+                if (postingList == null) {
+                    postingList = new PostingList();
+                    postingLists.put(trigram, postingList);
+                }
+                postingList.add(e);
+            }
+        }
+
+        postings = new HashMap<>(postingLists.size() * 4 / 3 + 1);
+        for (Map.Entry<Long, PostingList> entry : postingLists.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * Growable list of event indices. Events are added in ascending order, an event that
+     * contains a trigram more than once is added once.
+     */
+    private static final class PostingList {
+        private int[] events = new int[4];
+        private int size = 0;
+
+        void add(int event) {
+            if (size > 0 && events[size - 1] == event) {
+                return;
+            }
+
+            if (size == events.length) {
+                events = Arrays.copyOf(events, 2 * size);
+            }
+            events[size++] = event;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(events, size);
+        }
+    }
+
+    /**
+     * Fold text for searching: Lower case, umlauts and accented vowels replaced by base
+     * letter. Length of result is length of text.
+     * @param s - Text to fold.
+     * @return Folded text.
+     */
+    static String fold(String s) {
+        final char[] chars = new char[s.length()];
+
+        for (int i = 0; i < chars.length; i++) {
+            final char c = Character.toLowerCase(s.charAt(i));
+            switch (c) {
+                case 'ä': case 'à': case 'á': case 'â':
+                    chars[i] = 'a';
+                    break;
+                case 'ö': case 'ò': case 'ó': case 'ô':
+                    chars[i] = 'o';
+                    break;
+                case 'ü': case 'ù': case 'ú': case 'û':
+                    chars[i] = 'u';
+                    break;
+                case 'é': case 'è': case 'ê':
+                    chars[i] = 'e';
+                    break;
+                default:
+                    chars[i] = c;
+            }
+        }
+
+        return new String(chars);
+    }
+
+    private static Long trigram(String s, int i) {
+        return ((long)s.charAt(i) << 32) | ((long)s.charAt(i + 1) << 16) | (long)s.charAt(i + 2);
+    }
+
+    /**
+     * Events that may contain query, i.e. that contain every trigram of it.
+     * @param query - Folded query of at least three characters.
+     * @return Candidate events in ascending order.
+     */
+    private int[] candidates(String query) {
+        final ArrayList<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            final int[] postingList = postings.get(trigram(query, i));
+            if (postingList == null) {
+                return NONE;
+            }
+            lists.add(postingList);
+        }
+
+        // Start with shortest list, result never gets longer than that.
+        Collections.sort(lists, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Integer.compare(a.length, b.length);
+            }
+        });
+
+        int[] result = lists.get(0);
+        for (int k = 1; k < lists.size() && result.length > 0; k++) {
+            result = intersect(result, lists.get(k));
+        }
+
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        if (a == b) {
+            return a;
+        }
+
+        final int[] result = new int[a.length];
+        int size = 0;
+        int j = 0;
+        for (int event : a) {
+            while (j < b.length && b[j] < event) {
+                j++;
+            }
+            if (j == b.length) {
+                break;
+            }
+            if (b[j] == event) {
+                result[size++] = event;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Search events for text.
+     * @param s - Query, case and umlauts are ignored.
+     * @return Matching events with match positions.
+     */
+    Result search(String s) {
+        final String query = fold(s);
+
+        final Result previous = lastResult;
+        final int[] candidates;
+        if (previous != null && !previous.query.isEmpty() && query.contains(previous.query)) {
+            candidates = previous.events;
+        } else if (query.length() >= 3) {
+            candidates = candidates(query);
+        } else {
+            candidates = allEvents;
+        }
+
+        final int[] events = new int[candidates.length];
+        final int[][] matches = new int[candidates.length][];
+        int size = 0;
+
+        for (int event : candidates) {
+            final int[] positions = positions(folded[event], query);
+            if (positions.length > 0) {
+                events[size] = event;
+                matches[size] = positions;
+                size++;
+            }
+        }
+
+        final Result result = new Result(query, Arrays.copyOf(events, size), Arrays.copyOf(matches, size));
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * @param text - Folded event text.
+     * @param query - Folded query.
+     * @return Start and end of each non-overlapping occurrence of query in text.
+     */
+    private static int[] positions(String text, String query) {
+        if (query.isEmpty()) {
+            return NONE;
+        }
+
+        int[] positions = NONE;
+        int size = 0;
+        int i = text.indexOf(query);
+        while (i != -1) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(4, 2 * size));
+            }
+            positions[size++] = i;
+            positions[size++] = i + query.length();
+            i = text.indexOf(query, i + query.length());
+        }
+
+        return (size == positions.length) ? positions : Arrays.copyOf(positions, size);
+    }
+
+    /**
+     * @return Number of events in index.
+     */
+    int size() {
+        return folded.length;
+    }
+}
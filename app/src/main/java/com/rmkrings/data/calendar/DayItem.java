@@ -1,10 +1,11 @@
 package com.rmkrings.data.calendar;
 
-import android.graphics.Point;
+import android.util.JsonReader;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class DayItem extends CalendarListItem {
@@ -14,13 +15,30 @@ public class DayItem extends CalendarListItem {
     // @serial
     private final String event;
 
-    private final ArrayList<Point> searchMatches;
+    DayItem(JsonReader reader, StringDictionary dictionary) throws IOException, RuntimeException {
+        ArrayList<String> detailItems = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("detailItems")) {
+                detailItems = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    detailItems.add(dictionary.intern(JsonDecoder.optString(reader)));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (detailItems == null || detailItems.size() < 2) {
+            throw(new RuntimeException("Expected property detailItems not found in day item"));
+        }
 
-    DayItem(JSONObject data) throws Exception {
-        JSONArray jsonDetailItems = data.getJSONArray("detailItems");
-        this.day = jsonDetailItems.getString(0);
-        this.event = jsonDetailItems.getString(1);
-        this.searchMatches = new ArrayList<>();
+        this.day = detailItems.get(0);
+        this.event = detailItems.get(1);
     }
 
     public String getDay() {
@@ -31,28 +49,8 @@ public class DayItem extends CalendarListItem {
         return event;
     }
 
-    public ArrayList<Point> getSearchMatches() {
-        return searchMatches;
-    }
-
     @Override
     public int getType() {
         return dayItem;
     }
-
-    boolean matches(String s) {
-        if (s.length() == 0) {
-            return true;
-        }
-
-        searchMatches.clear();
-        String sLc = s.toLowerCase();
-        int i = event.toLowerCase().indexOf(sLc);
-        while (i != -1) {
-            searchMatches.add(new Point(i, i + s.length()));
-            i = event.toLowerCase().indexOf(sLc, i + s.length());
-        }
-
-        return (searchMatches.size() != 0);
-    }
 }
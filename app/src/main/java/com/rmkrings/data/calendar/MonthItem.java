@@ -1,17 +1,14 @@
 package com.rmkrings.data.calendar;
 
-import com.rmkrings.helper.StringHelper;
+import android.util.JsonReader;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+import com.rmkrings.helper.StringHelper;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.Locale;
-import java.util.Objects;
 
 public class MonthItem implements Serializable {
 
@@ -21,34 +18,44 @@ public class MonthItem implements Serializable {
     // @serial
     private final ArrayList<DayItem> dayItems;
 
-    private  MonthItem(MonthItem monthItem) {
-        name = monthItem.getName();
-        dayItems = new ArrayList<>();
-    }
-
-    MonthItem(JSONObject data) throws RuntimeException {
-        try {
-            String fullName = StringHelper.replaceHtmlEntities(data.getString("name"));
-            name = fullName.substring(0, 3) + " " + fullName.substring(fullName.length() - 2);
+    MonthItem(JsonReader reader, StringDictionary dictionary) throws IOException, RuntimeException {
+        String name = null;
+        ArrayList<DayItem> dayItems = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name":
+                    String fullName = JsonDecoder.nextString(reader);
+                    if (fullName != null) {
+                        fullName = StringHelper.replaceHtmlEntities(fullName);
+                        name = dictionary.intern(fullName.substring(0, 3) + " " + fullName.substring(fullName.length() - 2));
+                    }
+                    break;
+                case "dayItems":
+                    dayItems = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        dayItems.add(new DayItem(reader, dictionary));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (name == null) {
             throw(new RuntimeException("Expected property name not found in month item"));
         }
 
-        try {
-            dayItems = new ArrayList<>();
-            JSONArray jsonDayItems = data.optJSONArray("dayItems");
-            for (int i = 0; i < Objects.requireNonNull(jsonDayItems).length(); i++) {
-                JSONObject jsonDayItem = jsonDayItems.getJSONObject(i);
-                DayItem dayItem = new DayItem(jsonDayItem);
-                dayItems.add(dayItem);
-            }
-        }
-        catch (Exception e) {
-            e.printStackTrace();
+        if (dayItems == null) {
             throw(new RuntimeException("Failed to process day items for calendar month " + name));
         }
+
+        this.name = name;
+        this.dayItems = dayItems;
     }
 
     public String getName() {
@@ -58,37 +65,4 @@ public class MonthItem implements Serializable {
     public ArrayList<DayItem> getDayItems() {
         return dayItems;
     }
-
-    ArrayList<DayItem> getTodayEvents() {
-        ArrayList<DayItem> l = new ArrayList<>();
-        DateFormat dateFormat = new SimpleDateFormat("dd.MM.yy", Locale.GERMANY);
-        String today = dateFormat.format(new Date());
-        String year = getName().substring(getName().length() - 2);
-
-        for (DayItem dayItem: getDayItems()) {
-            String dateString = dayItem.getDay().substring(dayItem.getDay().length() - 6) + year;
-
-            if (dateString.equals(today)) {
-                l.add(dayItem);
-            }
-        }
-
-        return l;
-    }
-
-    // @nullable
-    MonthItem filter(String s) {
-        if (s.length() == 0) {
-            return this;
-        }
-
-        MonthItem m = new MonthItem(this);
-        for (DayItem dayItem: getDayItems()) {
-            if (dayItem.matches(s)) {
-                m.dayItems.add(dayItem);
-            }
-        }
-
-        return (m.dayItems.size() > 0) ? m : null;
-    }
 }
@@ -1,13 +1,14 @@
 package com.rmkrings.data.eva;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import android.util.JsonReader;
 
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Objects;
 
 public class Eva implements Serializable {
 
@@ -19,37 +20,74 @@ public class Eva implements Serializable {
     // @serial
     private String digest;
 
-    public Eva(JSONObject data) throws RuntimeException {
-        try {
-            dates = new ArrayList<>();
-            evaData = new HashMap<>();
-            JSONArray jsonEvaDataItems = data.optJSONArray("evaData");
-            for (int i = 0; i < Objects.requireNonNull(jsonEvaDataItems).length(); i++) {
-                JSONObject jsonEvaDataItem = jsonEvaDataItems.getJSONObject(i);
-                String date = jsonEvaDataItem.getString("date");
-                dates.add(date);
-
-                JSONArray jsonEvaItems = jsonEvaDataItem.optJSONArray("evaItems");
-                ArrayList<EvaItem> evaItems = new ArrayList<>();
-                for (int j = 0; j < Objects.requireNonNull(jsonEvaItems).length(); j++) {
-                    EvaItem evaItem = new EvaItem(jsonEvaItems.getJSONObject(j));
-                    evaItems.add(evaItem);
-                }
-
-                evaData.put(date, evaItems);
+    public static final JsonDecoder<Eva> decoder = new JsonDecoder<Eva>() {
+        @Override
+        public Eva decode(JsonReader reader) throws IOException {
+            return new Eva(reader);
+        }
+    };
+
+    private Eva(JsonReader reader) throws IOException, RuntimeException {
+        final StringDictionary dictionary = new StringDictionary();
+        boolean hasEvaData = false;
+        dates = new ArrayList<>();
+        evaData = new HashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "evaData":
+                    hasEvaData = true;
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readEvaDataItem(reader, dictionary);
+                    }
+                    reader.endArray();
+                    break;
+                case "_digest":
+                    digest = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
             }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (!hasEvaData) {
             throw new RuntimeException("Failed to process EVA items");
         }
+    }
+
+    private void readEvaDataItem(JsonReader reader, StringDictionary dictionary) throws IOException {
+        String date = null;
+        ArrayList<EvaItem> evaItems = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "date":
+                    date = dictionary.intern(JsonDecoder.nextString(reader));
+                    break;
+                case "evaItems":
+                    evaItems = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        evaItems.add(new EvaItem(reader, dictionary));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-        try {
-            digest = data.getString("_digest");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            digest = null;
+        if (date == null || evaItems == null) {
+            throw new RuntimeException("Failed to process EVA items");
         }
+
+        dates.add(date);
+        evaData.put(date, evaItems);
     }
 
     public ArrayList<String> getDates() {
@@ -1,7 +1,11 @@
 package com.rmkrings.data.eva;
 
-import org.json.JSONObject;
+import android.util.JsonReader;
 
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+
+import java.io.IOException;
 import java.io.Serializable;
 
 public class EvaItem implements Serializable {
@@ -9,16 +13,36 @@ public class EvaItem implements Serializable {
     private final String course;
     private final String evaText;
 
-    EvaItem(JSONObject data) throws RuntimeException {
-        try {
-            uuid = data.getString("uuid");
-            course = data.getString("course");
-            evaText = data.getString("evaText");
+    EvaItem(JsonReader reader, StringDictionary dictionary) throws IOException, RuntimeException {
+        String uuid = null;
+        String course = null;
+        String evaText = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "uuid":
+                    uuid = JsonDecoder.nextString(reader);
+                    break;
+                case "course":
+                    course = dictionary.intern(JsonDecoder.nextString(reader));
+                    break;
+                case "evaText":
+                    evaText = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (uuid == null || course == null || evaText == null) {
             throw new RuntimeException("Failed to process EvaItem");
         }
+
+        this.uuid = uuid;
+        this.course = course;
+        this.evaText = evaText;
     }
 
     public String getUuid() {
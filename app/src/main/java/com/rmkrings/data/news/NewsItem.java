@@ -1,6 +1,10 @@
 package com.rmkrings.data.news;
 
-import org.json.JSONObject;
+import android.util.JsonReader;
+
+import com.rmkrings.helper.JsonDecoder;
+
+import java.io.IOException;
 
 public class NewsItem {
     private final String img;
@@ -8,17 +12,41 @@ public class NewsItem {
     private final String heading;
     private final String text;
 
-    NewsItem(JSONObject data) throws RuntimeException {
-        try {
-            img = data.optString("img");
-            href = data.optString("href");
-            heading = data.optString("heading");
-            text = data.getString("text");
+    NewsItem(JsonReader reader) throws IOException, RuntimeException {
+        String img = "";
+        String href = "";
+        String heading = "";
+        String text = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "img":
+                    img = JsonDecoder.optString(reader);
+                    break;
+                case "href":
+                    href = JsonDecoder.optString(reader);
+                    break;
+                case "heading":
+                    heading = JsonDecoder.optString(reader);
+                    break;
+                case "text":
+                    text = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
-        catch(Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (text == null) {
             throw(new RuntimeException(("Failed to process news item")));
         }
+
+        this.img = img;
+        this.href = href;
+        this.heading = heading;
+        this.text = text;
     }
 
     public String getImg() {
@@ -2,37 +2,52 @@ package com.rmkrings.data.news;
 
 import androidx.annotation.Nullable;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import android.util.JsonReader;
 
+import com.rmkrings.helper.JsonDecoder;
+
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class NewsItems {
     private final ArrayList<NewsItem> newsItems;
     private String digest;
 
-    public NewsItems(JSONObject data) throws RuntimeException{
-        try {
-            newsItems = new ArrayList<>();
-            JSONArray jsonNewsItems = data.getJSONArray("newsItems");
-            for (int i = 0; i < jsonNewsItems.length(); i++) {
-                JSONObject jsonNewsItem = jsonNewsItems.getJSONObject(i);
-                NewsItem newsItem = new NewsItem(jsonNewsItem);
-                newsItems.add(newsItem);
+    public static final JsonDecoder<NewsItems> decoder = new JsonDecoder<NewsItems>() {
+        @Override
+        public NewsItems decode(JsonReader reader) throws IOException {
+            return new NewsItems(reader);
+        }
+    };
+
+    private NewsItems(JsonReader reader) throws IOException, RuntimeException {
+        ArrayList<NewsItem> newsItems = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "newsItems":
+                    newsItems = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        newsItems.add(new NewsItem(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case "_digest":
+                    digest = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
             }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (newsItems == null) {
             throw(new RuntimeException("Failed to process news items"));
         }
 
-        try {
-            digest = data.getString("_digest");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            digest = null;
-        }
+        this.newsItems = newsItems;
     }
 
     public ArrayList<NewsItem> getNewsItems() {
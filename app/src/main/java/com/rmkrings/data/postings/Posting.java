@@ -2,9 +2,11 @@ package com.rmkrings.data.postings;
 
 import com.rmkrings.data.MessageItem;
 import com.rmkrings.helper.DateHelper;
+import com.rmkrings.helper.JsonDecoder;
 
-import org.json.JSONObject;
+import android.util.JsonReader;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 public class Posting extends MessageItem implements Serializable {
@@ -14,10 +16,32 @@ public class Posting extends MessageItem implements Serializable {
     private final String postingMessage;
     private final String timestamp;
 
-    Posting(JSONObject data) throws Exception {
-        postingMessage = data.getString("message");
-        timestamp = DateHelper.convert(
-                data.getString("timestamp").replace("Z", "+00:00"), "yyyy-MM-dd'T'HH:mm:ssz", "EEEE, d. MMMM yyyy, HH:mm 'Uhr'");
+    Posting(JsonReader reader) throws IOException, RuntimeException {
+        String postingMessage = null;
+        String timestamp = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "message":
+                    postingMessage = JsonDecoder.nextString(reader);
+                    break;
+                case "timestamp":
+                    timestamp = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (postingMessage == null || timestamp == null) {
+            throw(new RuntimeException("Failed to process posting message"));
+        }
+
+        this.postingMessage = postingMessage;
+        this.timestamp = DateHelper.convert(
+                timestamp.replace("Z", "+00:00"), "yyyy-MM-dd'T'HH:mm:ssz", "EEEE, d. MMMM yyyy, HH:mm 'Uhr'");
     }
 
     public String getPostingMessage() {
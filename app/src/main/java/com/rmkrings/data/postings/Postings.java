@@ -2,13 +2,13 @@ package com.rmkrings.data.postings;
 
 import androidx.annotation.Nullable;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import android.util.JsonReader;
 
+import com.rmkrings.helper.JsonDecoder;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Objects;
 
 public class Postings implements Serializable {
 
@@ -18,27 +18,41 @@ public class Postings implements Serializable {
     // @serial
     private String digest;
 
-    public Postings(JSONObject data) throws RuntimeException {
-        try {
-            postings = new ArrayList<>();
-            JSONArray jsonPostings = data.optJSONArray("messages");
-            for (int i = 0; i < Objects.requireNonNull(jsonPostings).length(); i++) {
-                JSONObject jsonPosting = jsonPostings.getJSONObject(i);
-                Posting posting = new Posting(jsonPosting);
-                postings.add(posting);
+    public static final JsonDecoder<Postings> decoder = new JsonDecoder<Postings>() {
+        @Override
+        public Postings decode(JsonReader reader) throws IOException {
+            return new Postings(reader);
+        }
+    };
+
+    private Postings(JsonReader reader) throws IOException, RuntimeException {
+        ArrayList<Posting> postings = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "messages":
+                    postings = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        postings.add(new Posting(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case "_digest":
+                    digest = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
             }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (postings == null) {
             throw(new RuntimeException("Failed to process posting messages"));
         }
 
-        try {
-            digest = data.getString("_digest");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            digest = null;
-        }
+        this.postings = postings;
     }
 
     @Nullable
@@ -1,34 +1,66 @@
 package com.rmkrings.data.staff;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import android.util.JsonReader;
+import android.util.JsonToken;
 
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
 
 /**
  * A staff dictionary is a typed hash map with a string key and a StaffMember value.
  * The key in fact is a staff member's shortcut name.
  */
 public class StaffDictionary extends HashMap<String, StaffMember> {
+    public static final JsonDecoder<StaffDictionary> decoder = new JsonDecoder<StaffDictionary>() {
+        @Override
+        public StaffDictionary decode(JsonReader reader) throws IOException {
+            return new StaffDictionary(reader);
+        }
+    };
+
+    private String digest;
+
     public StaffDictionary() {
         super();
     }
 
-    public StaffDictionary(String data) throws JSONException {
+    private StaffDictionary(JsonReader reader) throws IOException {
         super();
 
-        JSONObject jsonObject = new JSONObject(data);
-        JSONObject jsonStaffDictionary = jsonObject.getJSONObject("staffDictionary");
+        final StringDictionary dictionary = new StringDictionary();
 
-        Iterator<String> shortcutNamesIterator = jsonStaffDictionary.keys();
-        while (shortcutNamesIterator.hasNext()) {
-            String shortcutName = shortcutNamesIterator.next();
-            if (jsonStaffDictionary.get(shortcutName) instanceof JSONObject) {
-                JSONObject jsonStaffMember = jsonStaffDictionary.getJSONObject(shortcutName);
-                StaffMember staffMember = new StaffMember(jsonStaffMember);
-                this.put(shortcutName, staffMember);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "staffDictionary":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String shortcutName = reader.nextName();
+                        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                            this.put(shortcutName, new StaffMember(reader, dictionary));
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "_digest":
+                    digest = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
             }
         }
+        reader.endObject();
+    }
+
+    /**
+     * @return Digest of staff dictionary as delivered by backend or null if unknown.
+     */
+    public String getDigest() {
+        return digest;
     }
 }
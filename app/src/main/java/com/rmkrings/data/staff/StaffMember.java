@@ -1,9 +1,12 @@
 package com.rmkrings.data.staff;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import android.util.JsonReader;
+import android.util.MalformedJsonException;
 
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -16,14 +19,34 @@ public class StaffMember {
     private final String name;
     private final ArrayList<String> subjects;
 
-    StaffMember(JSONObject fromJSON) throws JSONException {
-        name = fromJSON.getString("name");
+    StaffMember(JsonReader reader, StringDictionary dictionary) throws IOException {
+        String name = null;
         subjects = new ArrayList<>();
-        JSONArray jsonSubjects = fromJSON.getJSONArray("subjects");
-        for (int i = 0; i < jsonSubjects.length(); i++) {
-            String subject = jsonSubjects.getString(i);
-            subjects.add(subject);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name":
+                    name = JsonDecoder.nextString(reader);
+                    break;
+                case "subjects":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        subjects.add(dictionary.intern(JsonDecoder.optString(reader)));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
+        reader.endObject();
+
+        if (name == null) {
+            throw new MalformedJsonException("Expected property name not found in staff member");
+        }
+
+        this.name = name;
     }
 
     public String getName() {
@@ -0,0 +1,162 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.CourseFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable content of dashboard: Meta data and list items of all dates filtered by
+ * user's course list. Built on a worker thread, dashboard only needs to hand over
+ * lists to its adapter.
+ */
+public final class DashboardViewModel {
+    private final Vertretungsplan vertretungsplan;
+    private final List<String> listDataHeader;
+    private final Map<String, List<VertretungsplanListItem>> listDataChild;
+    private final boolean[] expanded;
+    private final CourseFilter courseFilter;
+    private final VertretungsplanDiff diff;
+    private final VertretungsplanChangeList changeList;
+
+    /**
+     * Build list items from substitution schedule.
+     * @param vertretungsplan - Substitution schedule filtered by grade.
+     * @param diff - Changes since schedule that has been shown before, null if unknown.
+     * @param currentDate - Date and time to decide which date gets expanded.
+     */
+    public DashboardViewModel(Vertretungsplan vertretungsplan, VertretungsplanDiff diff, Date currentDate) {
+        ArrayList<String> listDataHeader = new ArrayList<>();
+        HashMap<String, List<VertretungsplanListItem>> listDataChild = new HashMap<>();
+        final CourseFilter courseFilter = AppDefaults.getCourseFilter();
+        int i = 0;
+
+        this.vertretungsplan = vertretungsplan;
+        this.diff = diff;
+        this.courseFilter = courseFilter;
+        this.expanded = new boolean[vertretungsplan.getVertretungsplaene().size()];
+
+        for (VertretungsplanForDate vertretungsplanForDate : vertretungsplan.getVertretungsplaene()) {
+            listDataHeader.add(vertretungsplanForDate.getDate());
+            expanded[i] = false;
+
+            ArrayList<VertretungsplanListItem> vertretungsplanListItems = new ArrayList<>(0);
+
+            // There is only one grade item when in dashboard mode.
+            for (GradeItem g : vertretungsplanForDate.getGradeItems()) {
+                for (int row = 0; row < g.size(); row++) {
+                    // Check if the current item can be accepted, i.e. must be displayed.
+                    if (courseFilter.accept(g.getCourse(row))) {
+                        VertretungsplanHeaderItem headerItem = new VertretungsplanHeaderItem(g.getCourse(row), g.getLesson(row));
+                        VertretungsplanDetailItem detailItem = new VertretungsplanDetailItem(g.getSubstitutionTypeText(row), g.getRoom(row), g.getTeacher(row));
+                        VertretungsplanRemarkItem remarkItem = new VertretungsplanRemarkItem(g.getRemark(row));
+
+                        vertretungsplanListItems.add(headerItem);
+                        vertretungsplanListItems.add(detailItem);
+
+                        if (remarkItem.getRemarkText().length() > 0) {
+                            vertretungsplanListItems.add(remarkItem);
+                        }
+
+                        if (g.getEva(row) != null) {
+                            VertretungsplanEvaItem evaItem = new VertretungsplanEvaItem(g.getEva(row));
+                            vertretungsplanListItems.add(evaItem);
+                        }
+                    }
+                }
+            }
+
+            listDataChild.put(vertretungsplanForDate.getDate(), Collections.unmodifiableList(vertretungsplanListItems));
+            i += 1;
+        }
+
+        // We will expand the next date with a substitution, thus that date that has a
+        // displayed lesson which starts at or after current date and time.
+        final LessonTimeline timeline = vertretungsplan.getTimeline();
+        for (int entry = timeline.ceiling(currentDate.getTime()); entry < timeline.size(); entry++) {
+            final VertretungsplanForDate vertretungsplanForDate = vertretungsplan.getVertretungsplaene().get(timeline.getDateIndex(entry));
+            final GradeItem gradeItem = vertretungsplanForDate.getGradeItems().get(timeline.getGradeIndex(entry));
+            if (courseFilter.accept(gradeItem.getCourse(timeline.getItemIndex(entry)))) {
+                expanded[timeline.getDateIndex(entry)] = true;
+                break;
+            }
+        }
+
+        // Changes of rows that are filtered out do not change list items.
+        this.changeList = (diff != null) ? diff.toChangeList(courseFilter) : null;
+        this.listDataHeader = Collections.unmodifiableList(listDataHeader);
+        this.listDataChild = Collections.unmodifiableMap(listDataChild);
+    }
+
+    public Vertretungsplan getVertretungsplan() {
+        return vertretungsplan;
+    }
+
+    /**
+     * @return Changes since schedule that has been shown before, null if there is no
+     * previous schedule to compare with.
+     */
+    public VertretungsplanDiff getDiff() {
+        return diff;
+    }
+
+    /**
+     * @return Titles of dates whose list items differ from those of schedule that has been
+     * shown before, provided that one has been filtered by the same course filter. Empty if
+     * there is no diff.
+     */
+    public Set<String> getChangedDates() {
+        return (changeList != null)
+                ? Collections.unmodifiableSet(changeList.getChanges().keySet())
+                : Collections.<String>emptySet();
+    }
+
+    /**
+     * @return Changes of rows shown in dashboard since schedule that has been shown before,
+     * null if there is no diff.
+     */
+    public VertretungsplanChangeList getChangeList() {
+        return changeList;
+    }
+
+    /**
+     * @return Course filter list items have been built with.
+     */
+    public CourseFilter getCourseFilter() {
+        return courseFilter;
+    }
+
+    public String getTickerText() {
+        return vertretungsplan.getTickerText();
+    }
+
+    public String getAdditionalText() {
+        return vertretungsplan.getAdditionalText();
+    }
+
+    public String getLastUpdate() {
+        return vertretungsplan.getLastUpdate();
+    }
+
+    public List<String> getListDataHeader() {
+        return listDataHeader;
+    }
+
+    public Map<String, List<VertretungsplanListItem>> getListDataChild() {
+        return listDataChild;
+    }
+
+    /**
+     * @param group - Index of date in list header.
+     * @return true if date must be shown expanded.
+     */
+    public boolean isExpanded(int group) {
+        return expanded[group];
+    }
+}
@@ -1,59 +1,277 @@
 package com.rmkrings.data.vertretungsplan;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import android.util.JsonReader;
+import android.util.JsonToken;
 
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Objects;
+import java.util.List;
 
+/**
+ * Substitutions of one grade on one date. Rows are stored column by column: lesson range
+ * as ints, substitution type as enum ordinal and all texts as ids into a string dictionary
+ * that is shared by the whole schedule. Everything is built once when parsing.
+ */
 public final class GradeItem implements Serializable {
+    // Positions in detail items as delivered by backend.
+    private static final int LESSON = 0;
+    private static final int TYPE = 1;
+    private static final int COURSE = 2;
+    private static final int ROOM = 3;
+    private static final int TEACHER = 4;
+    private static final int REMARK = 6;
+    private static final int EVA = 7;
+    private static final int COLUMNS = 8;
+
     // @serial
     private final String grade;
 
     // @serial
-    private final ArrayList<String[]> vertretungsplanItems;
+    private final StringDictionary dictionary;
+
+    // @serial
+    private final int size;
+
+    // @serial
+    private final int[] lessonFrom;
+
+    // @serial
+    private final int[] lessonTo;
 
-    GradeItem(JSONObject data) throws RuntimeException {
-        try {
-            grade = data.getString("grade");
+    // @serial
+    private final byte[] types;
+
+    // @serial Dictionary ids by column and row, -1 if row does not have column.
+    private final int[][] columns;
+
+    GradeItem(JsonReader reader, StringDictionary dictionary) throws IOException, RuntimeException {
+        String grade = null;
+        ArrayList<String[]> vertretungsplanItems = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "grade":
+                    grade = dictionary.intern(JsonDecoder.nextString(reader));
+                    break;
+                case "vertretungsplanItems":
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                        break;
+                    }
+
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        vertretungsplanItems.add(readDetailItems(reader));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (grade == null) {
             throw(new RuntimeException("Expected property grade not found in grade item"));
         }
 
-        try {
-            vertretungsplanItems = new ArrayList<>();
-            JSONArray jsonVertretungsplanItems = data.optJSONArray("vertretungsplanItems");
-            for (int i = 0; i < Objects.requireNonNull(jsonVertretungsplanItems).length(); i++) {
-                JSONObject jsonVertretungsplanItem = jsonVertretungsplanItems.getJSONObject(i);
-                JSONArray jsonDetailItems = jsonVertretungsplanItem.getJSONArray("detailItems");
+        this.grade = grade;
+        this.dictionary = dictionary;
+        this.size = vertretungsplanItems.size();
+        this.lessonFrom = new int[size];
+        this.lessonTo = new int[size];
+        this.types = new byte[size];
+        this.columns = new int[COLUMNS][size];
 
-                String[] detailItems = new String[jsonDetailItems.length()];
-                for (int j = 0; j < jsonDetailItems.length(); j++) {
-                    detailItems[j] = jsonDetailItems.getString(j);
+        for (int row = 0; row < size; row++) {
+            setRow(row, vertretungsplanItems.get(row));
+        }
+    }
+
+    private static String[] readDetailItems(JsonReader reader) throws IOException {
+        ArrayList<String> detailItems = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("detailItems")) {
+                detailItems = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    detailItems.add(JsonDecoder.optString(reader));
                 }
-                vertretungsplanItems.add(detailItems);
+                reader.endArray();
+            } else {
+                reader.skipValue();
             }
         }
-        catch (Exception e) {
-            e.printStackTrace();
-            throw(new RuntimeException("Failed to process details items for grade " + grade));
+        reader.endObject();
+
+        if (detailItems == null) {
+            throw(new RuntimeException("Expected property detailItems not found in vertretungsplan item"));
         }
+
+        return detailItems.toArray(new String[0]);
     }
 
-    GradeItem(GradeItem from, String[] vertretungsplanItem) {
+    GradeItem(String grade, List<String[]> vertretungsplanItems, StringDictionary dictionary) {
+        this.grade = grade;
+        this.dictionary = dictionary;
+        this.size = vertretungsplanItems.size();
+        this.lessonFrom = new int[size];
+        this.lessonTo = new int[size];
+        this.types = new byte[size];
+        this.columns = new int[COLUMNS][size];
+
+        for (int row = 0; row < size; row++) {
+            setRow(row, vertretungsplanItems.get(row));
+        }
+    }
+
+    /**
+     * Grade item that holds a single row of another one.
+     * @param from - Grade item to copy row from.
+     * @param row - Row to copy.
+     */
+    GradeItem(GradeItem from, int row) {
         grade = from.grade;
-        vertretungsplanItems = new ArrayList<>();
-        vertretungsplanItems.add(vertretungsplanItem);
+        dictionary = from.dictionary;
+        size = 1;
+        lessonFrom = new int[] { from.lessonFrom[row] };
+        lessonTo = new int[] { from.lessonTo[row] };
+        types = new byte[] { from.types[row] };
+        columns = new int[COLUMNS][];
+        for (int column = 0; column < COLUMNS; column++) {
+            columns[column] = new int[] { from.columns[column][row] };
+        }
+    }
+
+    private void setRow(int row, String[] detailItems) {
+        // Only EVA column is optional, any other missing column is taken as empty.
+        for (int column = 0; column < COLUMNS; column++) {
+            if (column < detailItems.length) {
+                columns[column][row] = dictionary.add(detailItems[column]);
+            } else {
+                columns[column][row] = (column == EVA) ? -1 : dictionary.add("");
+            }
+        }
+
+        types[row] = (byte)SubstitutionType.fromText(getColumn(TYPE, row)).ordinal();
+
+        // Lesson range like "3. - 4." or "5.": first and last number.
+        final String lesson = getColumn(LESSON, row);
+        int from = -1;
+        int to = -1;
+        int value = -1;
+        for (int k = 0; k <= lesson.length(); k++) {
+            final char c = (k < lesson.length()) ? lesson.charAt(k) : ' ';
+            if (c >= '0' && c <= '9') {
+                value = ((value < 0) ? 0 : value * 10) + (c - '0');
+            } else if (value >= 0) {
+                if (from < 0) {
+                    from = value;
+                }
+                to = value;
+                value = -1;
+            }
+        }
+
+        lessonFrom[row] = from;
+        lessonTo[row] = to;
+    }
+
+    private String getColumn(int column, int row) {
+        final int id = columns[column][row];
+        return (id >= 0) ? dictionary.get(id) : null;
     }
 
     public String getGrade() {
         return grade;
     }
 
-    public ArrayList<String[]> getVertretungsplanItems() {
-        return vertretungsplanItems;
+    /**
+     * @return Number of substitution rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row - Row index.
+     * @return Lesson range as text, e.g. "3. - 4.".
+     */
+    public String getLesson(int row) {
+        return getColumn(LESSON, row);
+    }
+
+    /**
+     * @param row - Row index.
+     * @return First lesson of row or -1 if lesson column has no number.
+     */
+    public int getLessonFrom(int row) {
+        return lessonFrom[row];
+    }
+
+    /**
+     * @param row - Row index.
+     * @return Last lesson of row or -1 if lesson column has no number.
+     */
+    public int getLessonTo(int row) {
+        return lessonTo[row];
+    }
+
+    public SubstitutionType getSubstitutionType(int row) {
+        return SubstitutionType.fromOrdinal(types[row]);
+    }
+
+    /**
+     * @param row - Row index.
+     * @return Substitution type as text for display.
+     */
+    public String getSubstitutionTypeText(int row) {
+        return getColumn(TYPE, row);
+    }
+
+    public String getCourse(int row) {
+        return getColumn(COURSE, row);
+    }
+
+    public String getRoom(int row) {
+        return getColumn(ROOM, row);
+    }
+
+    public String getTeacher(int row) {
+        return getColumn(TEACHER, row);
+    }
+
+    public String getRemark(int row) {
+        return getColumn(REMARK, row);
+    }
+
+    /**
+     * @param row - Row index.
+     * @return EVA text or null if row has no EVA column.
+     */
+    public String getEva(int row) {
+        return getColumn(EVA, row);
+    }
+
+    /**
+     * Rebuild row in backend format, e.g. to compare rows or to export them.
+     * @param row - Row index.
+     * @return New array of detail items.
+     */
+    public String[] getDetailItems(int row) {
+        final int length = (columns[EVA][row] >= 0) ? COLUMNS : EVA;
+        final String[] detailItems = new String[length];
+        for (int column = 0; column < length; column++) {
+            detailItems[column] = getColumn(column, row);
+        }
+
+        return detailItems;
     }
 }
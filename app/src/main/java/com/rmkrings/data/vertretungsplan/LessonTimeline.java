@@ -0,0 +1,155 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Start times of all substitution rows of a schedule, sorted ascending. Each entry refers
+ * back to the row it has been computed for by date, grade item and row index. Built once
+ * per schedule, thus finding the next lesson is a binary search instead of parsing dates
+ * and lesson numbers of every row.
+ *
+ * Rows whose date or lesson cannot be determined are not part of the timeline.
+ */
+public final class LessonTimeline {
+    private static final Pattern datePattern = Pattern.compile("(\\d{2})\\.(\\d{2})\\.(\\d{4})");
+
+    private final long[] startTimes;
+    private final int[] dateIndexes;
+    private final int[] gradeIndexes;
+    private final int[] itemIndexes;
+
+    /**
+     * Build timeline in the device's default time zone.
+     * @param vertretungsplaene - Schedule dates to index.
+     */
+    LessonTimeline(List<VertretungsplanForDate> vertretungsplaene) {
+        final int[] lessonStartMinutes = lessonStartMinutes(new Config().getLessonStartTimes());
+        final Calendar calendar = Calendar.getInstance();
+        final ArrayList<int[]> rows = new ArrayList<>();
+        final ArrayList<Long> times = new ArrayList<>();
+
+        for (int d = 0; d < vertretungsplaene.size(); d++) {
+            final VertretungsplanForDate vertretungsplanForDate = vertretungsplaene.get(d);
+            final Matcher dateMatcher = datePattern.matcher(vertretungsplanForDate.getDate());
+            if (!dateMatcher.find()) {
+                continue;
+            }
+
+            // Start time of each lesson on this date, handles DST changes.
+            final long[] lessonStartTimes = new long[lessonStartMinutes.length];
+            calendar.clear();
+            calendar.set(
+                    Integer.parseInt(dateMatcher.group(3)),
+                    Integer.parseInt(dateMatcher.group(2)) - 1,
+                    Integer.parseInt(dateMatcher.group(1)));
+            for (int l = 0; l < lessonStartMinutes.length; l++) {
+                calendar.set(Calendar.HOUR_OF_DAY, lessonStartMinutes[l] / 60);
+                calendar.set(Calendar.MINUTE, lessonStartMinutes[l] % 60);
+                lessonStartTimes[l] = calendar.getTimeInMillis();
+            }
+
+            final ArrayList<GradeItem> gradeItems = vertretungsplanForDate.getGradeItems();
+            for (int g = 0; g < gradeItems.size(); g++) {
+                final GradeItem gradeItem = gradeItems.get(g);
+                for (int i = 0; i < gradeItem.size(); i++) {
+                    final int lesson = gradeItem.getLessonFrom(i);
+                    if (lesson >= 1 && lesson <= lessonStartTimes.length) {
+                        rows.add(new int[] { d, g, i });
+                        times.add(lessonStartTimes[lesson - 1]);
+                    }
+                }
+            }
+        }
+
+        // Sort is stable, rows starting at the same time keep schedule order.
+        final Integer[] order = new Integer[rows.size()];
+        for (int k = 0; k < order.length; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(times.get(a), times.get(b));
+            }
+        });
+
+        startTimes = new long[order.length];
+        dateIndexes = new int[order.length];
+        gradeIndexes = new int[order.length];
+        itemIndexes = new int[order.length];
+        for (int k = 0; k < order.length; k++) {
+            final int[] row = rows.get(order[k]);
+            startTimes[k] = times.get(order[k]);
+            dateIndexes[k] = row[0];
+            gradeIndexes[k] = row[1];
+            itemIndexes[k] = row[2];
+        }
+    }
+
+    private static int[] lessonStartMinutes(String[] lessonStartTimes) {
+        final int[] minutes = new int[lessonStartTimes.length];
+        for (int l = 0; l < lessonStartTimes.length; l++) {
+            final String[] hoursAndMinutes = lessonStartTimes[l].split(":");
+            minutes[l] = Integer.parseInt(hoursAndMinutes[0]) * 60 + Integer.parseInt(hoursAndMinutes[1]);
+        }
+        return minutes;
+    }
+
+    /**
+     * Binary search for first entry that starts at or after given time.
+     * @param time - Epoch time in milliseconds.
+     * @return Index of entry or size() if there is none.
+     */
+    public int ceiling(long time) {
+        int low = 0;
+        int high = startTimes.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (startTimes[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Binary search for first entry that starts after given time.
+     * @param time - Epoch time in milliseconds.
+     * @return Index of entry or size() if there is none.
+     */
+    public int higher(long time) {
+        return (time == Long.MAX_VALUE) ? startTimes.length : ceiling(time + 1);
+    }
+
+    public int size() {
+        return startTimes.length;
+    }
+
+    public long getStartTime(int entry) {
+        return startTimes[entry];
+    }
+
+    public int getDateIndex(int entry) {
+        return dateIndexes[entry];
+    }
+
+    public int getGradeIndex(int entry) {
+        return gradeIndexes[entry];
+    }
+
+    public int getItemIndex(int entry) {
+        return itemIndexes[entry];
+    }
+}
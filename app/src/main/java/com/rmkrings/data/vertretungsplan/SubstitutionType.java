@@ -0,0 +1,48 @@
+package com.rmkrings.data.vertretungsplan;
+
+/**
+ * Kind of substitution as given in type column of substitution schedule. Types that are not
+ * known to app are mapped to OTHER; the original text is kept by GradeItem for display.
+ */
+public enum SubstitutionType {
+    VERTRETUNG("Vertretung"),
+    ENTFALL("Entfall"),
+    RAUMVERTRETUNG("Raum-Vtr."),
+    STATT_VERTRETUNG("Statt-Vertretung"),
+    VERLEGUNG("Verlegung"),
+    TAUSCH("Tausch"),
+    KLAUSUR("Klausur"),
+    BETREUUNG("Betreuung"),
+    SONDEREINSATZ("Sondereins."),
+    EVA("EVA"),
+    OTHER(null);
+
+    private static final SubstitutionType[] types = values();
+
+    private final String text;
+
+    SubstitutionType(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Map type column to substitution type.
+     * @param text - Type column of substitution row.
+     * @return Matching type or OTHER.
+     */
+    static SubstitutionType fromText(String text) {
+        final String trimmed = text.trim();
+
+        for (SubstitutionType type: types) {
+            if (trimmed.equals(type.text)) {
+                return type;
+            }
+        }
+
+        return OTHER;
+    }
+
+    static SubstitutionType fromOrdinal(int ordinal) {
+        return types[ordinal];
+    }
+}
@@ -2,21 +2,18 @@ package com.rmkrings.data.vertretungsplan;
 
 import androidx.annotation.Nullable;
 
-import com.rmkrings.helper.Config;
+import android.util.JsonReader;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
 
+import java.io.IOException;
 import java.text.DateFormat;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Locale;
-import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class Vertretungsplan {
     private final String tickerText;
@@ -24,49 +21,73 @@ public class Vertretungsplan {
     private final String lastUpdate;
     private final ArrayList<VertretungsplanForDate> vertretungsplaene;
     private String digest;
+    private LessonTimeline timeline;
+    private HashMap<String, Vertretungsplan> gradeSchedules;
 
-    public Vertretungsplan(JSONObject data) throws RuntimeException {
-        try {
-            tickerText = data.getString("tickerText");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            throw(new RuntimeException("Expected property tickerText not available in Vertetungsplan data"));
+    public static final JsonDecoder<Vertretungsplan> decoder = new JsonDecoder<Vertretungsplan>() {
+        @Override
+        public Vertretungsplan decode(JsonReader reader) throws IOException {
+            return new Vertretungsplan(reader);
         }
+    };
+
+    private Vertretungsplan(JsonReader reader) throws IOException, RuntimeException {
+        String tickerText = null;
+        String lastUpdate = null;
+        ArrayList<VertretungsplanForDate> vertretungsplaene = null;
+        final StringDictionary dictionary = new StringDictionary();
 
-        try {
-            additionalText = data.getString("_additionalText");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            additionalText = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "tickerText":
+                    tickerText = JsonDecoder.nextString(reader);
+                    break;
+                case "_additionalText":
+                    additionalText = JsonDecoder.nextString(reader);
+                    break;
+                case "lastUpdate":
+                    lastUpdate = JsonDecoder.nextString(reader);
+                    break;
+                case "dateItems":
+                    vertretungsplaene = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        vertretungsplaene.add(new VertretungsplanForDate(reader, dictionary));
+                    }
+                    reader.endArray();
+                    break;
+                case "_digest":
+                    digest = JsonDecoder.nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
+        reader.endObject();
 
-        try {
-            lastUpdate = data.getString("lastUpdate");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            throw(new RuntimeException("Expected property lastUpdate not available in Vertetungsplan data"));
+        if (tickerText == null) {
+            throw(new RuntimeException("Expected property tickerText not available in Vertetungsplan data"));
         }
 
-        try {
-            vertretungsplaene = new ArrayList<>();
-            JSONArray jsonDateItems = data.getJSONArray("dateItems");
-            for (int i = 0; i < jsonDateItems.length(); i++) {
-                JSONObject jsonDateItem = jsonDateItems.getJSONObject(i);
-                VertretungsplanForDate vertretungsplanForDate = new VertretungsplanForDate(jsonDateItem);
-                vertretungsplaene.add(vertretungsplanForDate);
-            }
+        if (lastUpdate == null) {
+            throw(new RuntimeException("Expected property lastUpdate not available in Vertetungsplan data"));
         }
-        catch (Exception e) {
-            e.printStackTrace();
+
+        if (vertretungsplaene == null) {
             throw(new RuntimeException(("Failed to process date items from Vertretungsplan")));
         }
 
-        try {
-            digest = data.getString("_digest");
-        } catch (JSONException e) {
-            e.printStackTrace();
-            digest = null;
-        }
+        this.tickerText = tickerText;
+        this.lastUpdate = lastUpdate;
+        this.vertretungsplaene = vertretungsplaene;
+    }
+
+    Vertretungsplan(String tickerText, String lastUpdate, ArrayList<VertretungsplanForDate> vertretungsplaene, String digest) {
+        this.tickerText = tickerText;
+        this.lastUpdate = lastUpdate;
+        this.vertretungsplaene = vertretungsplaene;
+        this.digest = digest;
     }
 
     public String getTickerText() {
@@ -90,6 +111,26 @@ public class Vertretungsplan {
         return digest;
     }
 
+    /**
+     * @param date - Date as returned by VertretungsplanForDate.getDate().
+     * @param grade - Grade as returned by GradeItem.getGrade().
+     * @return Substitutions of grade on date or null if there are none.
+     */
+    @Nullable
+    public GradeItem getGradeItem(String date, String grade) {
+        for (VertretungsplanForDate vertretungsplanForDate : vertretungsplaene) {
+            if (vertretungsplanForDate.getDate().equals(date)) {
+                for (GradeItem gradeItem : vertretungsplanForDate.getGradeItems()) {
+                    if (gradeItem.getGrade().equals(grade)) {
+                        return gradeItem;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
     /**
      * @return Substitutions for current date.
      */
@@ -108,6 +149,51 @@ public class Vertretungsplan {
         return null;
     }
 
+    /**
+     * @return Start times of all substitution rows. Built on first use.
+     */
+    public synchronized LessonTimeline getTimeline() {
+        if (timeline == null) {
+            timeline = new LessonTimeline(vertretungsplaene);
+        }
+
+        return timeline;
+    }
+
+    /**
+     * Schedule of a single grade as backend delivers it when asked with forGrade: Every date
+     * is kept, with grade items of given grade only. Rows are shared with this schedule.
+     * A projection has no digest as it has not been delivered by backend.
+     * @param grade - Grade as returned by AppDefaults.getGradeSetting().
+     * @return Schedule filtered by grade. Built on first use.
+     */
+    public synchronized Vertretungsplan forGrade(String grade) {
+        if (gradeSchedules == null) {
+            gradeSchedules = new HashMap<>();
+        }
+
+        Vertretungsplan gradeSchedule = gradeSchedules.get(grade);
+        if (gradeSchedule == null) {
+            final ArrayList<VertretungsplanForDate> gradeVertretungsplaene = new ArrayList<>(vertretungsplaene.size());
+            for (VertretungsplanForDate vertretungsplanForDate : vertretungsplaene) {
+                final ArrayList<GradeItem> gradeItems = new ArrayList<>(1);
+                for (GradeItem gradeItem : vertretungsplanForDate.getGradeItems()) {
+                    if (gradeItem.getGrade().equals(grade)) {
+                        gradeItems.add(gradeItem);
+                    }
+                }
+
+                gradeVertretungsplaene.add(new VertretungsplanForDate(vertretungsplanForDate.getDate(), gradeItems));
+            }
+
+            gradeSchedule = new Vertretungsplan(tickerText, lastUpdate, gradeVertretungsplaene, null);
+            gradeSchedule.additionalText = additionalText;
+            gradeSchedules.put(grade, gradeSchedule);
+        }
+
+        return gradeSchedule;
+    }
+
     /**
      * Returns next substitution record starting from now. If there is no next substitution null
      * is returned. Otherwise the result object contains details of next record, only.
@@ -118,57 +204,55 @@ public class Vertretungsplan {
      */
     @Nullable
     public VertretungsplanForDate next() {
-        try {
-            final Date currentDate = new Date();
-            final Config config = new Config();
-            final Pattern datePattern = Pattern.compile("(\\d{2}.\\d{2}.\\d{4})");
-            final Pattern firstNumberPattern = Pattern.compile("\\d+");
-
-            final DateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy'-'HH:mm", Locale.GERMANY);
+        return next(new Date());
+    }
 
-            // Scan all dates. Extract date string, we will need it later on when it comes
-            // to checking the exact time.
-            for (VertretungsplanForDate vertretungsplanForDate : vertretungsplaene) {
-                String forDate = vertretungsplanForDate.getDate();
-                final Matcher dateMatcher = datePattern.matcher(forDate);
-                if (dateMatcher.find()) {
-                    final int dateStartIndex = dateMatcher.start();
-                    final int dateEndIndex = dateMatcher.end();
-                    forDate = forDate.substring(dateStartIndex, dateEndIndex).concat("-");
-
-                    // Get the only grade item and scan substitutions for next record.
-                    final ArrayList<GradeItem> gradeItems = vertretungsplanForDate.getGradeItems();
-                    if (!gradeItems.isEmpty()) {
-                        final GradeItem gradeItem = gradeItems.get(0);
-                        for (String[] vertretungsplanItem : gradeItem.getVertretungsplanItems()) {
-                            // Lesson range: We are interested in first number as this defines
-                            // actual start time.
-                            // If forDate + lesson start time is after currentDate then we have
-                            // a match and must construct result object.
-                            final String lessonRange = vertretungsplanItem[0];
-                            final Matcher startLessonMatcher = firstNumberPattern.matcher(lessonRange);
-                            if (startLessonMatcher.find()) {
-                                final int lessonStartIndex = startLessonMatcher.start();
-                                final int lessonEndIndex = startLessonMatcher.end();
-                                final int startLesson = Integer.parseInt(lessonRange.substring(lessonStartIndex, lessonEndIndex));
-                                final String lessonStartTime = config.getLessonStartTimes()[startLesson - 1];
-                                final Date lessonStartDateAndTime = dateFormat.parse(forDate.concat(lessonStartTime));
-
-                                if (Objects.requireNonNull(lessonStartDateAndTime).after(currentDate)) {
-                                    GradeItem filteredGradeItem = new GradeItem(gradeItem, vertretungsplanItem);
-                                    return new VertretungsplanForDate(vertretungsplanForDate, filteredGradeItem);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * @param time - Epoch time in milliseconds to search from.
+     * @return Timeline entry of next substitution that starts after given time or timeline
+     * size if there is none.
+     */
+    private int nextEntry(long time) {
+        final LessonTimeline timeline = getTimeline();
+        int entry = timeline.higher(time);
 
-            return null;
+        // Filtered schedule has one grade item only.
+        while (entry < timeline.size() && timeline.getGradeIndex(entry) != 0) {
+            entry++;
         }
-        catch (ParseException e) {
-            e.printStackTrace();
+
+        return entry;
+    }
+
+    /**
+     * Returns next substitution record that starts after given date.
+     * @param currentDate - Date and time to search from.
+     * @return Next substitution record as a filtered VertretungsplanForDate object or null.
+     */
+    @Nullable
+    public VertretungsplanForDate next(Date currentDate) {
+        final LessonTimeline timeline = getTimeline();
+        final int entry = nextEntry(currentDate.getTime());
+
+        if (entry == timeline.size()) {
             return null;
         }
+
+        final VertretungsplanForDate vertretungsplanForDate = vertretungsplaene.get(timeline.getDateIndex(entry));
+        final GradeItem gradeItem = vertretungsplanForDate.getGradeItems().get(0);
+        GradeItem filteredGradeItem = new GradeItem(gradeItem, timeline.getItemIndex(entry));
+        return new VertretungsplanForDate(vertretungsplanForDate, filteredGradeItem);
+    }
+
+    /**
+     * Time at which next() stops returning the record it returns for given date, i.e. start
+     * of that record's lesson. Until then result of next() does not change.
+     * @param currentDate - Date and time to search from.
+     * @return Epoch time in milliseconds or 0 if there is no next substitution.
+     */
+    public long nextChange(Date currentDate) {
+        final LessonTimeline timeline = getTimeline();
+        final int entry = nextEntry(currentDate.getTime());
+        return (entry < timeline.size()) ? timeline.getStartTime(entry) : 0;
     }
 }
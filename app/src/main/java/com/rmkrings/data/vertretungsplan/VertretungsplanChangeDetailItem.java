@@ -4,7 +4,9 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-public class VertretungsplanChangeDetailItem {
+import java.io.Serializable;
+
+public class VertretungsplanChangeDetailItem implements Serializable {
     private final String changeType;
     private final String course;
     private final String lesson;
@@ -41,6 +43,30 @@ public class VertretungsplanChangeDetailItem {
         }
     }
 
+    /**
+     * Change detail item from rows in backend format.
+     * @param changeType - ADDED, CHANGED or DELETED.
+     * @param detailsNew - Row in new schedule, null if deleted.
+     * @param detailsOld - Row in old schedule, null if added.
+     */
+    VertretungsplanChangeDetailItem(String changeType, String[] detailsNew, String[] detailsOld) {
+        this.changeType = changeType;
+
+        if (detailsNew != null) {
+            newDetail = new VertretungsplanDetailItem(detailsNew[1], detailsNew[3], detailsNew[4]);
+        }
+
+        if (detailsOld != null) {
+            oldDetail = new VertretungsplanDetailItem(detailsOld[1], detailsOld[3], detailsOld[4], true);
+        }
+
+        String[] details = (detailsNew != null) ? detailsNew : detailsOld;
+        course = details != null ? details[2] : "";
+        lesson = details != null ? details[0] : "";
+        remark = details != null ? details[6] : "";
+        evaText = ((details != null ? details.length : 0) > 7) ? details[7] : null;
+    }
+
     public String getChangeType() {
         return changeType;
     }
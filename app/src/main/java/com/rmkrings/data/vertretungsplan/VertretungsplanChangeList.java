@@ -4,10 +4,11 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-public class VertretungsplanChangeList {
+public class VertretungsplanChangeList implements Serializable {
     private final HashMap<String, ArrayList<VertretungsplanChangeDetailItem>> changes;
 
     public VertretungsplanChangeList(JSONArray jsonData) throws RuntimeException {
@@ -33,6 +34,14 @@ public class VertretungsplanChangeList {
         }
     }
 
+    /**
+     * Change list that has been computed on device.
+     * @param changes - Changes by date.
+     */
+    VertretungsplanChangeList(HashMap<String, ArrayList<VertretungsplanChangeDetailItem>> changes) {
+        this.changes = changes;
+    }
+
     public HashMap<String, ArrayList<VertretungsplanChangeDetailItem>> getChanges() {
         return changes;
     }
@@ -0,0 +1,245 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.CourseFilter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Differences between two versions of a substitution schedule, computed on device when a
+ * new version has been downloaded. Rows are compared per date and grade. A row of the new
+ * version is matched with a row of the old one when both have the same lesson and course;
+ * matched rows that differ in any other column are changed, unmatched rows are added or
+ * deleted.
+ *
+ * Dates that have been dropped from or added to schedule as a whole, e.g. at midnight,
+ * do not produce row changes. These are reported by hasSameDates() instead.
+ */
+public final class VertretungsplanDiff {
+    // Column of course in backend format.
+    private static final int COURSE = 2;
+
+    public enum ChangeType { ADDED, CHANGED, DELETED }
+
+    /**
+     * A single changed row.
+     */
+    public static final class Change {
+        private final String date;
+        private final String grade;
+        private final ChangeType changeType;
+        private final String[] detailsOld;
+        private final String[] detailsNew;
+
+        Change(String date, String grade, ChangeType changeType, String[] detailsOld, String[] detailsNew) {
+            this.date = date;
+            this.grade = grade;
+            this.changeType = changeType;
+            this.detailsOld = detailsOld;
+            this.detailsNew = detailsNew;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        public String getGrade() {
+            return grade;
+        }
+
+        public ChangeType getChangeType() {
+            return changeType;
+        }
+
+        /**
+         * @return Course of row; matched rows have the same course in both versions.
+         */
+        public String getCourse() {
+            return ((detailsNew != null) ? detailsNew : detailsOld)[COURSE];
+        }
+
+        /**
+         * @return Row in old version in backend format, null if row has been added.
+         */
+        public String[] getDetailsOld() {
+            return detailsOld;
+        }
+
+        /**
+         * @return Row in new version in backend format, null if row has been deleted.
+         */
+        public String[] getDetailsNew() {
+            return detailsNew;
+        }
+    }
+
+    private final List<Change> changes;
+    private final Set<String> changedDates;
+    private final boolean sameDates;
+
+    private VertretungsplanDiff(List<Change> changes, Set<String> changedDates, boolean sameDates) {
+        this.changes = Collections.unmodifiableList(changes);
+        this.changedDates = Collections.unmodifiableSet(changedDates);
+        this.sameDates = sameDates;
+    }
+
+    /**
+     * Compare two versions of a schedule.
+     * @param previous - Version that is currently displayed or cached.
+     * @param current - Version that has just been loaded.
+     * @return Differences from previous to current.
+     */
+    public static VertretungsplanDiff compute(Vertretungsplan previous, Vertretungsplan current) {
+        final ArrayList<Change> changes = new ArrayList<>();
+        final LinkedHashSet<String> changedDates = new LinkedHashSet<>();
+
+        // Unchanged data is shared by ModelCache, nothing to compare then.
+        if (previous == current) {
+            return new VertretungsplanDiff(changes, changedDates, true);
+        }
+
+        final HashMap<String, VertretungsplanForDate> previousDates = new HashMap<>();
+        final ArrayList<String> previousTitles = new ArrayList<>();
+        for (VertretungsplanForDate vertretungsplanForDate : previous.getVertretungsplaene()) {
+            previousDates.put(vertretungsplanForDate.getDate(), vertretungsplanForDate);
+            previousTitles.add(vertretungsplanForDate.getDate());
+        }
+
+        final ArrayList<String> currentTitles = new ArrayList<>();
+        for (VertretungsplanForDate vertretungsplanForDate : current.getVertretungsplaene()) {
+            final String date = vertretungsplanForDate.getDate();
+            final VertretungsplanForDate previousForDate = previousDates.get(date);
+            currentTitles.add(date);
+
+            if (previousForDate == null) {
+                continue;
+            }
+
+            final LinkedHashMap<String, GradeItem> previousGrades = new LinkedHashMap<>();
+            for (GradeItem gradeItem : previousForDate.getGradeItems()) {
+                previousGrades.put(gradeItem.getGrade(), gradeItem);
+            }
+
+            final int size = changes.size();
+            for (GradeItem gradeItem : vertretungsplanForDate.getGradeItems()) {
+                compareRows(date, gradeItem.getGrade(), previousGrades.remove(gradeItem.getGrade()), gradeItem, changes);
+            }
+            for (GradeItem gradeItem : previousGrades.values()) {
+                compareRows(date, gradeItem.getGrade(), gradeItem, null, changes);
+            }
+
+            if (changes.size() > size) {
+                changedDates.add(date);
+            }
+        }
+
+        return new VertretungsplanDiff(changes, changedDates, previousTitles.equals(currentTitles));
+    }
+
+    private static String rowKey(GradeItem gradeItem, int row) {
+        return gradeItem.getLesson(row) + '\u0000' + gradeItem.getCourse(row);
+    }
+
+    /**
+     * Compare rows of one grade on one date.
+     * @param date - Date title.
+     * @param grade - Grade name.
+     * @param previous - Rows of old version, null if grade was not present.
+     * @param current - Rows of new version, null if grade is not present anymore.
+     * @param changes - List to add changes to.
+     */
+    private static void compareRows(String date, String grade, GradeItem previous, GradeItem current, List<Change> changes) {
+        // Rows of old version by key, rows with same key are matched in order.
+        final HashMap<String, ArrayDeque<Integer>> previousRows = new HashMap<>();
+        final boolean[] matched = new boolean[(previous != null) ? previous.size() : 0];
+        for (int row = 0; row < matched.length; row++) {
+            final String key = rowKey(previous, row);
+            ArrayDeque<Integer> rows = previousRows.get(key);
+            if (rows == null) {
+                rows = new ArrayDeque<>();
+                previousRows.put(key, rows);
+            }
+            rows.add(row);
+        }
+
+        if (current != null) {
+            for (int row = 0; row < current.size(); row++) {
+                final ArrayDeque<Integer> rows = previousRows.get(rowKey(current, row));
+                final String[] detailsNew = current.getDetailItems(row);
+
+                if (rows == null || rows.isEmpty()) {
+                    changes.add(new Change(date, grade, ChangeType.ADDED, null, detailsNew));
+                } else {
+                    final int previousRow = rows.poll();
+                    final String[] detailsOld = previous.getDetailItems(previousRow);
+                    matched[previousRow] = true;
+
+                    if (!Arrays.equals(detailsOld, detailsNew)) {
+                        changes.add(new Change(date, grade, ChangeType.CHANGED, detailsOld, detailsNew));
+                    }
+                }
+            }
+        }
+
+        for (int row = 0; row < matched.length; row++) {
+            if (!matched[row]) {
+                changes.add(new Change(date, grade, ChangeType.DELETED, previous.getDetailItems(row), null));
+            }
+        }
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty() && sameDates;
+    }
+
+    /**
+     * @return Titles of dates that have at least one changed row, in schedule order.
+     */
+    public Set<String> getChangedDates() {
+        return changedDates;
+    }
+
+    /**
+     * @return true if both versions have the same dates in the same order.
+     */
+    public boolean hasSameDates() {
+        return sameDates;
+    }
+
+    /**
+     * Change list in the format that is pushed by backend, thus changes found when polling
+     * can be shown like pushed ones.
+     * @param courseFilter - Filter of user's courses, changes of other courses are skipped.
+     * @return Changes by date in schedule order, empty if no accepted row has changed.
+     */
+    public VertretungsplanChangeList toChangeList(CourseFilter courseFilter) {
+        final LinkedHashMap<String, ArrayList<VertretungsplanChangeDetailItem>> changeList = new LinkedHashMap<>();
+
+        for (Change change : changes) {
+            if (!courseFilter.accept(change.getCourse())) {
+                continue;
+            }
+
+            ArrayList<VertretungsplanChangeDetailItem> a = changeList.get(change.getDate());
+            if (a == null) {
+                a = new ArrayList<>();
+                changeList.put(change.getDate(), a);
+            }
+
+            a.add(new VertretungsplanChangeDetailItem(change.getChangeType().name(), change.getDetailsNew(), change.getDetailsOld()));
+        }
+
+        return new VertretungsplanChangeList(changeList);
+    }
+}
@@ -1,36 +1,56 @@
 package com.rmkrings.data.vertretungsplan;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import android.util.JsonReader;
 
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.StringDictionary;
+
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class VertretungsplanForDate {
     private final String date;
     private final ArrayList<GradeItem> gradeItems;
 
-    VertretungsplanForDate(JSONObject data) throws RuntimeException {
-        try {
-            date = data.getString("title");
+    VertretungsplanForDate(JsonReader reader, StringDictionary dictionary) throws IOException, RuntimeException {
+        String date = null;
+        ArrayList<GradeItem> gradeItems = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "title":
+                    date = dictionary.intern(JsonDecoder.nextString(reader));
+                    break;
+                case "gradeItems":
+                    gradeItems = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        gradeItems.add(new GradeItem(reader, dictionary));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        reader.endObject();
+
+        if (date == null) {
             throw(new RuntimeException("Expected property title not present in date item"));
         }
 
-        try {
-            gradeItems = new ArrayList<>();
-            JSONArray jsonGradeItems = data.getJSONArray("gradeItems");
-            for (int i = 0; i< jsonGradeItems.length(); i++) {
-                JSONObject jsonGradeItem = jsonGradeItems.getJSONObject(i);
-                GradeItem gradeItem = new GradeItem(jsonGradeItem);
-                gradeItems.add(gradeItem);
-            }
-        }
-        catch (Exception e) {
-            e.printStackTrace();
+        if (gradeItems == null) {
             throw(new RuntimeException("Failed to process grade items for date " + date));
         }
+
+        this.date = date;
+        this.gradeItems = gradeItems;
+    }
+
+    VertretungsplanForDate(String date, ArrayList<GradeItem> gradeItems) {
+        this.date = date;
+        this.gradeItems = gradeItems;
     }
 
     VertretungsplanForDate(VertretungsplanForDate from, GradeItem gradeItem) {
@@ -0,0 +1,71 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.Cache;
+import com.rmkrings.helper.ModelCache;
+
+import java.io.IOException;
+
+/**
+ * Schedules of a single grade derived from the full schedule that substitution schedule
+ * view caches. When the full schedule has been fetched recently and is newer than the
+ * grade's own cache record, the grade schedule is projected locally instead of being
+ * downloaded once more.
+ */
+public final class VertretungsplanProjection {
+    // Cache name of full schedule.
+    public static final String FULL_SCHEDULE = "vertretungsplan";
+
+    // Full schedule fetched within this time is used instead of a download.
+    private static final long MAX_AGE = 5 * 60 * 1000;
+
+    private VertretungsplanProjection() {
+    }
+
+    private static boolean isNewerThanGrade(Cache cache, String grade) {
+        return cache.hasRecord(FULL_SCHEDULE) && cache.getFetchedAt(FULL_SCHEDULE) >= cache.getFetchedAt(grade);
+    }
+
+    /**
+     * Checks if schedule of grade can be projected instead of being downloaded. This is
+     * answered from memory.
+     * @param grade - Grade as returned by AppDefaults.getGradeSetting().
+     * @param now - Current time in milliseconds.
+     * @return true if full schedule is fresh and newer than cached grade schedule.
+     */
+    public static boolean isFresh(String grade, long now) {
+        final Cache cache = new Cache();
+        final long age = now - cache.getFetchedAt(FULL_SCHEDULE);
+        return isNewerThanGrade(cache, grade) && age >= 0 && age < MAX_AGE;
+    }
+
+    /**
+     * Worker thread: Project schedule of grade from cached full schedule.
+     * @param grade - Grade as returned by AppDefaults.getGradeSetting().
+     * @return Schedule filtered by grade.
+     * @throws IOException when full schedule is not cached or cannot be parsed.
+     */
+    public static Vertretungsplan project(String grade) throws IOException {
+        return ModelCache.getInstance().get(FULL_SCHEDULE, Vertretungsplan.decoder).forGrade(grade);
+    }
+
+    /**
+     * Worker thread: Newest schedule of grade in cache. This either is the grade's own
+     * record or the projection of full schedule, whichever has been fetched later.
+     * @param grade - Grade as returned by AppDefaults.getGradeSetting().
+     * @return Schedule filtered by grade or null if neither is cached.
+     * @throws IOException when cached data cannot be parsed.
+     */
+    public static Vertretungsplan fromCache(String grade) throws IOException {
+        final Cache cache = new Cache();
+
+        if (isNewerThanGrade(cache, grade)) {
+            return project(grade);
+        }
+
+        if (cache.hasRecord(grade)) {
+            return ModelCache.getInstance().get(grade, Vertretungsplan.decoder);
+        }
+
+        return null;
+    }
+}
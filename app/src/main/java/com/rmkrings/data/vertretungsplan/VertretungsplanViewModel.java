@@ -0,0 +1,61 @@
+package com.rmkrings.data.vertretungsplan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable content of substitution schedule view: Meta data, dates and grades
+ * that have substitutions on each date.
+ */
+public final class VertretungsplanViewModel {
+    private final Vertretungsplan vertretungsplan;
+    private final List<String> listDataHeader;
+    private final Map<String, List<String>> listDataChild;
+
+    public VertretungsplanViewModel(Vertretungsplan vertretungsplan) {
+        ArrayList<String> listDataHeader = new ArrayList<>();
+        HashMap<String, List<String>> listDataChild = new HashMap<>();
+
+        for (VertretungsplanForDate vertretungsplanForDate: vertretungsplan.getVertretungsplaene()) {
+            listDataHeader.add(vertretungsplanForDate.getDate());
+
+            List<String> grades = new ArrayList<>(0);
+            for (GradeItem gradeItem: vertretungsplanForDate.getGradeItems()) {
+                grades.add(gradeItem.getGrade());
+            }
+
+            listDataChild.put(vertretungsplanForDate.getDate(), Collections.unmodifiableList(grades));
+        }
+
+        this.vertretungsplan = vertretungsplan;
+        this.listDataHeader = Collections.unmodifiableList(listDataHeader);
+        this.listDataChild = Collections.unmodifiableMap(listDataChild);
+    }
+
+    public Vertretungsplan getVertretungsplan() {
+        return vertretungsplan;
+    }
+
+    public String getTickerText() {
+        return vertretungsplan.getTickerText();
+    }
+
+    public String getAdditionalText() {
+        return vertretungsplan.getAdditionalText();
+    }
+
+    public String getLastUpdate() {
+        return vertretungsplan.getLastUpdate();
+    }
+
+    public List<String> getListDataHeader() {
+        return listDataHeader;
+    }
+
+    public Map<String, List<String>> getListDataChild() {
+        return listDataChild;
+    }
+}
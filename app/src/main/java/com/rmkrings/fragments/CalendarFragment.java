@@ -26,17 +26,18 @@ import com.rmkrings.data.adapter.CalendarMonthListAdapter;
 import com.rmkrings.data.calendar.Calendar;
 import com.rmkrings.data.calendar.DayItem;
 import com.rmkrings.data.calendar.MonthItem;
-import com.rmkrings.helper.Config;
 import com.rmkrings.interfaces.ViewSelectedCallback;
 import com.rmkrings.helper.Cache;
+import com.rmkrings.helper.CacheRecord;
+import com.rmkrings.helper.ModelCache;
+import com.rmkrings.helper.ModelHandle;
 import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.loader.CalendarLoader;
 import com.rmkrings.activities.R;
 import com.rmkrings.pius_app_for_android;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.logging.Logger;
@@ -52,8 +53,7 @@ public class CalendarFragment extends Fragment implements HttpResponseCallback,
     private Button mSelectedButton = null;
 
     // Local State
-    private final String digestFileName = Config.digestFilename("calendar");
-    private final String cacheFileName = Config.cacheFilename("calendar");
+    private final String cacheName = "calendar";
 
     private final Cache cache = new Cache();
     private Calendar calendar;
@@ -95,8 +95,12 @@ public class CalendarFragment extends Fragment implements HttpResponseCallback,
         mSearchButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                if (calendar == null) {
+                    return;
+                }
+
                 FragmentTransaction transaction = fragmentActivity.getSupportFragmentManager().beginTransaction();
-                transaction.replace(R.id.frameLayout, CalendarSearchFragment.newInstance(calendar));
+                transaction.replace(R.id.frameLayout, CalendarSearchFragment.newInstance(new ModelHandle(cacheName, calendar.getDigest())));
                 transaction.addToBackStack(null);
                 transaction.commit();
             }
@@ -148,11 +152,9 @@ public class CalendarFragment extends Fragment implements HttpResponseCallback,
     private void reload() {
         String digest;
 
-        if (cache.fileExists(cacheFileName) && cache.fileExists(digestFileName)) {
-            digest = cache.read(digestFileName);
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName));
-            digest = null;
+        digest = cache.getDigest(cacheName);
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", cacheName));
         }
 
         CalendarLoader calendarLoader = new CalendarLoader();
@@ -162,9 +164,6 @@ public class CalendarFragment extends Fragment implements HttpResponseCallback,
     @SuppressLint("DefaultLocale")
     @Override
     public void execute(HttpResponseData responseData) {
-        String data;
-        JSONObject jsonData;
-
         mProgressBar.setVisibility(View.INVISIBLE);
 
         if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
@@ -184,19 +183,20 @@ public class CalendarFragment extends Fragment implements HttpResponseCallback,
             return;
         }
 
-        if (responseData.getData() != null) {
-            data = responseData.getData();
-            cache.store(cacheFileName, data);
-        } else {
-            data = cache.read(cacheFileName);
-        }
-
         try {
-            jsonData = new JSONObject(data);
-            calendar = new Calendar(jsonData);
+            if (responseData.getBody() != null) {
+                byte[] body = responseData.getBody();
+
+                calendar = (responseData.getModel() != null)
+                        ? (Calendar)responseData.getModel()
+                        : Calendar.decoder.decode(ByteBuffer.wrap(body));
+
+                cache.storeRecord(cacheName, new CacheRecord(body, calendar.getDigest(), responseData.getHttpStatusCode()));
 
-            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && calendar.getDigest() != null) {
-                cache.store(digestFileName, calendar.getDigest());
+                // Search is handed a handle of this model.
+                ModelCache.getInstance().put(cacheName, calendar.getDigest(), calendar, body.length);
+            } else {
+                calendar = ModelCache.getInstance().get(cacheName, Calendar.decoder);
             }
 
             setMonthList();
@@ -5,6 +5,7 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import android.text.Editable;
@@ -14,28 +15,97 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.EditText;
 
+import com.rmkrings.data.adapter.CalendarSearchDiffCallback;
 import com.rmkrings.data.adapter.CalendarSearchListAdapter;
 import com.rmkrings.data.calendar.Calendar;
 import com.rmkrings.data.calendar.CalendarListItem;
+import com.rmkrings.data.calendar.CalendarSearchHit;
 import com.rmkrings.data.calendar.MonthHeaderItem;
-import com.rmkrings.data.calendar.MonthItem;
 import com.rmkrings.activities.R;
+import com.rmkrings.helper.ModelCache;
+import com.rmkrings.helper.ModelHandle;
+import com.rmkrings.helper.SearchExecutor;
 import com.rmkrings.pius_app_for_android;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
 
 /**
  */
 public class CalendarSearchFragment extends Fragment {
+    private final static Logger logger = Logger.getLogger(CalendarSearchFragment.class.getName());
+
     private static final String ARG_PARAM1 = "calendar";
+    private static final long SEARCH_DEBOUNCE_MILLIS = 150;
 
     private CalendarSearchListAdapter mCalendarSearchListAdapter = null;
 
     // Local state
-    private Calendar calendar;
-    private Calendar filteredCalendar;
+    private ModelHandle calendarHandle;
     private final ArrayList<CalendarListItem> listItems = new ArrayList<>();
 
+    /**
+     * List items of a search together with changes to list items of previous search.
+     */
+    private static class SearchResult {
+        private final List<CalendarListItem> listItems;
+        private final DiffUtil.DiffResult diffResult;
+
+        SearchResult(List<CalendarListItem> listItems, DiffUtil.DiffResult diffResult) {
+            this.listItems = listItems;
+            this.diffResult = diffResult;
+        }
+    }
+
+    private final SearchExecutor<SearchResult> searchExecutor = new SearchExecutor<SearchResult>("Calendar search", SEARCH_DEBOUNCE_MILLIS) {
+        // Worker thread only: List items of last result, next diff is based on these.
+        private List<CalendarListItem> lastListItems = new ArrayList<>();
+        private Calendar calendar = null;
+
+        @Override
+        protected SearchResult search(String query) {
+            // Calendar is resolved here as it must be parsed again after process death.
+            if (calendar == null) {
+                try {
+                    calendar = ModelCache.getInstance().get(calendarHandle, Calendar.decoder);
+                }
+                catch (IOException e) {
+                    logger.severe(String.format("Cannot resolve %s: %s", calendarHandle, e.getMessage()));
+                    return null;
+                }
+            }
+
+            final ArrayList<CalendarListItem> items = new ArrayList<>();
+            String monthName = null;
+            for (CalendarSearchHit hit: calendar.search(query)) {
+                if (!hit.getMonthName().equals(monthName)) {
+                    monthName = hit.getMonthName();
+                    items.add(new MonthHeaderItem(monthName));
+                }
+                items.add(hit);
+            }
+
+            if (isCancelled()) {
+                return null;
+            }
+
+            final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new CalendarSearchDiffCallback(lastListItems, items));
+            lastListItems = items;
+            return new SearchResult(items, diffResult);
+        }
+
+        @Override
+        protected void onResult(SearchResult result) {
+            listItems.clear();
+            listItems.addAll(result.listItems);
+            if (mCalendarSearchListAdapter != null) {
+                result.diffResult.dispatchUpdatesTo(mCalendarSearchListAdapter);
+            }
+        }
+    };
+
     public CalendarSearchFragment() {
         // Required empty public constructor
     }
@@ -44,13 +114,13 @@ public class CalendarSearchFragment extends Fragment {
      * Use this factory method to create a new instance of
      * this fragment using the provided parameters.
      *
-     * @param calendar Parameter 1.
+     * @param calendarHandle Handle of calendar in ModelCache.
      * @return A new instance of fragment CalendarSearchFragment.
      */
-    public static CalendarSearchFragment newInstance(Calendar calendar) {
+    public static CalendarSearchFragment newInstance(ModelHandle calendarHandle) {
         CalendarSearchFragment fragment = new CalendarSearchFragment();
         Bundle args = new Bundle();
-        args.putSerializable(ARG_PARAM1, calendar);
+        args.putBundle(ARG_PARAM1, calendarHandle.toBundle());
         fragment.setArguments(args);
         return fragment;
     }
@@ -59,11 +129,16 @@ public class CalendarSearchFragment extends Fragment {
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         if (getArguments() != null) {
-            calendar = (Calendar)getArguments().getSerializable(ARG_PARAM1);
-            filteredCalendar = calendar;
+            calendarHandle = ModelHandle.fromBundle(getArguments().getBundle(ARG_PARAM1));
         }
     }
 
+    @Override
+    public void onDestroy() {
+        searchExecutor.shutdown();
+        super.onDestroy();
+    }
+
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         // Outlets
@@ -79,8 +154,7 @@ public class CalendarSearchFragment extends Fragment {
 
             @Override
             public void afterTextChanged(Editable s) {
-                filteredCalendar = calendar.filter(s.toString());
-                setDateList();
+                searchExecutor.submit(s.toString());
             }
         });
 
@@ -88,6 +162,9 @@ public class CalendarSearchFragment extends Fragment {
         mDateList.setLayoutManager(mVerticalLayoutManager);
         mCalendarSearchListAdapter = new CalendarSearchListAdapter(listItems);
         mDateList.setAdapter(mCalendarSearchListAdapter);
+
+        // Show entire calendar or result of restored input right away.
+        searchExecutor.submitNow(mSearchInput.getText().toString());
     }
 
     @Override
@@ -101,19 +178,4 @@ public class CalendarSearchFragment extends Fragment {
     public void onAttach(@NonNull Context context) {
         super.onAttach(context);
     }
-
-    public void onResume() {
-        super.onResume();
-        setDateList();
-    }
-
-    private void setDateList() {
-        listItems.clear();
-        for (MonthItem montItem: filteredCalendar.getMonthItems()) {
-            listItems.add(new MonthHeaderItem(montItem.getName()));
-            listItems.addAll(montItem.getDayItems());
-        }
-
-        mCalendarSearchListAdapter.notifyDataSetChanged();
-    }
 }
@@ -10,6 +10,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.android.material.snackbar.Snackbar;
 
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
@@ -28,38 +29,38 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import com.rmkrings.activities.PreferencesActivity;
+import com.rmkrings.activities.ScheduleChangedActivity;
 import com.rmkrings.data.adapter.DashboardListAdapter;
 import com.rmkrings.data.adapter.MetaDataAdapter;
-import com.rmkrings.data.vertretungsplan.GradeItem;
+import com.rmkrings.data.vertretungsplan.DashboardViewModel;
 import com.rmkrings.data.vertretungsplan.Vertretungsplan;
-import com.rmkrings.data.vertretungsplan.VertretungsplanDetailItem;
-import com.rmkrings.data.vertretungsplan.VertretungsplanEvaItem;
-import com.rmkrings.data.vertretungsplan.VertretungsplanForDate;
-import com.rmkrings.data.vertretungsplan.VertretungsplanHeaderItem;
+import com.rmkrings.data.vertretungsplan.VertretungsplanChangeList;
+import com.rmkrings.data.vertretungsplan.VertretungsplanDiff;
 import com.rmkrings.data.vertretungsplan.VertretungsplanListItem;
-import com.rmkrings.data.vertretungsplan.VertretungsplanRemarkItem;
 import com.rmkrings.helper.AppDefaults;
 import com.rmkrings.helper.Cache;
-import com.rmkrings.helper.Config;
-import com.rmkrings.interfaces.HttpResponseCallback;
+import com.rmkrings.helper.CacheRecord;
+import com.rmkrings.helper.ModelCache;
 import com.rmkrings.http.HttpResponseData;
+import com.rmkrings.http.ResponsePipeline;
 import com.rmkrings.loader.VertretungsplanLoader;
 import com.rmkrings.activities.R;
-import com.rmkrings.notifications.DashboardWidgetUpdateService;
+import com.rmkrings.notifications.DashboardWidgetUpdateWorker;
 import com.rmkrings.pius_app_for_android;
+import com.rmkrings.widgets.WidgetSnapshot;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import static androidx.recyclerview.widget.RecyclerView.*;
 
-public class DashboardFragment extends Fragment implements HttpResponseCallback {
+public class DashboardFragment extends Fragment {
     // Outlets
     private SwipeRefreshLayout mFragment;
     private ProgressBar mProgressBar;
@@ -74,16 +75,8 @@ public class DashboardFragment extends Fragment implements HttpResponseCallback
     private String grade;
     private Boolean reloadOnResume = true;
 
-    private String digestFileName() {
-        return Config.digestFilename(grade);
-    }
-
-    private String cacheFileName() {
-        return Config.cacheFilename(grade);
-    }
-
     private final Cache cache = new Cache();
-    private Vertretungsplan vertretungsplan;
+    private DashboardViewModel viewModel;
     private final String[] metaData = new String[2];
     private final ArrayList<String> listDataHeader = new ArrayList<>(0);
     private final HashMap<String, List<VertretungsplanListItem>> listDataChild = new HashMap<>(0);
@@ -196,13 +189,9 @@ public class DashboardFragment extends Fragment implements HttpResponseCallback
     }
 
     private void reload(boolean refreshing) {
-        String digest;
-
-        if (cache.fileExists(cacheFileName()) && cache.fileExists(digestFileName())) {
-            digest = cache.read(digestFileName());
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName()));
-            digest = null;
+        String digest = cache.getDigest(grade);
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", grade));
         }
 
         if (!refreshing) {
@@ -210,79 +199,79 @@ public class DashboardFragment extends Fragment implements HttpResponseCallback
         }
 
         VertretungsplanLoader vertretungsplanLoader = new VertretungsplanLoader(grade);
-        vertretungsplanLoader.load(this, digest);
+        vertretungsplanLoader.load(new DashboardPipeline(grade, (viewModel != null) ? viewModel.getVertretungsplan() : null), digest);
     }
 
     private void setMetaData() {
-        if (vertretungsplan != null) {
-            this.metaData[0] = vertretungsplan.getTickerText();
-            this.metaData[1] = vertretungsplan.getAdditionalText();
+        if (viewModel != null
+                && (!Objects.equals(metaData[0], viewModel.getTickerText()) || !Objects.equals(metaData[1], viewModel.getAdditionalText())))
+        {
+            this.metaData[0] = viewModel.getTickerText();
+            this.metaData[1] = viewModel.getAdditionalText();
             mMetaDataAdapter.notifyDataSetChanged();
         }
     }
 
     private void setLastUpdate() {
-        if (vertretungsplan != null) {
-            mLastUpdate.setText(vertretungsplan.getLastUpdate());
+        if (viewModel != null) {
+            mLastUpdate.setText(viewModel.getLastUpdate());
         }
     }
 
-    private void setVertretungsplanList() {
-        Date currentDate = new Date();
-        boolean[] expanded = new boolean[vertretungsplan.getVertretungsplaene().size()];
-        boolean hasExpanded = false;
-        int i = 0;
-
-        listDataHeader.clear();
-        listDataChild.clear();
-        for (VertretungsplanForDate vertretungsplanForDate : vertretungsplan.getVertretungsplaene()) {
-            listDataHeader.add(vertretungsplanForDate.getDate());
-            expanded[i] = false;
-
-            ArrayList<VertretungsplanListItem> vertretungsplanListItems = new ArrayList<>(0);
-
-            // There is only one grade item when in dashboard mode.
-            for (GradeItem g : vertretungsplanForDate.getGradeItems()) {
-                for (String[] a : g.getVertretungsplanItems()) {
-                    // Check if the current item can be accepted, i.e. must be displayed.
-                    VertretungsplanHeaderItem headerItem = new VertretungsplanHeaderItem(a[2], a[0]);
-                    if (headerItem.accept()) {
-                        // We will expand the next date with a substitution, thus that date that has
-                        // a lesson which is after current date and time. Once such a lesson has been
-                        // found no more groups shall get expanded. This is why we need to track
-                        // expansion.
-                        if (!hasExpanded) {
-                            Date lessonStartDate = headerItem.realLessonStartDate(vertretungsplanForDate.getDate());
-                            expanded[i] |= (lessonStartDate.after(currentDate) || lessonStartDate.equals(currentDate));
-                            hasExpanded = expanded[i];
-                        }
+    /**
+     * Update list from current view model. When view model has been built from a schedule
+     * that could be compared with the one on display only dates with changed list items get
+     * new list items. Expansion of all other dates is kept as is; when no list item has
+     * changed the list is not touched at all.
+     * @param previousViewModel - View model that has been on display before.
+     * @param previous - Schedule the diff of current view model has been computed against.
+     */
+    private void setVertretungsplanList(DashboardViewModel previousViewModel, Vertretungsplan previous) {
+        final VertretungsplanDiff diff = viewModel.getDiff();
+
+        if (diff == null
+                || previousViewModel == null
+                || previousViewModel.getVertretungsplan() != previous
+                || previousViewModel.getCourseFilter() != viewModel.getCourseFilter()
+                || !diff.hasSameDates())
+        {
+            setVertretungsplanList();
+            return;
+        }
 
-                        VertretungsplanDetailItem detailItem = new VertretungsplanDetailItem(a[1], a[3], a[4]);
-                        VertretungsplanRemarkItem remarkItem = new VertretungsplanRemarkItem(a[6]);
+        final Set<String> changedDates = viewModel.getChangedDates();
+        if (changedDates.isEmpty()) {
+            logger.info(String.format("No changes for %s, list is up to date.", grade));
+            return;
+        }
 
-                        vertretungsplanListItems.add(headerItem);
-                        vertretungsplanListItems.add(detailItem);
+        for (String date : changedDates) {
+            listDataChild.put(date, viewModel.getListDataChild().get(date));
+        }
 
-                        if (remarkItem.getRemarkText().length() > 0) {
-                            vertretungsplanListItems.add(remarkItem);
-                        }
+        mDashboardListAdapter.notifyDataSetChanged();
 
-                        if (a.length > 7) {
-                            VertretungsplanEvaItem evaItem = new VertretungsplanEvaItem(a[7]);
-                            vertretungsplanListItems.add(evaItem);
-                        }
-                    }
+        for (int i = 0; i < listDataHeader.size(); i++) {
+            if (changedDates.contains(listDataHeader.get(i))) {
+                if (viewModel.isExpanded(i)) {
+                    mDashboardListView.expandGroup(i);
+                } else {
+                    mDashboardListView.collapseGroup(i);
                 }
             }
-
-            listDataChild.put(vertretungsplanForDate.getDate(), vertretungsplanListItems);
-            i += 1;
         }
+    }
+
+    private void setVertretungsplanList() {
+        listDataHeader.clear();
+        listDataHeader.addAll(viewModel.getListDataHeader());
+        listDataChild.clear();
+        listDataChild.putAll(viewModel.getListDataChild());
 
         mDashboardListAdapter.notifyDataSetChanged();
 
-        for (i = 0; i < listDataHeader.size(); i++) {
-            if (expanded[i]) {
+        for (int i = 0; i < listDataHeader.size(); i++) {
+            if (viewModel.isExpanded(i)) {
                 mDashboardListView.expandGroup(i);
             } else {
                 mDashboardListView.collapseGroup(i);
@@ -290,75 +279,133 @@ public class DashboardFragment extends Fragment implements HttpResponseCallback
         }
     }
 
-    @SuppressLint("DefaultLocale")
-    @Override
-    public void execute(HttpResponseData responseData) {
-        String data;
-        JSONObject jsonData;
-
-        mFragment.setRefreshing(false);
-        mProgressBar.setVisibility(View.INVISIBLE);
-
-        try {
-            if (getActivity() != null && !getActivity().isFinishing()) {
-                if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
-                    logger.severe(String.format("Failed to load data for Dashboard. HTTP Status code %d.", responseData.getHttpStatusCode()));
-                    new AlertDialog.Builder(Objects.requireNonNull(getContext()), R.style.AlertDialogTheme)
-                            .setTitle(getResources().getString(R.string.title_dashboard))
-                            .setMessage(getResources().getString(R.string.error_failed_to_load_data))
-                            .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
-                                @Override
-                                public void onClick(DialogInterface dialog, int which) {
-                                    if (getFragmentManager() != null) {
-                                        getFragmentManager().popBackStack();
-                                    }
-                                }
-                            })
-                            .show();
-                    return;
-                }
+    /**
+     * Offers to show rows of user's courses that have changed since schedule on display,
+     * like a push message of backend does.
+     */
+    private void showChanges() {
+        final VertretungsplanChangeList changeList = viewModel.getChangeList();
+        final String lastUpdate = viewModel.getLastUpdate();
 
-                if (responseData.getData() != null) {
-                    data = responseData.getData();
-                    cache.store(cacheFileName(), data);
-                } else {
-                    data = cache.read(cacheFileName());
-                }
-
-                // Update widget when new data has been loaded.
-                Context context = pius_app_for_android.getAppContext();
-                Intent intent = new Intent(context, DashboardWidgetUpdateService.class);
-                context.startService(intent);
+        if (changeList == null || changeList.getChanges().isEmpty()) {
+            return;
+        }
 
-                try {
-                    jsonData = new JSONObject(data);
-                    vertretungsplan = new Vertretungsplan(jsonData);
+        Snackbar.make(mFragment, R.string.text_schedule_changed, Snackbar.LENGTH_LONG)
+                .setAction(R.string.label_show, new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        Intent intent = new Intent(fragmentActivity, ScheduleChangedActivity.class);
+                        intent.putExtra("changeList", changeList);
+                        intent.putExtra("lastUpdate", lastUpdate);
+                        startActivity(intent);
+                    }
+                })
+                .show();
+    }
 
-                    if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && vertretungsplan.getDigest() != null) {
-                        cache.store(digestFileName(), vertretungsplan.getDigest());
+    private void showError() {
+        new AlertDialog.Builder(Objects.requireNonNull(getContext()), R.style.AlertDialogTheme)
+                .setTitle(getResources().getString(R.string.title_dashboard))
+                .setMessage(getResources().getString(R.string.error_failed_to_load_data))
+                .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        if (getFragmentManager() != null) {
+                            getFragmentManager().popBackStack();
+                        }
                     }
+                })
+                .show();
+    }
+
+    /**
+     * Updates cache, parses response and builds dashboard list items on a worker thread.
+     * Dashboard gets the finished view model, only.
+     */
+    private class DashboardPipeline extends ResponsePipeline<DashboardViewModel> {
+        private final String grade;
+        private final Vertretungsplan previous;
+
+        /**
+         * @param grade - Grade to load schedule for.
+         * @param previous - Schedule that is on display, null if none.
+         */
+        DashboardPipeline(String grade, Vertretungsplan previous) {
+            this.grade = grade;
+            this.previous = previous;
+        }
+
+        @SuppressLint("DefaultLocale")
+        @Override
+        protected DashboardViewModel process(HttpResponseData responseData) throws Exception {
+            Vertretungsplan vertretungsplan;
+
+            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
+                logger.severe(String.format("Failed to load data for Dashboard. HTTP Status code %d.", responseData.getHttpStatusCode()));
+                return null;
+            }
+
+            if (responseData.getBody() != null) {
+                byte[] body = responseData.getBody();
 
+                vertretungsplan = (responseData.getModel() != null)
+                        ? (Vertretungsplan)responseData.getModel()
+                        : Vertretungsplan.decoder.decode(ByteBuffer.wrap(body));
+
+                cache.storeRecord(grade, new CacheRecord(body, vertretungsplan.getDigest(), responseData.getHttpStatusCode()));
+
+                ModelCache.getInstance().put(grade, vertretungsplan.getDigest(), vertretungsplan, body.length);
+                WidgetSnapshot.store(grade, vertretungsplan);
+            } else if (responseData.getModel() != null) {
+                // Projected from full schedule, nothing to cache.
+                vertretungsplan = (Vertretungsplan)responseData.getModel();
+                WidgetSnapshot.storeIfMissing(grade, vertretungsplan);
+            } else {
+                vertretungsplan = ModelCache.getInstance().get(grade, Vertretungsplan.decoder);
+                WidgetSnapshot.storeIfMissing(grade, vertretungsplan);
+            }
+
+            // Compare with schedule on display, dashboard then needs to update changed dates only.
+            VertretungsplanDiff diff = (previous != null) ? VertretungsplanDiff.compute(previous, vertretungsplan) : null;
+            return new DashboardViewModel(vertretungsplan, diff, new Date());
+        }
+
+        @Override
+        protected void onViewModel(DashboardViewModel dashboardViewModel) {
+            mFragment.setRefreshing(false);
+            mProgressBar.setVisibility(View.INVISIBLE);
+
+            // Update widget when new data has been loaded.
+            Context context = pius_app_for_android.getAppContext();
+            DashboardWidgetUpdateWorker.enqueue(context);
+
+            try {
+                if (getActivity() != null && !getActivity().isFinishing()) {
+                    DashboardViewModel previousViewModel = viewModel;
+                    viewModel = dashboardViewModel;
                     setMetaData();
                     setLastUpdate();
-                    setVertretungsplanList();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    new AlertDialog.Builder(Objects.requireNonNull(getContext()), R.style.AlertDialogTheme)
-                            .setTitle(getResources().getString(R.string.title_dashboard))
-                            .setMessage(getResources().getString(R.string.error_failed_to_load_data))
-                            .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
-                                @Override
-                                public void onClick(DialogInterface dialog, int which) {
-                                    if (getFragmentManager() != null) {
-                                        getFragmentManager().popBackStack();
-                                    }
-                                }
-                            })
-                            .show();
+                    setVertretungsplanList(previousViewModel, previous);
+                    showChanges();
+                }
+            } catch (IllegalStateException e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        protected void onFailure(HttpResponseData responseData) {
+            mFragment.setRefreshing(false);
+            mProgressBar.setVisibility(View.INVISIBLE);
+
+            try {
+                if (getActivity() != null && !getActivity().isFinishing()) {
+                    showError();
                 }
+            } catch (IllegalStateException e) {
+                e.printStackTrace();
             }
-        } catch (IllegalStateException e) {
-            e.printStackTrace();
         }
     }
 
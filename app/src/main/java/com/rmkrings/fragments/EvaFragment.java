@@ -25,7 +25,7 @@ import com.rmkrings.data.eva.EvaDateItem;
 import com.rmkrings.data.eva.EvaItem;
 import com.rmkrings.helper.AppDefaults;
 import com.rmkrings.helper.Cache;
-import com.rmkrings.helper.Config;
+import com.rmkrings.helper.CacheRecord;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.loader.CalendarLoader;
@@ -33,8 +33,7 @@ import com.rmkrings.loader.EvaLoader;
 import com.rmkrings.activities.R;
 import com.rmkrings.pius_app_for_android;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.logging.Logger;
@@ -49,8 +48,7 @@ public class EvaFragment extends Fragment implements HttpResponseCallback {
     private EvaListAdapter mEvaListAdapter;
 
     // Local State
-    private final String digestFileName = Config.digestFilename("eva");
-    private final String cacheFileName = Config.cacheFilename("eva");
+    private final String cacheName = "eva";
 
     private final Cache cache = new Cache();
     private Eva eva;
@@ -115,11 +113,9 @@ public class EvaFragment extends Fragment implements HttpResponseCallback {
     private void reload() {
         String digest;
 
-        if (cache.fileExists(cacheFileName) && cache.fileExists(digestFileName)) {
-            digest = cache.read(digestFileName);
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName));
-            digest = null;
+        digest = cache.getDigest(cacheName);
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", cacheName));
         }
 
         EvaLoader evaLoader = new EvaLoader(AppDefaults.getGradeSetting());
@@ -139,8 +135,7 @@ public class EvaFragment extends Fragment implements HttpResponseCallback {
     @SuppressLint("DefaultLocale")
     @Override
     public void execute(HttpResponseData responseData) {
-        String data;
-        JSONObject jsonData;
+        ByteBuffer data;
 
         mProgressBar.setVisibility(View.INVISIBLE);
 
@@ -170,19 +165,15 @@ public class EvaFragment extends Fragment implements HttpResponseCallback {
         /*
          * Loading was ok. Update interal cache and hash value and refresh EVA list view.
          */
-        if (responseData.getData() != null) {
-            data = responseData.getData();
-            cache.store(cacheFileName, data);
-        } else {
-            data = cache.read(cacheFileName);
-        }
+        data = (responseData.getBody() != null) ? ByteBuffer.wrap(responseData.getBody()) : cache.readPayload(cacheName);
 
         try {
-            jsonData = new JSONObject(data);
-            eva = new Eva(jsonData);
+            eva = (responseData.getModel() != null)
+                    ? (Eva)responseData.getModel()
+                    : Eva.decoder.decode(Objects.requireNonNull(data));
 
-            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && eva.getDigest() != null) {
-                cache.store(digestFileName, eva.getDigest());
+            if (responseData.getBody() != null) {
+                cache.storeRecord(cacheName, new CacheRecord(responseData.getBody(), eva.getDigest(), responseData.getHttpStatusCode()));
             }
 
             setEvaList();
@@ -19,7 +19,7 @@ import com.rmkrings.data.calendar.CalendarListItem;
 import com.rmkrings.data.calendar.CalendarMessage;
 import com.rmkrings.data.calendar.DayItem;
 import com.rmkrings.helper.Cache;
-import com.rmkrings.helper.Config;
+import com.rmkrings.helper.CacheRecord;
 import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.interfaces.ParentFragment;
@@ -27,9 +27,9 @@ import com.rmkrings.loader.CalendarLoader;
 import com.rmkrings.activities.R;
 import com.rmkrings.pius_app_for_android;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.Logger;
 
@@ -40,8 +40,7 @@ public class TodayCalendarFragment extends Fragment implements HttpResponseCallb
     private CalendarSearchListAdapter mCalendarSearchListAdapter;
 
     // Local State
-    private final String digestFileName = Config.digestFilename("calendar");
-    private final String cacheFileName = Config.cacheFilename("calendar");
+    private final String cacheName = "calendar";
     private final Cache cache = new Cache();
     private Calendar calendar;
     private final ArrayList<CalendarListItem> dateList = new ArrayList<>();
@@ -106,7 +105,7 @@ public class TodayCalendarFragment extends Fragment implements HttpResponseCallb
      */
     private void setDateList() {
         if (isAdded() && getFragmentManager() != null && !getFragmentManager().isStateSaved()) {
-            ArrayList<DayItem> list = calendar.getTodayEvents();
+            List<DayItem> list = calendar.getTodayEvents();
 
             // Nothing in calendar for today. Hide calendar fragment.
             if (list.size() == 0) {
@@ -122,7 +121,7 @@ public class TodayCalendarFragment extends Fragment implements HttpResponseCallb
                         .commit();
 
                 dateList.clear();
-                for (DayItem dayItem : calendar.getTodayEvents()) {
+                for (DayItem dayItem : list) {
                     dateList.add(new CalendarMessage(dayItem.getEvent()));
                 }
                 mCalendarSearchListAdapter.notifyDataSetChanged();
@@ -154,11 +153,9 @@ public class TodayCalendarFragment extends Fragment implements HttpResponseCallb
     private void reload() {
         String digest;
 
-        if (cache.fileExists(cacheFileName) && cache.fileExists(digestFileName)) {
-            digest = cache.read(digestFileName);
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName));
-            digest = null;
+        digest = cache.getDigest(cacheName);
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", cacheName));
         }
 
         CalendarLoader calendarLoader = new CalendarLoader();
@@ -175,8 +172,7 @@ public class TodayCalendarFragment extends Fragment implements HttpResponseCallb
     @Override
     public void execute(HttpResponseData responseData) {
         try {
-            String data;
-            JSONObject jsonData;
+            ByteBuffer data;
 
             if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
                 logger.severe(String.format("Failed to load data for Calendar. HTTP Status code %d.", responseData.getHttpStatusCode()));
@@ -184,18 +180,14 @@ public class TodayCalendarFragment extends Fragment implements HttpResponseCallb
                 return;
             }
 
-            if (responseData.getData() != null) {
-                data = responseData.getData();
-                cache.store(cacheFileName, data);
-            } else {
-                data = cache.read(cacheFileName);
-            }
+            data = (responseData.getBody() != null) ? ByteBuffer.wrap(responseData.getBody()) : cache.readPayload(cacheName);
 
-            jsonData = new JSONObject(data);
-            calendar = new Calendar(jsonData);
+            calendar = (responseData.getModel() != null)
+                    ? (Calendar)responseData.getModel()
+                    : Calendar.decoder.decode(Objects.requireNonNull(data));
 
-            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && calendar.getDigest() != null) {
-                cache.store(digestFileName, calendar.getDigest());
+            if (responseData.getBody() != null) {
+                cache.storeRecord(cacheName, new CacheRecord(responseData.getBody(), calendar.getDigest(), responseData.getHttpStatusCode()));
             }
 
             setDateList();
@@ -2,7 +2,6 @@ package com.rmkrings.fragments;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.Intent;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -20,18 +19,20 @@ import com.rmkrings.activities.R;
 import com.rmkrings.data.vertretungsplan.Vertretungsplan;
 import com.rmkrings.helper.AppDefaults;
 import com.rmkrings.helper.Cache;
+import com.rmkrings.helper.CacheRecord;
 import com.rmkrings.helper.Config;
 import com.rmkrings.helper.DateHelper;
+import com.rmkrings.helper.ModelCache;
 import com.rmkrings.http.HttpResponseData;
-import com.rmkrings.interfaces.HttpResponseCallback;
+import com.rmkrings.http.ResponsePipeline;
 import com.rmkrings.interfaces.ParentFragment;
 import com.rmkrings.loader.CalendarLoader;
 import com.rmkrings.loader.VertretungsplanLoader;
-import com.rmkrings.notifications.DashboardWidgetUpdateService;
+import com.rmkrings.notifications.DashboardWidgetUpdateWorker;
 import com.rmkrings.pius_app_for_android;
+import com.rmkrings.widgets.WidgetSnapshot;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -42,7 +43,7 @@ import java.util.logging.Logger;
 
 /**
  */
-public class TodayFragment extends Fragment implements HttpResponseCallback, ParentFragment {
+public class TodayFragment extends Fragment implements ParentFragment {
 
     // Outlets
     private SwipeRefreshLayout mFragment = null;
@@ -54,8 +55,7 @@ public class TodayFragment extends Fragment implements HttpResponseCallback, Par
 
     // Local State
     private int pendingRefreshs;
-    private String digestFileName() { return Config.digestFilename(AppDefaults.getGradeSetting()); }
-    private String cacheFileName() { return Config.cacheFilename(AppDefaults.getGradeSetting()); }
+    private String cacheName() { return AppDefaults.getGradeSetting(); }
 
     private final Cache cache = new Cache();
 
@@ -114,15 +114,11 @@ public class TodayFragment extends Fragment implements HttpResponseCallback, Par
     }
 
     private void reload(boolean refreshing) {
-        String digest;
-
         pendingRefreshs = 4;
 
-        if (cache.fileExists(cacheFileName()) && cache.fileExists(digestFileName())) {
-            digest = cache.read(digestFileName());
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName()));
-            digest = null;
+        String digest = cache.getDigest(cacheName());
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", cacheName()));
         }
 
         if (!refreshing) {
@@ -136,7 +132,7 @@ public class TodayFragment extends Fragment implements HttpResponseCallback, Par
         // call show with a null Vertretunsgplan. This will hide according box.
         if (Config.canUseDashboard()) {
             VertretungsplanLoader vertretungsplanLoader = new VertretungsplanLoader(AppDefaults.getGradeSetting());
-            vertretungsplanLoader.load(this, digest);
+            vertretungsplanLoader.load(new TodayPipeline(AppDefaults.getGradeSetting()), digest);
         } else {
             mTodayVertetungsplanFragment.show((Vertretungsplan)null, this);
         }
@@ -145,59 +141,87 @@ public class TodayFragment extends Fragment implements HttpResponseCallback, Par
         mTodayNewsFragment.show(this);
     }
 
-    @SuppressLint("DefaultLocale")
     @Override
-    public void execute(HttpResponseData responseData) {
-        String data;
-        JSONObject jsonData;
-
-        try {
-            if (getActivity() != null && !getActivity().isFinishing()) {
-                if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
-                    logger.severe(String.format("Failed to load data for news. HTTP Status code %d.", responseData.getHttpStatusCode()));
-                    mTodayVertetungsplanFragment.show(getResources().getString(R.string.error_failed_to_load_data), this);
-                    return;
-                }
+    public void notifyDoneRefreshing() {
+        pendingRefreshs -= 1;
 
-                if (responseData.getData() != null) {
-                    data = responseData.getData();
-                    cache.store(cacheFileName(), data);
-                } else {
-                    data = cache.read(cacheFileName());
-                }
+        if (pendingRefreshs <= 0) {
+            mFragment.setRefreshing(false);
+            mProgressBar.setVisibility(View.INVISIBLE);
+        }
+    }
+
+    /**
+     * Updates cache, parses response and stores widget snapshot on a worker thread.
+     * Today view gets the parsed substitution schedule, only.
+     */
+    private class TodayPipeline extends ResponsePipeline<Vertretungsplan> {
+        private final String grade;
+
+        /**
+         * @param grade - Grade to load schedule for.
+         */
+        TodayPipeline(String grade) {
+            this.grade = grade;
+        }
+
+        @SuppressLint("DefaultLocale")
+        @Override
+        protected Vertretungsplan process(HttpResponseData responseData) throws Exception {
+            Vertretungsplan vertretungsplan;
 
-                // Update widget when new data has been loaded.
-                Context context = pius_app_for_android.getAppContext();
-                Intent intent = new Intent(context, DashboardWidgetUpdateService.class);
-                context.startService(intent);
+            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
+                logger.severe(String.format("Failed to load data for Today. HTTP Status code %d.", responseData.getHttpStatusCode()));
+                return null;
+            }
 
-                try {
-                    jsonData = new JSONObject(data);
-                    Vertretungsplan vertretungsplan = new Vertretungsplan(jsonData);
+            if (responseData.getBody() != null) {
+                byte[] body = responseData.getBody();
 
-                    if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && vertretungsplan.getDigest() != null) {
-                        cache.store(digestFileName(), vertretungsplan.getDigest());
-                    }
+                vertretungsplan = (responseData.getModel() != null)
+                        ? (Vertretungsplan)responseData.getModel()
+                        : Vertretungsplan.decoder.decode(ByteBuffer.wrap(body));
 
-                    mTodayVertetungsplanFragment.show(vertretungsplan, this);
-                } catch (Exception e) {
-                    mTodayVertetungsplanFragment.show(getResources().getString(R.string.error_failed_to_load_data), this);
-                    e.printStackTrace();
-                }
+                cache.storeRecord(grade, new CacheRecord(body, vertretungsplan.getDigest(), responseData.getHttpStatusCode()));
+
+                ModelCache.getInstance().put(grade, vertretungsplan.getDigest(), vertretungsplan, body.length);
+                WidgetSnapshot.store(grade, vertretungsplan);
+            } else if (responseData.getModel() != null) {
+                // Projected from full schedule, nothing to cache.
+                vertretungsplan = (Vertretungsplan)responseData.getModel();
+                WidgetSnapshot.storeIfMissing(grade, vertretungsplan);
+            } else {
+                vertretungsplan = ModelCache.getInstance().get(grade, Vertretungsplan.decoder);
+                WidgetSnapshot.storeIfMissing(grade, vertretungsplan);
             }
+
+            return vertretungsplan;
         }
-        catch (IllegalStateException e) {
-            e.printStackTrace();
-        }
-    }
 
-    @Override
-    public void notifyDoneRefreshing() {
-        pendingRefreshs -= 1;
+        @Override
+        protected void onViewModel(Vertretungsplan vertretungsplan) {
+            // Update widget when new data has been loaded.
+            Context context = pius_app_for_android.getAppContext();
+            DashboardWidgetUpdateWorker.enqueue(context);
 
-        if (pendingRefreshs <= 0) {
-            mFragment.setRefreshing(false);
-            mProgressBar.setVisibility(View.INVISIBLE);
+            try {
+                if (getActivity() != null && !getActivity().isFinishing()) {
+                    mTodayVertetungsplanFragment.show(vertretungsplan, TodayFragment.this);
+                }
+            } catch (IllegalStateException e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        protected void onFailure(HttpResponseData responseData) {
+            try {
+                if (getActivity() != null && !getActivity().isFinishing()) {
+                    mTodayVertetungsplanFragment.show(getResources().getString(R.string.error_failed_to_load_data), TodayFragment.this);
+                }
+            } catch (IllegalStateException e) {
+                e.printStackTrace();
+            }
         }
     }
 }
@@ -22,7 +22,7 @@ import com.rmkrings.data.news.NewsItem;
 import com.rmkrings.data.news.NewsItems;
 import com.rmkrings.data.news.NewsListItem;
 import com.rmkrings.helper.Cache;
-import com.rmkrings.helper.Config;
+import com.rmkrings.helper.CacheRecord;
 import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.interfaces.ParentFragment;
@@ -33,9 +33,9 @@ import com.rmkrings.activities.R;
 import com.rmkrings.activities.WebViewActivity;
 import com.rmkrings.pius_app_for_android;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Objects;
 import java.util.logging.Logger;
 
 public class TodayNewsFragment extends Fragment implements HttpResponseCallback, ViewSelectedCallback {
@@ -44,8 +44,7 @@ public class TodayNewsFragment extends Fragment implements HttpResponseCallback,
     private NewsListAdapter mNewsListAdapter;
 
     // Local State
-    private final String digestFileName = Config.digestFilename("news");
-    private final String cacheFileName = Config.cacheFilename("news");
+    private final String cacheName = "news";
 
     private final Cache cache = new Cache();
     private NewsItems newsItems;
@@ -108,11 +107,9 @@ public class TodayNewsFragment extends Fragment implements HttpResponseCallback,
     private void reload() {
         String digest;
 
-        if (cache.fileExists(cacheFileName) && cache.fileExists(digestFileName)) {
-            digest = cache.read(digestFileName);
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName));
-            digest = null;
+        digest = cache.getDigest(cacheName);
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", cacheName));
         }
 
         NewsLoader newsLoader = new NewsLoader();
@@ -122,8 +119,7 @@ public class TodayNewsFragment extends Fragment implements HttpResponseCallback,
     @SuppressLint("DefaultLocale")
     @Override
     public void execute(HttpResponseData responseData) {
-        String data;
-        JSONObject jsonData;
+        ByteBuffer data;
 
         if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
             logger.severe(String.format("Failed to load data for news. HTTP Status code %d.", responseData.getHttpStatusCode()));
@@ -131,19 +127,15 @@ public class TodayNewsFragment extends Fragment implements HttpResponseCallback,
             return;
         }
 
-        if (responseData.getData() != null) {
-            data = responseData.getData();
-            cache.store(cacheFileName, data);
-        } else {
-            data = cache.read(cacheFileName);
-        }
+        data = (responseData.getBody() != null) ? ByteBuffer.wrap(responseData.getBody()) : cache.readPayload(cacheName);
 
         try {
-            jsonData = new JSONObject(data);
-            newsItems = new NewsItems(jsonData);
+            newsItems = (responseData.getModel() != null)
+                    ? (NewsItems)responseData.getModel()
+                    : NewsItems.decoder.decode(Objects.requireNonNull(data));
 
-            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && newsItems.getDigest() != null) {
-                cache.store(digestFileName, newsItems.getDigest());
+            if (responseData.getBody() != null) {
+                cache.storeRecord(cacheName, new CacheRecord(responseData.getBody(), newsItems.getDigest(), responseData.getHttpStatusCode()));
             }
 
             setNewsList();
@@ -19,7 +19,7 @@ import com.rmkrings.data.MessageItem;
 import com.rmkrings.data.adapter.PostingsAdapter;
 import com.rmkrings.data.postings.Postings;
 import com.rmkrings.helper.Cache;
-import com.rmkrings.helper.Config;
+import com.rmkrings.helper.CacheRecord;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.interfaces.ParentFragment;
@@ -28,8 +28,7 @@ import com.rmkrings.loader.PostingsLoader;
 import com.rmkrings.activities.R;
 import com.rmkrings.pius_app_for_android;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.logging.Logger;
@@ -41,8 +40,7 @@ public class TodayPostingsFragment extends Fragment implements HttpResponseCallb
     private PostingsAdapter mPostingsAdapter;
 
     // Local State
-    private final String digestFileName = Config.digestFilename("postings");
-    private final String cacheFileName = Config.cacheFilename("postings");
+    private final String cacheName = "postings";
     private final Cache cache = new Cache();
     private Postings postings;
     private final ArrayList<BaseListItem> itemlist = new ArrayList<>();
@@ -87,11 +85,9 @@ public class TodayPostingsFragment extends Fragment implements HttpResponseCallb
     private void reload() {
         String digest;
 
-        if (cache.fileExists(cacheFileName) && cache.fileExists(digestFileName)) {
-            digest = cache.read(digestFileName);
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName));
-            digest = null;
+        digest = cache.getDigest(cacheName);
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", cacheName));
         }
 
         final PostingsLoader postingsLoader = new PostingsLoader();
@@ -133,8 +129,7 @@ public class TodayPostingsFragment extends Fragment implements HttpResponseCallb
     @SuppressLint("DefaultLocale")
     @Override
     public void execute(HttpResponseData responseData) {
-        String data;
-        JSONObject jsonData;
+        ByteBuffer data;
 
         if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
             logger.severe(String.format("Failed to load data for Calendar. HTTP Status code %d.", responseData.getHttpStatusCode()));
@@ -142,19 +137,15 @@ public class TodayPostingsFragment extends Fragment implements HttpResponseCallb
             return;
         }
 
-        if (responseData.getData() != null) {
-            data = responseData.getData();
-            cache.store(cacheFileName, data);
-        } else {
-            data = cache.read(cacheFileName);
-        }
+        data = (responseData.getBody() != null) ? ByteBuffer.wrap(responseData.getBody()) : cache.readPayload(cacheName);
 
         try {
-            jsonData = new JSONObject(data);
-            postings = new Postings(jsonData);
+            postings = (responseData.getModel() != null)
+                    ? (Postings)responseData.getModel()
+                    : Postings.decoder.decode(Objects.requireNonNull(data));
 
-            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && postings.getDigest() != null) {
-                cache.store(digestFileName, postings.getDigest());
+            if (responseData.getBody() != null) {
+                cache.storeRecord(cacheName, new CacheRecord(responseData.getBody(), postings.getDigest(), responseData.getHttpStatusCode()));
             }
 
             setPostings();
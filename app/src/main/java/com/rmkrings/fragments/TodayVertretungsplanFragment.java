@@ -22,6 +22,8 @@ import com.rmkrings.data.vertretungsplan.VertretungsplanEvaItem;
 import com.rmkrings.data.vertretungsplan.VertretungsplanForDate;
 import com.rmkrings.data.vertretungsplan.VertretungsplanHeaderItem;
 import com.rmkrings.data.vertretungsplan.VertretungsplanRemarkItem;
+import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.CourseFilter;
 import com.rmkrings.interfaces.ParentFragment;
 import com.rmkrings.activities.R;
 import com.rmkrings.pius_app_for_android;
@@ -105,14 +107,16 @@ public class TodayVertretungsplanFragment extends Fragment {
                 }
 
                 listItems.clear();
+                final CourseFilter courseFilter = AppDefaults.getCourseFilter();
+
                 // There is only one grade item when in dashboard mode.
                 for (GradeItem g : vertretungsplanForDate.getGradeItems()) {
-                    for (String[] a : g.getVertretungsplanItems()) {
+                    for (int row = 0; row < g.size(); row++) {
                         // Check if the current item can be accepted, i.e. must be displayed.
-                        VertretungsplanHeaderItem headerItem = new VertretungsplanHeaderItem(a[2], a[0]);
-                        if (headerItem.accept()) {
-                            VertretungsplanDetailItem detailItem = new VertretungsplanDetailItem(a[1], a[3], a[4]);
-                            VertretungsplanRemarkItem remarkItem = new VertretungsplanRemarkItem(a[6]);
+                        if (courseFilter.accept(g.getCourse(row))) {
+                            VertretungsplanHeaderItem headerItem = new VertretungsplanHeaderItem(g.getCourse(row), g.getLesson(row));
+                            VertretungsplanDetailItem detailItem = new VertretungsplanDetailItem(g.getSubstitutionTypeText(row), g.getRoom(row), g.getTeacher(row));
+                            VertretungsplanRemarkItem remarkItem = new VertretungsplanRemarkItem(g.getRemark(row));
 
                             listItems.add(headerItem);
                             listItems.add(detailItem);
@@ -121,8 +125,8 @@ public class TodayVertretungsplanFragment extends Fragment {
                                 listItems.add(remarkItem);
                             }
 
-                            if (a.length > 7) {
-                                VertretungsplanEvaItem evaItem = new VertretungsplanEvaItem(a[7]);
+                            if (g.getEva(row) != null) {
+                                VertretungsplanEvaItem evaItem = new VertretungsplanEvaItem(g.getEva(row));
                                 listItems.add(evaItem);
                             }
                         }
@@ -16,21 +16,31 @@ import android.widget.TextView;
 import com.rmkrings.data.BaseListItem;
 import com.rmkrings.data.adapter.VertetungsplanDetailListAdapter;
 import com.rmkrings.data.vertretungsplan.GradeItem;
+import com.rmkrings.data.vertretungsplan.Vertretungsplan;
 import com.rmkrings.data.vertretungsplan.VertretungsplanDetailItem;
 import com.rmkrings.data.vertretungsplan.VertretungsplanEvaItem;
 import com.rmkrings.data.vertretungsplan.VertretungsplanHeaderItem;
 import com.rmkrings.data.vertretungsplan.VertretungsplanRemarkItem;
 import com.rmkrings.activities.R;
+import com.rmkrings.helper.ModelCache;
+import com.rmkrings.helper.ModelHandle;
+import com.rmkrings.http.HttpRequestEngine;
+import com.rmkrings.http.HttpResponseData;
+import com.rmkrings.interfaces.BackgroundHttpResponseCallback;
+import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.pius_app_for_android;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.logging.Logger;
 
 import static androidx.recyclerview.widget.RecyclerView.*;
 
 public class VertretungsplanDetailFragment extends Fragment {
+    private final static Logger logger = Logger.getLogger(VertretungsplanDetailFragment.class.getName());
+
     private static final String ARG_PARAM1 = "gradeItem";
-    private static final String ARG_PARAM2 = "date";
 
     // Outlets
     private TextView mDate;
@@ -38,7 +48,9 @@ public class VertretungsplanDetailFragment extends Fragment {
 
     // Local State
     private GradeItem gradeItem;
+    private boolean resolved = false;
     private String date;
+    private String grade;
     private final ArrayList<BaseListItem> list = new ArrayList<>();
 
     public VertretungsplanDetailFragment() {
@@ -49,15 +61,13 @@ public class VertretungsplanDetailFragment extends Fragment {
      * Use this factory method to create a new instance of
      * this fragment using the provided parameters.
      *
-     * @param gradeItem Parameter 1.
-     * @param date Parameter 2.
+     * @param gradeItemHandle Handle of schedule in ModelCache with date and grade as path.
      * @return A new instance of fragment VertretungsplanDetailFragment.
      */
-    public static VertretungsplanDetailFragment newInstance(GradeItem gradeItem, String date) {
+    public static VertretungsplanDetailFragment newInstance(ModelHandle gradeItemHandle) {
         VertretungsplanDetailFragment fragment = new VertretungsplanDetailFragment();
         Bundle args = new Bundle();
-        args.putSerializable(ARG_PARAM1, gradeItem);
-        args.putString(ARG_PARAM2, date);
+        args.putBundle(ARG_PARAM1, gradeItemHandle.toBundle());
         fragment.setArguments(args);
         return fragment;
     }
@@ -66,8 +76,45 @@ public class VertretungsplanDetailFragment extends Fragment {
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         if (getArguments() != null) {
-            gradeItem = (GradeItem)getArguments().getSerializable(ARG_PARAM1);
-            date = getArguments().getString(ARG_PARAM2);
+            final ModelHandle gradeItemHandle = ModelHandle.fromBundle(getArguments().getBundle(ARG_PARAM1));
+            if (gradeItemHandle != null) {
+                date = gradeItemHandle.getPath(0);
+                grade = gradeItemHandle.getPath(1);
+
+                // After process death schedule gets parsed from cache, this must not happen
+                // on main thread.
+                HttpRequestEngine.getInstance().deliver(new BackgroundHttpResponseCallback() {
+                    @Override
+                    public void execute(HttpResponseData data) {
+                        final GradeItem resolvedGradeItem = resolve(gradeItemHandle);
+
+                        HttpRequestEngine.getInstance().deliver(new HttpResponseCallback() {
+                            @Override
+                            public void execute(HttpResponseData data) {
+                                setGradeItem(resolvedGradeItem);
+                            }
+                        }, null);
+                    }
+                }, null);
+            }
+        }
+    }
+
+    /**
+     * Worker thread: Look up grade item in schedule. Schedule is shared by ModelCache and
+     * parsed from cache again after process death.
+     * @param gradeItemHandle - Handle of schedule with date and grade as path.
+     * @return Grade item or null if it is not available anymore.
+     */
+    @Nullable
+    private GradeItem resolve(ModelHandle gradeItemHandle) {
+        try {
+            Vertretungsplan vertretungsplan = ModelCache.getInstance().get(gradeItemHandle, Vertretungsplan.decoder);
+            return vertretungsplan.getGradeItem(gradeItemHandle.getPath(0), gradeItemHandle.getPath(1));
+        }
+        catch (IOException e) {
+            logger.severe(String.format("Cannot resolve %s: %s", gradeItemHandle, e.getMessage()));
+            return null;
         }
     }
 
@@ -98,13 +145,41 @@ public class VertretungsplanDetailFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
-        Objects.requireNonNull(getActivity()).setTitle(gradeItem.getGrade());
+
+        Objects.requireNonNull(getActivity()).setTitle(grade);
         BottomNavigationView mNavigationView = getActivity().findViewById(R.id.navigation);
         mNavigationView.getMenu().getItem(1).setChecked(true);
+        mDate.setText(date);
 
-        prepareVertretungsplanItems(list);
+        if (resolved) {
+            setVertretungsplanList();
+        }
+    }
 
-        mDate.setText(date);
+    /**
+     * Main thread: Receives grade item handle has been resolved to. List is shown when
+     * fragment is resumed, right away if it is already.
+     * @param gradeItem - Grade item or null if it is not available anymore.
+     */
+    private void setGradeItem(GradeItem gradeItem) {
+        this.gradeItem = gradeItem;
+        resolved = true;
+
+        if (isResumed()) {
+            setVertretungsplanList();
+        }
+    }
+
+    private void setVertretungsplanList() {
+        // Schedule has changed or cache has been cleared while app was in background.
+        if (gradeItem == null) {
+            if (getFragmentManager() != null) {
+                getFragmentManager().popBackStack();
+            }
+            return;
+        }
+
+        prepareVertretungsplanItems(list);
         mAdapter.notifyDataSetChanged();
     }
 
@@ -116,10 +191,10 @@ public class VertretungsplanDetailFragment extends Fragment {
     private void prepareVertretungsplanItems(ArrayList<BaseListItem> list) {
         list.clear();
 
-        for (String[] a: gradeItem.getVertretungsplanItems()) {
-            VertretungsplanHeaderItem headerItem = new VertretungsplanHeaderItem(a[2], a[0]);
-            VertretungsplanDetailItem detailItem = new VertretungsplanDetailItem(a[1], a[3], a[4]);
-            VertretungsplanRemarkItem remarkItem = new VertretungsplanRemarkItem(a[6]);
+        for (int row = 0; row < gradeItem.size(); row++) {
+            VertretungsplanHeaderItem headerItem = new VertretungsplanHeaderItem(gradeItem.getCourse(row), gradeItem.getLesson(row));
+            VertretungsplanDetailItem detailItem = new VertretungsplanDetailItem(gradeItem.getSubstitutionTypeText(row), gradeItem.getRoom(row), gradeItem.getTeacher(row));
+            VertretungsplanRemarkItem remarkItem = new VertretungsplanRemarkItem(gradeItem.getRemark(row));
 
             list.add(headerItem);
             list.add(detailItem);
@@ -128,8 +203,8 @@ public class VertretungsplanDetailFragment extends Fragment {
                 list.add(remarkItem);
             }
 
-            if (a.length > 7) {
-                VertretungsplanEvaItem evaItem = new VertretungsplanEvaItem(a[7]);
+            if (gradeItem.getEva(row) != null) {
+                VertretungsplanEvaItem evaItem = new VertretungsplanEvaItem(gradeItem.getEva(row));
                 list.add(evaItem);
             }
         }
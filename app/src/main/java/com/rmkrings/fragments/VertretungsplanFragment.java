@@ -27,18 +27,24 @@ import com.rmkrings.data.adapter.MetaDataAdapter;
 import com.rmkrings.data.adapter.VertretungsplanListAdapter;
 import com.rmkrings.data.vertretungsplan.GradeItem;
 import com.rmkrings.data.vertretungsplan.Vertretungsplan;
+import com.rmkrings.data.vertretungsplan.VertretungsplanProjection;
+import com.rmkrings.data.vertretungsplan.VertretungsplanViewModel;
 import com.rmkrings.helper.AppDefaults;
 import com.rmkrings.helper.Cache;
+import com.rmkrings.helper.CacheRecord;
 import com.rmkrings.helper.Config;
-import com.rmkrings.interfaces.HttpResponseCallback;
+import com.rmkrings.helper.ModelCache;
+import com.rmkrings.helper.ModelHandle;
 import com.rmkrings.http.HttpResponseData;
+import com.rmkrings.http.ResponsePipeline;
 import com.rmkrings.activities.R;
 import com.rmkrings.loader.VertretungsplanLoader;
+import com.rmkrings.notifications.DashboardWidgetUpdateWorker;
 import com.rmkrings.data.vertretungsplan.VertretungsplanForDate;
 import com.rmkrings.pius_app_for_android;
+import com.rmkrings.widgets.WidgetSnapshot;
 
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -47,7 +53,7 @@ import java.util.logging.Logger;
 
 import static androidx.recyclerview.widget.RecyclerView.*;
 
-public class VertretungsplanFragment extends Fragment implements HttpResponseCallback {
+public class VertretungsplanFragment extends Fragment {
     // Outlets
     private SwipeRefreshLayout mFragment;
     private ProgressBar mProgressBar;
@@ -58,11 +64,10 @@ public class VertretungsplanFragment extends Fragment implements HttpResponseCal
 
     // Local state.
     private Boolean reloadOnResume = true;
-    private final String digestFileName = Config.digestFilename("vertretungsplan");
-    private final String cacheFileName = Config.cacheFilename("vertretungsplan");
+    private final String cacheName = VertretungsplanProjection.FULL_SCHEDULE;
 
     private final Cache cache = new Cache();
-    private Vertretungsplan vertretungsplan;
+    private VertretungsplanViewModel viewModel;
     private final String[] metaData = new String[2];
     private final ArrayList<String> listDataHeader = new ArrayList<>(0);
     private final HashMap<String, List<String>> listDataChild = new HashMap<>(0);
@@ -102,11 +107,13 @@ public class VertretungsplanFragment extends Fragment implements HttpResponseCal
         mVertretungsplanListView.setOnChildClickListener(new ExpandableListView.OnChildClickListener() {
             @Override
             public boolean onChildClick(ExpandableListView parent, View v, int groupPosition, int childPosition, long id) {
+                Vertretungsplan vertretungsplan = viewModel.getVertretungsplan();
                 VertretungsplanForDate vertretungsplanForDate = vertretungsplan.getVertretungsplaene().get(groupPosition);
                 GradeItem gradeItem = vertretungsplanForDate.getGradeItems().get(childPosition);
+                ModelHandle gradeItemHandle = new ModelHandle(cacheName, vertretungsplan.getDigest(), vertretungsplanForDate.getDate(), gradeItem.getGrade());
 
                 FragmentTransaction transaction = fragmentActivity.getSupportFragmentManager().beginTransaction();
-                transaction.replace(R.id.frameLayout, VertretungsplanDetailFragment.newInstance(gradeItem, vertretungsplanForDate.getDate()));
+                transaction.replace(R.id.frameLayout, VertretungsplanDetailFragment.newInstance(gradeItemHandle));
                 transaction.addToBackStack(null);
                 transaction.commit();
 
@@ -175,13 +182,9 @@ public class VertretungsplanFragment extends Fragment implements HttpResponseCal
     }
 
     private void reload(boolean refreshing) {
-        String digest;
-
-        if (cache.fileExists(cacheFileName) && cache.fileExists(digestFileName)) {
-            digest = cache.read(digestFileName);
-        } else {
-            logger.info(String.format("Cache and/or digest file %s does not exist. Not sending digest.", cacheFileName));
-            digest = null;
+        String digest = cache.getDigest(cacheName);
+        if (digest == null) {
+            logger.info(String.format("No cached data for %s. Not sending digest.", cacheName));
         }
 
         if (!refreshing) {
@@ -189,35 +192,28 @@ public class VertretungsplanFragment extends Fragment implements HttpResponseCal
         }
 
         VertretungsplanLoader vertretungsplanLoader = new VertretungsplanLoader(null);
-        vertretungsplanLoader.load(this, digest);
+        vertretungsplanLoader.load(new VertretungsplanPipeline(), digest);
     }
 
     private void setMetaData() {
-        if (vertretungsplan != null) {
-            this.metaData[0] = vertretungsplan.getTickerText();
-            this.metaData[1] = vertretungsplan.getAdditionalText();
+        if (viewModel != null) {
+            this.metaData[0] = viewModel.getTickerText();
+            this.metaData[1] = viewModel.getAdditionalText();
             mAdapter.notifyDataSetChanged();
         }
     }
 
     private void setLastUpdate() {
-        if (vertretungsplan != null) {
-            mLastUpdate.setText(vertretungsplan.getLastUpdate());
+        if (viewModel != null) {
+            mLastUpdate.setText(viewModel.getLastUpdate());
         }
     }
 
     private void setVertretungsplanList() {
         listDataHeader.clear();
-        for (VertretungsplanForDate vertretungsplanForDate: vertretungsplan.getVertretungsplaene()) {
-            listDataHeader.add(vertretungsplanForDate.getDate());
-
-            List<String> grades = new ArrayList<>(0);
-            for (GradeItem gradeItem: vertretungsplanForDate.getGradeItems()) {
-                grades.add(gradeItem.getGrade());
-            }
-
-            listDataChild.put(vertretungsplanForDate.getDate(), grades);
-        }
+        listDataHeader.addAll(viewModel.getListDataHeader());
+        listDataChild.clear();
+        listDataChild.putAll(viewModel.getListDataChild());
 
         mVertretunsplanListAdapter.notifyDataSetChanged();
 
@@ -226,67 +222,80 @@ public class VertretungsplanFragment extends Fragment implements HttpResponseCal
         }
     }
 
-    @SuppressLint("DefaultLocale")
-    @Override
-    public void execute(HttpResponseData responseData) {
-        String data;
-        JSONObject jsonData;
-
-        mFragment.setRefreshing(false);
-        mProgressBar.setVisibility(View.INVISIBLE);
+    private void showError() {
+        new AlertDialog.Builder(Objects.requireNonNull(getContext()), R.style.AlertDialogTheme)
+                .setTitle(getResources().getString(R.string.title_substitution_schedule))
+                .setMessage(getResources().getString(R.string.error_failed_to_load_data))
+                .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        if (getFragmentManager() != null) {
+                            getFragmentManager().popBackStack();
+                        }
+                    }
+                })
+                .show();
+    }
 
-        if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
-            if (getActivity() != null && !getActivity().isFinishing()) {
+    /**
+     * Updates cache, parses response and builds list of dates and grades on a worker thread.
+     */
+    private class VertretungsplanPipeline extends ResponsePipeline<VertretungsplanViewModel> {
+        @SuppressLint("DefaultLocale")
+        @Override
+        protected VertretungsplanViewModel process(HttpResponseData responseData) throws Exception {
+            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
                 logger.severe(String.format("Failed to load data for Vertretungsplan. HTTP Status code %d.", responseData.getHttpStatusCode()));
-                new AlertDialog.Builder(Objects.requireNonNull(getContext()), R.style.AlertDialogTheme)
-                        .setTitle(getResources().getString(R.string.title_substitution_schedule))
-                        .setMessage(getResources().getString(R.string.error_failed_to_load_data))
-                        .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
-                            @Override
-                            public void onClick(DialogInterface dialog, int which) {
-                                if (getFragmentManager() != null) {
-                                    getFragmentManager().popBackStack();
-                                }
-                            }
-                        })
-                        .show();
+                return null;
             }
-            return;
-        }
 
-        if (responseData.getData() != null) {
-            data = responseData.getData();
-            cache.store(cacheFileName, data);
-        } else {
-            data = cache.read(cacheFileName);
-        }
+            Vertretungsplan vertretungsplan;
+
+            if (responseData.getBody() != null) {
+                vertretungsplan = (responseData.getModel() != null)
+                        ? (Vertretungsplan)responseData.getModel()
+                        : Vertretungsplan.decoder.decode(ByteBuffer.wrap(responseData.getBody()));
 
-        try {
-            jsonData = new JSONObject(data);
-            vertretungsplan = new Vertretungsplan(jsonData);
+                cache.storeRecord(cacheName, new CacheRecord(responseData.getBody(), vertretungsplan.getDigest(), responseData.getHttpStatusCode()));
 
-            if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 304 && vertretungsplan.getDigest() != null) {
-                cache.store(digestFileName, vertretungsplan.getDigest());
+                // Dashboard and widget project their schedules from this one, detail view
+                // is handed a handle of it.
+                ModelCache.getInstance().put(cacheName, vertretungsplan.getDigest(), vertretungsplan, responseData.getBody().length);
+
+                if (Config.canUseDashboard()) {
+                    final String grade = AppDefaults.getGradeSetting();
+                    WidgetSnapshot.store(grade, vertretungsplan.forGrade(grade));
+                }
+
+                Context context = pius_app_for_android.getAppContext();
+                DashboardWidgetUpdateWorker.enqueue(context);
+            } else if (responseData.getModel() != null) {
+                vertretungsplan = (Vertretungsplan)responseData.getModel();
+            } else {
+                vertretungsplan = ModelCache.getInstance().get(cacheName, Vertretungsplan.decoder);
             }
 
+            return new VertretungsplanViewModel(vertretungsplan);
+        }
+
+        @Override
+        protected void onViewModel(VertretungsplanViewModel vertretungsplanViewModel) {
+            mFragment.setRefreshing(false);
+            mProgressBar.setVisibility(View.INVISIBLE);
+
+            viewModel = vertretungsplanViewModel;
             setMetaData();
             setLastUpdate();
             setVertretungsplanList();
-        } catch (Exception e) {
-            e.printStackTrace();
+        }
+
+        @Override
+        protected void onFailure(HttpResponseData responseData) {
+            mFragment.setRefreshing(false);
+            mProgressBar.setVisibility(View.INVISIBLE);
+
             if (getActivity() != null && !getActivity().isFinishing()) {
-                new AlertDialog.Builder(Objects.requireNonNull(getContext()), R.style.AlertDialogTheme)
-                        .setTitle(getResources().getString(R.string.title_substitution_schedule))
-                        .setMessage(getResources().getString(R.string.error_failed_to_load_data))
-                        .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
-                            @Override
-                            public void onClick(DialogInterface dialog, int which) {
-                                if (getFragmentManager() != null) {
-                                    getFragmentManager().popBackStack();
-                                }
-                            }
-                        })
-                        .show();
+                showError();
             }
         }
     }
@@ -15,6 +15,9 @@ public class AppDefaults {
     static private final SharedPreferences sharedPreferences = pius_app_for_android.getAppContext().getSharedPreferences("com.rmkrings.pius_app", Context.MODE_PRIVATE);
     static private final SharedPreferences.Editor edit = sharedPreferences.edit();
 
+    // Compiled from grade and course list, dropped whenever one of these changes.
+    static private CourseFilter courseFilter;
+
     static SharedPreferences getSharedPreferences() {
         return sharedPreferences;
     }
@@ -81,6 +84,7 @@ public class AppDefaults {
     public static void setSelectedGradeRow(int gradeRow) {
         edit.putInt("selectedGradeRow", gradeRow);
         edit.commit();
+        invalidateCourseFilter();
     }
 
     public static boolean hasGrade() {
@@ -106,6 +110,7 @@ public class AppDefaults {
     public static void setSelectedClassRow(int classRow) {
         edit.putInt("selectedClassRow", classRow);
         edit.commit();
+        invalidateCourseFilter();
     }
 
     public static String getGradeSetting() {
@@ -130,17 +135,36 @@ public class AppDefaults {
     public static void setUsername(String username) {
         edit.putString("username", username);
         edit.commit();
+        CredentialSession.invalidate();
     }
 
     public static String getPassword() {
+        return CredentialSession.getPassword();
+    }
+
+    /**
+     * Decrypt stored password. This is expensive as it needs Keystore access, use
+     * getPassword() which unlocks password once per process.
+     * @return Decrypted password or empty string.
+     */
+    static String decryptPassword() {
         try {
-            Crypto crypto = new Crypto();
+            Crypto crypto = Crypto.getInstance();
             String encryptedPassword = sharedPreferences.getString("password", "");
             if ("".equals(encryptedPassword)) {
                 return "";
             }
 
-            return crypto.decrypt(encryptedPassword);
+            String password = crypto.decrypt(encryptedPassword);
+
+            // Password has been stored by an older app version with AES/ECB. Re-encrypt once
+            // with authenticated mode.
+            if (crypto.isLegacy(encryptedPassword)) {
+                edit.putString("password", crypto.encrypt(password));
+                edit.commit();
+            }
+
+            return password;
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -150,7 +174,7 @@ public class AppDefaults {
 
     public static void setPassword(String password) {
         try {
-            Crypto crypto = new Crypto();
+            Crypto crypto = Crypto.getInstance();
             String encryptedPassword = crypto.encrypt(password);
             edit.putString("password", encryptedPassword);
             edit.commit();
@@ -158,6 +182,9 @@ public class AppDefaults {
         catch (Exception e) {
             e.printStackTrace();
         }
+        finally {
+            CredentialSession.invalidate();
+        }
     }
 
     /*
@@ -167,6 +194,7 @@ public class AppDefaults {
         Set<String> s = new HashSet<>(courseList);
         edit.putStringSet("courseList", s);
         edit.commit();
+        invalidateCourseFilter();
     }
 
     public static ArrayList<String> getCourseList() {
@@ -174,6 +202,22 @@ public class AppDefaults {
         return (s != null) ? new ArrayList<>(s) : new ArrayList<>();
     }
 
+    /**
+     * Filter for substitution rows compiled from current grade and course list.
+     * @return Shared filter, rebuilt only after grade or course list have changed.
+     */
+    public static synchronized CourseFilter getCourseFilter() {
+        if (courseFilter == null) {
+            courseFilter = CourseFilter.compile(getGradeSetting(), getCourseList());
+        }
+
+        return courseFilter;
+    }
+
+    private static synchronized void invalidateCourseFilter() {
+        courseFilter = null;
+    }
+
     /*
      * Version Code
      */
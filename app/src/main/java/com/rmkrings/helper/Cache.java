@@ -1,63 +1,462 @@
 package com.rmkrings.helper;
 
-import android.content.Context;
-
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import com.rmkrings.pius_app_for_android;
 
+/**
+ * File cache in app's private files directory. Files are read with a single sized read,
+ * large files get memory mapped. Files are written to a temporary file first which then
+ * atomically replaces the old version, thus readers never see a partially written file.
+ *
+ * Datasets loaded from backend are stored as CacheRecord, one file per dataset. Digests and
+ * fetch times of all records are kept in memory, thus conditional requests can be built
+ * without disk access. Records are written behind on a dedicated I/O thread; until a record
+ * has been written readers get it from the write queue.
+ *
+ * The index is loaded on app start in background. Until it has been loaded a dataset that has
+ * not been seen yet is looked up by reading its record's header, thus callers never wait for
+ * the whole cache directory to be read. Payload and digest files of former app versions are
+ * converted into records when they are found.
+ */
 public class Cache {
     private final static Logger logger = Logger.getLogger(Cache.class.getName());
 
-    public boolean fileExists(String filename) {
-        File file = pius_app_for_android.getAppContext().getFileStreamPath(filename);
-        return file.exists();
+    // Files larger than this are memory mapped instead of being copied into heap.
+    private static final long MMAP_THRESHOLD = 128 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String RECORD_SUFFIX = ".rec";
+    private static final String LEGACY_PAYLOAD_SUFFIX = ".json";
+    private static final String LEGACY_DIGEST_SUFFIX = ".md5";
+
+    // Digest by dataset name of all cache records known so far, empty string if a record has
+    // no digest. Once index has been loaded this holds all records.
+    private static final HashMap<String, String> digestIndex = new HashMap<>();
+
+    // Fetch time by dataset name of all cache records known so far.
+    private static final HashMap<String, Long> fetchTimes = new HashMap<>();
+
+    // Datasets that have been looked up but have no record; only used until index has been loaded.
+    private static final HashSet<String> missingRecords = new HashSet<>();
+    private static boolean indexLoaded = false;
+
+    // Serializes writing of record files by cache writer and by conversion of legacy files.
+    private static final Object recordFileLock = new Object();
+
+    private static final WriteBehindQueue<CacheRecord> writeQueue = new WriteBehindQueue<CacheRecord>("Cache writer") {
+        @Override
+        protected void write(String name, CacheRecord record) {
+            final boolean written;
+
+            synchronized (recordFileLock) {
+                written = new Cache().store(Config.recordFilename(name), record.toBytes());
+            }
+
+            if (!written) {
+                // Do not announce a digest for data we do not have. A record that has been
+                // stored meanwhile is still pending and stays announced.
+                final String digest = (record.getDigest() != null) ? record.getDigest() : "";
+
+                synchronized (Cache.class) {
+                    final Long fetchedAt = fetchTimes.get(name);
+                    if (digest.equals(digestIndex.get(name)) && fetchedAt != null && fetchedAt == record.getFetchedAt()) {
+                        digestIndex.remove(name);
+                        fetchTimes.remove(name);
+                    }
+                }
+            }
+        }
+    };
+
+    private File getFile(String filename) {
+        return pius_app_for_android.getAppContext().getFileStreamPath(filename);
+    }
+
+    /**
+     * Store bytes under given filename in cache directory. The file is replaced atomically.
+     * This method writes synchronously, use storeRecord() for data loaded from backend.
+     * @param filename - Name of cache file.
+     * @param data - Content to store.
+     * @return true on success.
+     */
+    public boolean store(String filename, byte[] data) {
+        final File file = getFile(filename);
+        final File tempFile = new File(file.getParentFile(), filename + TEMP_SUFFIX);
+
+        try {
+            FileOutputStream outputStream = new FileOutputStream(tempFile);
+            try {
+                FileChannel channel = outputStream.getChannel();
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            finally {
+                outputStream.close();
+            }
+
+            if (!tempFile.renameTo(file)) {
+                throw new IOException(String.format("Cannot rename %s", tempFile.getName()));
+            }
+
+            return true;
+        }
+        catch (IOException e) {
+            logger.severe(String.format("Failed to write to file %s: %s", filename, e.toString()));
+
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return false;
+        }
     }
 
-    // Store data under given filename in cache directory.
-    public void store(String filename, String data) {
+    /**
+     * Read content of file in cache directory. Small files are read into a heap buffer with
+     * a single read, files above MMAP_THRESHOLD are memory mapped read-only.
+     * @param filename - Name of cache file.
+     * @return Buffer positioned at file start or null if file cannot be read.
+     */
+    public ByteBuffer readBuffer(String filename) {
         try {
-            OutputStreamWriter writer = new OutputStreamWriter(pius_app_for_android.getAppContext().openFileOutput(filename, Context.MODE_PRIVATE));
-            BufferedWriter bw = new BufferedWriter(writer);
-            bw.write(data);
-            bw.close();
+            FileInputStream inputStream = new FileInputStream(getFile(filename));
+            try {
+                FileChannel channel = inputStream.getChannel();
+                long size = channel.size();
+
+                if (size > MMAP_THRESHOLD) {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate((int)size);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    // Keep on reading until buffer is full.
+                }
+
+                buffer.flip();
+                return buffer;
+            }
+            finally {
+                inputStream.close();
+            }
         }
         catch (java.io.FileNotFoundException e) {
             logger.severe(String.format("Failed to open file %s: File not found.", filename));
         }
-        catch (java.io.IOException e) {
-            logger.severe(String.format("Failed to write to file %s: %s", filename, e.toString()));
+        catch (IOException e) {
+            logger.severe(String.format("Failed to read from file %s: %s", filename, e.toString()));
+        }
+
+        return null;
+    }
+
+    /**
+     * Read content of file in cache directory as bytes.
+     * @param filename - Name of cache file.
+     * @return File content or null if file cannot be read.
+     */
+    public byte[] readBytes(String filename) {
+        ByteBuffer buffer = readBuffer(filename);
+        if (buffer == null) {
+            return null;
+        }
+
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Load digests of all cache records into memory. Called once on app start in
+     * background. Legacy payload and digest files get converted into records.
+     */
+    public static void loadDigestIndex() {
+        final File[] files = pius_app_for_android.getAppContext().getFilesDir().listFiles();
+        final HashSet<String> names = new HashSet<>();
+
+        if (files != null) {
+            for (File file : files) {
+                final String filename = file.getName();
+
+                for (String suffix : new String[] { RECORD_SUFFIX, LEGACY_PAYLOAD_SUFFIX, LEGACY_DIGEST_SUFFIX }) {
+                    if (filename.endsWith(suffix)) {
+                        names.add(filename.substring(0, filename.length() - suffix.length()));
+                    }
+                }
+            }
+        }
+
+        for (String name : names) {
+            addToIndex(name, readRecordHeader(name));
+        }
+
+        synchronized (Cache.class) {
+            indexLoaded = true;
+            missingRecords.clear();
+            logger.info(String.format("Loaded digests of %d cache records.", digestIndex.size()));
+        }
+    }
+
+    /**
+     * Make sure dataset is in index when it has a record. Until index has been loaded the
+     * record's header is read, which is one small read instead of reading all records.
+     * @param name - Dataset name.
+     */
+    private static void lookUp(String name) {
+        synchronized (Cache.class) {
+            if (indexLoaded || digestIndex.containsKey(name) || missingRecords.contains(name)) {
+                return;
+            }
+        }
+
+        final ByteBuffer header = readRecordHeader(name);
+
+        synchronized (Cache.class) {
+            if (!indexLoaded && header == null && !digestIndex.containsKey(name)) {
+                missingRecords.add(name);
+            }
+        }
+
+        addToIndex(name, header);
+    }
+
+    /**
+     * Add record read from disk to index. A dataset that has been stored meanwhile is kept
+     * as it is, its record on disk is outdated.
+     * @param name - Dataset name.
+     * @param header - Header of dataset's record, null if there is none.
+     */
+    private static void addToIndex(String name, ByteBuffer header) {
+        if (header == null) {
+            return;
+        }
+
+        final String digest = CacheRecord.readHeader(header);
+
+        synchronized (Cache.class) {
+            if (!digestIndex.containsKey(name)) {
+                digestIndex.put(name, (digest != null) ? digest : "");
+                fetchTimes.put(name, header.getLong(4));
+            }
         }
     }
 
-    // Read data from filename in cache directory. If data cannot
-    // be read returns nil. Supposes that file content is a string.
-    public String read(String filename) {
-        String d;
-        StringBuilder data = new StringBuilder();
+    /**
+     * Read header of dataset's record. When there is no record but a payload file of a
+     * former app version it gets converted into a record first.
+     * @param name - Dataset name.
+     * @return Header positioned at record start or null if there is no valid record.
+     */
+    private static ByteBuffer readRecordHeader(String name) {
+        final Cache cache = new Cache();
+        final File file = cache.getFile(Config.recordFilename(name));
+
+        synchronized (recordFileLock) {
+            cache.convertLegacyFiles(name, file);
+        }
+
+        if (!file.exists()) {
+            return null;
+        }
 
         try {
-            InputStreamReader reader = new InputStreamReader(pius_app_for_android.getAppContext().openFileInput(filename));
-            BufferedReader br = new BufferedReader(reader);
+            final ByteBuffer header = readHeader(file);
+            CacheRecord.readHeader(header.duplicate());
+            return header;
+        }
+        catch (IOException | IllegalArgumentException e) {
+            logger.warning(String.format("Ignoring invalid cache record %s: %s", file.getName(), e.toString()));
+            return null;
+        }
+    }
+
+    /**
+     * Payload and digest used to be stored in separate files. Store them as record unless
+     * dataset already has one, then remove them. Fetch time is taken from payload file,
+     * HTTP status is assumed to be 200 as only successful responses got cached.
+     * @param name - Dataset name.
+     * @param recordFile - File of dataset's record.
+     */
+    private void convertLegacyFiles(String name, File recordFile) {
+        final File payloadFile = getFile(name + LEGACY_PAYLOAD_SUFFIX);
+        final File digestFile = getFile(name + LEGACY_DIGEST_SUFFIX);
+
+        if (!payloadFile.exists() && !digestFile.exists()) {
+            return;
+        }
+
+        if (payloadFile.exists() && !recordFile.exists()) {
+            final byte[] payload = readBytes(payloadFile.getName());
+            final byte[] digestBytes = (digestFile.exists()) ? readBytes(digestFile.getName()) : null;
+            final String digest = (digestBytes != null) ? new String(digestBytes, StandardCharsets.UTF_8).trim() : "";
+
+            if (payload == null) {
+                return;
+            }
 
-            while ((d = br.readLine()) != null) {
-                data.append(d);
+            final CacheRecord record = new CacheRecord(payload, (!digest.isEmpty()) ? digest : null, payloadFile.lastModified(), 200);
+            if (!store(recordFile.getName(), record.toBytes())) {
+                return;
             }
 
-            br.close();
+            logger.info(String.format("Converted legacy cache files of %s.", name));
         }
-        catch (java.io.FileNotFoundException e) {
-            logger.severe(String.format("Failed to open file %s: File not found.", filename));
+
+        //noinspection ResultOfMethodCallIgnored
+        payloadFile.delete();
+        //noinspection ResultOfMethodCallIgnored
+        digestFile.delete();
+    }
+
+    private static ByteBuffer readHeader(File file) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(CacheRecord.MAX_HEADER_SIZE);
+            inputStream.getChannel().read(header);
+            header.flip();
+            return header;
         }
-        catch (java.io.IOException e) {
-            logger.severe(String.format("Failed to read from file %s: %s", filename, e.toString()));
+        finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Digest of cached dataset. This is answered from memory.
+     * @param name - Dataset name.
+     * @return Digest or null if dataset is not cached or has no digest.
+     */
+    public String getDigest(String name) {
+        lookUp(name);
+
+        synchronized (Cache.class) {
+            String digest = digestIndex.get(name);
+            return (digest != null && !digest.isEmpty()) ? digest : null;
         }
+    }
+
+    /**
+     * Find dataset that has been cached with given digest. This is answered from memory;
+     * until index has been loaded only datasets that have been looked up are searched, which
+     * includes any dataset whose digest has been got from getDigest().
+     * @param digest - Digest to look for.
+     * @return Name of dataset or null if no record has this digest.
+     */
+    public String findRecord(String digest) {
+        synchronized (Cache.class) {
+            for (Map.Entry<String, String> entry : digestIndex.entrySet()) {
+                if (entry.getValue().equals(digest)) {
+                    return entry.getKey();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Time cached dataset has been fetched from backend. This is answered from memory.
+     * @param name - Dataset name.
+     * @return Epoch time in milliseconds or 0 if dataset is not cached.
+     */
+    public long getFetchedAt(String name) {
+        lookUp(name);
+
+        synchronized (Cache.class) {
+            Long fetchedAt = fetchTimes.get(name);
+            return (fetchedAt != null) ? fetchedAt : 0;
+        }
+    }
+
+    /**
+     * Checks if dataset is cached. This is answered from memory.
+     * @param name - Dataset name.
+     * @return true if there is a cache record for dataset.
+     */
+    public boolean hasRecord(String name) {
+        lookUp(name);
+
+        synchronized (Cache.class) {
+            return digestIndex.containsKey(name);
+        }
+    }
+
+    /**
+     * Store dataset as a single cache record. The record is written on cache's I/O thread,
+     * thus this method does not block on disk access. The record is visible to readers
+     * immediately.
+     * @param name - Dataset name.
+     * @param record - Record to store.
+     */
+    public void storeRecord(String name, CacheRecord record) {
+        ModelCache.getInstance().invalidate(name);
+
+        synchronized (Cache.class) {
+            digestIndex.put(name, (record.getDigest() != null) ? record.getDigest() : "");
+            fetchTimes.put(name, record.getFetchedAt());
+            writeQueue.enqueue(name, record);
+        }
+    }
+
+    /**
+     * Block until all records stored so far have been written to disk.
+     * @throws InterruptedException when waiting thread gets interrupted.
+     */
+    public void flush() throws InterruptedException {
+        writeQueue.flush();
+    }
+
+    /**
+     * Read cache record of dataset.
+     * @param name - Dataset name.
+     * @return Record or null if dataset is not cached or record cannot be read.
+     */
+    public CacheRecord readRecord(String name) {
+        if (!hasRecord(name)) {
+            return null;
+        }
+
+        final CacheRecord pendingRecord = writeQueue.getPending(name);
+        if (pendingRecord != null) {
+            return pendingRecord;
+        }
+
+        final String filename = Config.recordFilename(name);
+        final ByteBuffer buffer = readBuffer(filename);
+        if (buffer == null) {
+            return null;
+        }
+
+        final CacheRecord record = CacheRecord.fromBuffer(buffer);
+        if (record == null) {
+            logger.severe(String.format("Cache record %s is invalid.", filename));
+        }
+
+        return record;
+    }
 
-        return data.toString();
+    /**
+     * Read payload of cached dataset.
+     * @param name - Dataset name.
+     * @return Payload or null if dataset is not cached.
+     */
+    public ByteBuffer readPayload(String name) {
+        final CacheRecord record = readRecord(name);
+        return (record != null) ? record.getPayload() : null;
     }
 }
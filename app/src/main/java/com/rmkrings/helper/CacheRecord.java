@@ -0,0 +1,132 @@
+package com.rmkrings.helper;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A dataset as stored in cache: payload as received from backend together with its digest,
+ * the time it has been fetched, the HTTP status it has been delivered with and its size.
+ * All of this is kept in one file, thus payload and digest cannot disagree.
+ *
+ * File layout: magic, fetch timestamp (long), HTTP status (int), digest length (int),
+ * digest (UTF-8), payload size (int), payload.
+ */
+public final class CacheRecord {
+    private static final int MAGIC = 0x50415231; // "PAR1"
+
+    // Enough to read header up to and including any sane digest.
+    static final int MAX_HEADER_SIZE = 256;
+
+    private final ByteBuffer payload;
+    private final String digest;
+    private final long fetchedAt;
+    private final int httpStatus;
+
+    public CacheRecord(byte[] payload, String digest, int httpStatus) {
+        this(ByteBuffer.wrap(payload), digest, System.currentTimeMillis(), httpStatus);
+    }
+
+    CacheRecord(byte[] payload, String digest, long fetchedAt, int httpStatus) {
+        this(ByteBuffer.wrap(payload), digest, fetchedAt, httpStatus);
+    }
+
+    private CacheRecord(ByteBuffer payload, String digest, long fetchedAt, int httpStatus) {
+        this.payload = payload;
+        this.digest = digest;
+        this.fetchedAt = fetchedAt;
+        this.httpStatus = httpStatus;
+    }
+
+    /**
+     * @return Read-only view of payload positioned at payload start.
+     */
+    public ByteBuffer getPayload() {
+        return payload.asReadOnlyBuffer();
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public int getSize() {
+        return payload.remaining();
+    }
+
+    /**
+     * Serialize record into file format.
+     * @return Bytes to write to cache file.
+     */
+    byte[] toBytes() {
+        final byte[] digestBytes = (digest != null) ? digest.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        final ByteBuffer p = getPayload();
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 4 + 4 + digestBytes.length + 4 + p.remaining());
+
+        buffer.putInt(MAGIC);
+        buffer.putLong(fetchedAt);
+        buffer.putInt(httpStatus);
+        buffer.putInt(digestBytes.length);
+        buffer.put(digestBytes);
+        buffer.putInt(p.remaining());
+        buffer.put(p);
+
+        return buffer.array();
+    }
+
+    /**
+     * Read record from file content. The payload is not copied, i.e. it is a slice of the
+     * buffer passed in.
+     * @param buffer - File content.
+     * @return Record or null if buffer does not hold a valid record.
+     */
+    static CacheRecord fromBuffer(ByteBuffer buffer) {
+        try {
+            final int start = buffer.position();
+            final String digest = readHeader(buffer);
+            final long fetchedAt = buffer.getLong(start + 4);
+            final int httpStatus = buffer.getInt(start + 12);
+            final int size = buffer.getInt();
+
+            if (size < 0 || size != buffer.remaining()) {
+                return null;
+            }
+
+            return new CacheRecord(buffer.slice(), digest, fetchedAt, httpStatus);
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read header up to and including digest.
+     * @param buffer - Buffer holding at least the header; position is moved to payload size.
+     * @return Digest, null if record has no digest.
+     * @throws IllegalArgumentException if buffer does not start with a valid header.
+     */
+    static String readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a cache record");
+        }
+
+        buffer.getLong();
+        buffer.getInt();
+
+        final int digestLength = buffer.getInt();
+        if (digestLength < 0 || digestLength > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid digest length");
+        }
+
+        final byte[] digestBytes = new byte[digestLength];
+        buffer.get(digestBytes);
+        return (digestLength > 0) ? new String(digestBytes, StandardCharsets.UTF_8) : null;
+    }
+}
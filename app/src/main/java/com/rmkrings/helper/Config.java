@@ -62,18 +62,11 @@ public class Config {
     }
 
     /**
-     * This is a shortcut for String.format("%s.md5", pattern)
+     * This is a shortcut for String.format("%s.rec", pattern)
      * @param pattern - Variable part of filename
      * @return - Filename
      */
-    public static String digestFilename(String pattern) { return String.format("%s.md5", pattern); }
-
-    /**
-     * This is a shortcut for String.format("%s.json", pattern)
-     * @param pattern - Variable part of filename
-     * @return - Filename
-     */
-    public static String cacheFilename(String pattern) { return String.format("%s.json", pattern); }
+    public static String recordFilename(String pattern) { return String.format("%s.rec", pattern); }
 
     /**
      * Checks if dashboard can be used. If it can than widget also can show data.
@@ -0,0 +1,168 @@
+package com.rmkrings.helper;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * Decides which substitution rows are shown in dashboard. The user's grade and course list
+ * are compiled once into an immutable filter; courses are normalised the way they appear
+ * in substitution schedule, i.e. without blanks and with course types abbreviated.
+ *
+ * accept() works on the course column as is. It skips blanks while reading instead of
+ * copying the string, thus filtering a schedule does not allocate.
+ */
+public final class CourseFilter {
+    // Initials a second course after "→" in a "Messe" item must start with.
+    private static final String SECOND_COURSE_INITIALS = "ABCDEFGHIJKLMNOPQRSTUVXYZ";
+
+    private static final CourseFilter acceptAll = new CourseFilter(null);
+
+    // Open addressing hash table of normalised courses, null if any course is accepted.
+    private final String[] courses;
+    private final int mask;
+
+    private CourseFilter(Collection<String> normalisedCourses) {
+        if (normalisedCourses == null) {
+            courses = null;
+            mask = 0;
+            return;
+        }
+
+        int size = 2;
+        while (size < 2 * normalisedCourses.size()) {
+            size <<= 1;
+        }
+
+        courses = new String[size];
+        mask = size - 1;
+
+        for (String course: normalisedCourses) {
+            int slot = course.hashCode() & mask;
+            while (courses[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            courses[slot] = course;
+        }
+    }
+
+    /**
+     * Compile filter for given settings.
+     * @param grade - Grade as returned by AppDefaults.getGradeSetting().
+     * @param courseList - Course list as returned by AppDefaults.getCourseList().
+     * @return Filter; any course is accepted when grade is not an upper grade or course list
+     *         is empty.
+     */
+    public static CourseFilter compile(String grade, Collection<String> courseList) {
+        if (!new Config().isUpperGrade(grade) || courseList.isEmpty()) {
+            return acceptAll;
+        }
+
+        final HashSet<String> normalisedCourses = new HashSet<>();
+        for (String course: courseList) {
+            normalisedCourses.add(course
+                    .replace(" ", "")
+                    .replace("GK", "G")
+                    .replace("LK", "L")
+                    .replace("ZK", "Z"));
+        }
+
+        return new CourseFilter(normalisedCourses);
+    }
+
+    /**
+     * Checks if substitution row for given course must be displayed.
+     * @param course - Course column of substitution row.
+     * @return true if row must be displayed.
+     */
+    public boolean accept(String course) {
+        if (courses == null) {
+            return true;
+        }
+
+        int start = skipBlanks(course, 0);
+        final int end = course.length();
+
+        // "Sondereinsatz": course is empty.
+        if (start == end) {
+            return true;
+        }
+
+        // "Messe": starts with "Mes", continue with optional second course after "→".
+        if (startsWith(course, start, "Mes")) {
+            final int arrow = course.indexOf('→', start);
+            if (arrow < 0) {
+                return true;
+            }
+
+            start = skipBlanks(course, arrow + 1);
+            if (start == end || SECOND_COURSE_INITIALS.indexOf(course.charAt(start)) < 0) {
+                return true;
+            }
+        }
+
+        // Alternate definition of empty course: a single capital letter.
+        final char first = course.charAt(start);
+        if (first >= 'A' && first <= 'Z' && skipBlanks(course, start + 1) == end) {
+            return true;
+        }
+
+        return contains(course, start);
+    }
+
+    private static int skipBlanks(String s, int from) {
+        while (from < s.length() && s.charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean startsWith(String s, int from, String prefix) {
+        int k = 0;
+        for (int i = from; i < s.length() && k < prefix.length(); i++) {
+            final char c = s.charAt(i);
+            if (c != ' ') {
+                if (c != prefix.charAt(k)) {
+                    return false;
+                }
+                k++;
+            }
+        }
+        return k == prefix.length();
+    }
+
+    /**
+     * Looks up s from given index with blanks removed. Hash is computed like
+     * String.hashCode() of the normalised course.
+     */
+    private boolean contains(String s, int from) {
+        int hash = 0;
+        for (int i = from; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c != ' ') {
+                hash = 31 * hash + c;
+            }
+        }
+
+        for (int slot = hash & mask; courses[slot] != null; slot = (slot + 1) & mask) {
+            if (equalsIgnoringBlanks(s, from, courses[slot])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean equalsIgnoringBlanks(String s, int from, String course) {
+        int k = 0;
+        for (int i = from; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c != ' ') {
+                if (k == course.length() || c != course.charAt(k)) {
+                    return false;
+                }
+                k++;
+            }
+        }
+        return k == course.length();
+    }
+}
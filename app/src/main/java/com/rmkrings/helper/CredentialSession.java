@@ -0,0 +1,73 @@
+package com.rmkrings.helper;
+
+import android.util.Base64;
+
+/**
+ * Process-lifetime credential session. The stored password is unlocked from Keystore only
+ * once and the Basic authorization header for the configured user is kept in memory. Thus
+ * authenticated requests do not have to pay for RSA and AES decryption each time. Session
+ * gets invalidated whenever username or password are changed in AppDefaults.
+ */
+public class CredentialSession {
+    private static String password;
+    private static String authorization;
+
+    /**
+     * Get decrypted password of configured user. Password is decrypted on first access only.
+     * @return Password or empty string if no password has been set or it cannot be decrypted.
+     */
+    static synchronized String getPassword() {
+        if (password == null) {
+            String decryptedPassword = AppDefaults.decryptPassword();
+
+            // Do not remember failed decryption, we will retry on next access.
+            if ("".equals(decryptedPassword)) {
+                return decryptedPassword;
+            }
+
+            password = decryptedPassword;
+        }
+
+        return password;
+    }
+
+    /**
+     * Get Authorization header value for configured user.
+     * @return Header value, e.g. "Basic dXNlcjpwYXNzd29yZA=="
+     */
+    public static synchronized String getAuthorization() {
+        if (authorization == null) {
+            final String currentPassword = getPassword();
+            final String currentAuthorization = "Basic " + encode(AppDefaults.getUsername(), currentPassword);
+
+            // Like password, header without password is not remembered.
+            if ("".equals(currentPassword)) {
+                return currentAuthorization;
+            }
+
+            authorization = currentAuthorization;
+        }
+
+        return authorization;
+    }
+
+    /**
+     * Base64 encode credentials as required for Basic authentication.
+     * @param username - Username to encode
+     * @param password - Password to encode
+     * @return Encoded credentials.
+     */
+    public static String encode(String username, String password) {
+        String loginString = String.format("%s:%s", username, password);
+        byte[] loginData = Base64.encode(loginString.getBytes(), Base64.DEFAULT);
+        return new String(loginData);
+    }
+
+    /**
+     * Drop cached password and header. Next access unlocks stored password again.
+     */
+    static synchronized void invalidate() {
+        password = null;
+        authorization = null;
+    }
+}
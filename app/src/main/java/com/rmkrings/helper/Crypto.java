@@ -1,153 +1,152 @@
 package com.rmkrings.helper;
 
 import android.annotation.SuppressLint;
-import android.content.SharedPreferences;
-import android.os.Build;
-import android.security.KeyPairGeneratorSpec;
 import android.util.Base64;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.math.BigInteger;
-import java.security.Key;
-import java.security.KeyPairGenerator;
-import java.security.KeyStore;
-import java.security.PrivateKey;
-import java.security.PublicKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.Calendar;
 
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
-import javax.crypto.CipherOutputStream;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import javax.security.auth.x500.X500Principal;
-
-import com.rmkrings.pius_app_for_android;
 
+/**
+ * Encrypts and decrypts secrets that are stored in shared preferences. Secrets are sealed
+ * with AES/GCM; values written by older app versions with AES/ECB can still be read and
+ * should be re-encrypted, see isLegacy().
+ *
+ * The AES key is unwrapped from its source once and then kept in memory. Cipher objects
+ * are created once per thread.
+ */
 class Crypto {
-    private static final String RSA_MODE =  "RSA/ECB/PKCS1Padding";
-    private static final String AES_MODE = "AES/ECB/PKCS7Padding";
-    private static final String KEY_ALIAS = "com.rmkrings.pius_app";
-    private static final String AndroidKeyStore = "AndroidKeyStore";
-
-    private final KeyStore keyStore;
-
-    Crypto() throws Exception
-    {
-        keyStore = KeyStore.getInstance(AndroidKeyStore);
-        keyStore.load(null);
-
-        // Generate the RSA key pairs
-        if (!keyStore.containsAlias(KEY_ALIAS)) {
-            // Generate a key pair for encryption
-            Calendar start = Calendar.getInstance();
-            Calendar end = Calendar.getInstance();
-            end.add(Calendar.YEAR, 30);
-            KeyPairGeneratorSpec spec = new KeyPairGeneratorSpec.Builder(pius_app_for_android.getAppContext())
-                    .setAlias(KEY_ALIAS)
-                    .setSubject(new X500Principal("CN=" + KEY_ALIAS))
-                    .setSerialNumber(BigInteger.TEN)
-                    .setStartDate(start.getTime())
-                    .setEndDate(end.getTime())
-                    .build();
-            KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA", AndroidKeyStore);
-            kpg.initialize(spec);
-            kpg.generateKeyPair();
+    private static final String AES_MODE = "AES/GCM/NoPadding";
+    // ECB with PKCS#5 is byte-compatible to PKCS#7 as used by app versions up to 1.6.
+    private static final String LEGACY_AES_MODE = "AES/ECB/PKCS5Padding";
+    private static final String PREFIX = "gcm:";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+
+    private static Crypto self;
+
+    private final SecretKeySource secretKeySource;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private SecretKeySpec secretKey;
+
+    private final ThreadLocal<Cipher> cipher = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            return newCipher(AES_MODE);
         }
-    }
+    };
 
-    private String getRSAProvider() {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) { // below android m
-            return "AndroidOpenSSL"; // error in android 6: InvalidKeyException: Need RSA private or public key
-        } else { // android m and above
-            return "AndroidKeyStoreBCWorkaround"; // error in android 5: NoSuchProviderException: Provider not available: AndroidKeyStoreBCWorkaround
+    private final ThreadLocal<Cipher> legacyCipher = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            return newCipher(LEGACY_AES_MODE);
         }
-    }
-
-    private byte[] rsaEncrypt(byte[] secret) throws Exception {
-        PublicKey publicKey = keyStore.getCertificate(KEY_ALIAS).getPublicKey();
-
-        // Encrypt the text
-        Cipher inputCipher = Cipher.getInstance(RSA_MODE, getRSAProvider());
-        inputCipher.init(Cipher.ENCRYPT_MODE, publicKey);
+    };
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        CipherOutputStream cipherOutputStream = new CipherOutputStream(outputStream, inputCipher);
-        cipherOutputStream.write(secret);
-        cipherOutputStream.close();
+    static synchronized Crypto getInstance() throws Exception {
+        if (self == null) {
+            self = new Crypto(new KeystoreSecretKeySource());
+        }
 
-        return outputStream.toByteArray();
+        return self;
     }
 
-    private byte[] rsaDecrypt(byte[] encrypted) throws Exception {
-        PrivateKey privateKey = (PrivateKey)keyStore.getKey(KEY_ALIAS, null);
-
-        Cipher output = Cipher.getInstance(RSA_MODE, getRSAProvider());
-        output.init(Cipher.DECRYPT_MODE, privateKey);
-
-        CipherInputStream cipherInputStream = new CipherInputStream(
-                new ByteArrayInputStream(encrypted), output);
-        ArrayList<Byte> values = new ArrayList<>();
+    Crypto(SecretKeySource secretKeySource) {
+        this.secretKeySource = secretKeySource;
+    }
 
-        int nextByte;
-        while ((nextByte = cipherInputStream.read()) != -1) {
-            values.add((byte)nextByte);
+    @SuppressLint("GetInstance")
+    private static Cipher newCipher(String mode) {
+        try {
+            return Cipher.getInstance(mode);
+        }
+        catch (GeneralSecurityException e) {
+            throw new IllegalStateException(String.format("Cipher %s is not available", mode), e);
         }
+    }
 
-        byte[] bytes = new byte[values.size()];
-        for(int i = 0; i < bytes.length; i++) {
-            bytes[i] = values.get(i);
+    private synchronized SecretKeySpec getSecretKey() throws Exception {
+        if (secretKey == null) {
+            secretKey = new SecretKeySpec(secretKeySource.loadKey(), "AES");
         }
 
-        return bytes;
+        return secretKey;
     }
 
-    private void generateAESKey() throws Exception {
-        SharedPreferences sharedPreferences = AppDefaults.getSharedPreferences();
-
-        String enryptedKeyB64 = sharedPreferences.getString("EncryptedKey", null);
-        if (enryptedKeyB64 == null) {
-            byte[] key = new byte[16];
-            SecureRandom secureRandom = new SecureRandom();
-            secureRandom.nextBytes(key);
-            byte[] encryptedKey = rsaEncrypt(key);
-            enryptedKeyB64 = Base64.encodeToString(encryptedKey, Base64.DEFAULT);
-            SharedPreferences.Editor edit = AppDefaults.getEdit();
-            edit.putString("EncryptedKey", enryptedKeyB64);
-            edit.commit();
+    /**
+     * Encrypt plain bytes with AES/GCM.
+     * @param plain - Bytes to encrypt.
+     * @return Random IV followed by cipher text and authentication tag.
+     * @throws Exception when encryption fails.
+     */
+    byte[] seal(byte[] plain) throws Exception {
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+
+        Cipher c = cipher.get();
+        c.init(Cipher.ENCRYPT_MODE, getSecretKey(), new GCMParameterSpec(TAG_LENGTH, iv));
+
+        byte[] sealed = new byte[IV_LENGTH + c.getOutputSize(plain.length)];
+        System.arraycopy(iv, 0, sealed, 0, IV_LENGTH);
+        int length = c.doFinal(plain, 0, plain.length, sealed, IV_LENGTH);
+
+        if (IV_LENGTH + length == sealed.length) {
+            return sealed;
         }
-    }
 
-    private Key getSecretKey() throws Exception{
-        generateAESKey();
+        byte[] result = new byte[IV_LENGTH + length];
+        System.arraycopy(sealed, 0, result, 0, result.length);
+        return result;
+    }
 
-        SharedPreferences sharedPreferences = AppDefaults.getSharedPreferences();
-        String enryptedKeyB64 = sharedPreferences.getString("EncryptedKey", null);
+    /**
+     * Decrypt and authenticate bytes sealed by seal().
+     * @param sealed - IV, cipher text and authentication tag.
+     * @return Plain bytes.
+     * @throws Exception when data has been tampered with or cannot be decrypted.
+     */
+    byte[] open(byte[] sealed) throws Exception {
+        Cipher c = cipher.get();
+        c.init(Cipher.DECRYPT_MODE, getSecretKey(), new GCMParameterSpec(TAG_LENGTH, sealed, 0, IV_LENGTH));
+        return c.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+    }
 
-        // need to check null, omitted here
+    /**
+     * Decrypt bytes encrypted with AES/ECB by app versions up to 1.6.
+     * @param encrypted - Cipher text.
+     * @return Plain bytes.
+     * @throws Exception when data cannot be decrypted.
+     */
+    byte[] openLegacy(byte[] encrypted) throws Exception {
+        Cipher c = legacyCipher.get();
+        c.init(Cipher.DECRYPT_MODE, getSecretKey());
+        return c.doFinal(encrypted);
+    }
 
-        byte[] encryptedKey = Base64.decode(enryptedKeyB64, Base64.DEFAULT);
-        byte[] key = rsaDecrypt(encryptedKey);
-        return new SecretKeySpec(key, "AES");
+    /**
+     * Checks if input has been encrypted with legacy AES/ECB mode.
+     * @param input - Encrypted string as returned by encrypt().
+     * @return true when input should be re-encrypted.
+     */
+    boolean isLegacy(String input) {
+        return !input.startsWith(PREFIX);
     }
 
     String encrypt(String input) throws Exception {
-        @SuppressLint("GetInstance") Cipher c = Cipher.getInstance(AES_MODE);
-        c.init(Cipher.ENCRYPT_MODE, getSecretKey());
-        byte[] encodedBytes = c.doFinal(input.getBytes());
-        return  Base64.encodeToString(encodedBytes, Base64.DEFAULT);
+        byte[] sealed = seal(input.getBytes(StandardCharsets.UTF_8));
+        return PREFIX + Base64.encodeToString(sealed, Base64.NO_WRAP);
     }
 
-
     String decrypt(String input) throws Exception {
-        @SuppressLint("GetInstance") Cipher c = Cipher.getInstance(AES_MODE);
-        c.init(Cipher.DECRYPT_MODE, getSecretKey());
-
-        byte[] encrypted = Base64.decode(input, Base64.DEFAULT);
-        byte[] decodedBytes = c.doFinal(encrypted);
+        if (isLegacy(input)) {
+            return new String(openLegacy(Base64.decode(input, Base64.DEFAULT)), StandardCharsets.UTF_8);
+        }
 
-        return new String(decodedBytes);
+        byte[] sealed = Base64.decode(input.substring(PREFIX.length()), Base64.NO_WRAP);
+        return new String(open(sealed), StandardCharsets.UTF_8);
     }
 }
@@ -1,6 +1,5 @@
 package com.rmkrings.helper;
 
-import android.graphics.Point;
 import android.text.Html;
 import android.text.Spannable;
 import android.text.Spanned;
@@ -9,6 +8,7 @@ import android.text.style.BackgroundColorSpan;
 import android.text.style.StrikethroughSpan;
 import android.widget.TextView;
 
+import com.rmkrings.data.calendar.CalendarSearchHit;
 import com.rmkrings.pius_app_for_android;
 import com.rmkrings.activities.R;
 
@@ -55,21 +55,21 @@ public class FormatHelper {
     }
 
     /**
-     * Highlights positions in text of a given text view.
-     * @param v - Textview to highlight text in.
-     * @param spans - Positions to highlight.
+     * Highlights matches of a search hit in text of a given text view.
+     * @param v - Textview showing event text of hit.
+     * @param hit - Search hit with ranges to highlight.
      */
-    public static void highlight(TextView v, ArrayList<Point> spans) {
+    public static void highlight(TextView v, CalendarSearchHit hit) {
         if (v.length() == 0) {
             return;
         }
 
         CharSequence text = v.getText();
         Spannable spannable = (Spannable)text;
-        for (Point span: spans) {
+        for (int range = 0; range < hit.getRangeCount(); range++) {
             spannable.setSpan(
                     new BackgroundColorSpan(pius_app_for_android.getAppContext().getResources().getColor(R.color.colorHighlight)),
-                    span.x, span.y, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    hit.getRangeStart(range), hit.getRangeEnd(range), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.rmkrings.helper;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds a model object straight from a JSON stream without creating an intermediate
+ * JSONObject tree. Each model class provides its own decoder; loaders hand their decoder
+ * to the request engine so that models get built while the response is being received.
+ * @param <T> - Model type
+ */
+public abstract class JsonDecoder<T> {
+    /**
+     * Decode model from reader which is positioned before the model's JSON value.
+     * @param reader - Reader to consume value from.
+     * @return Decoded model.
+     * @throws IOException on malformed JSON or when stream cannot be read.
+     */
+    public abstract T decode(JsonReader reader) throws IOException;
+
+    /**
+     * Decode model from UTF-8 encoded stream. The stream is not closed.
+     * @param inputStream - Stream to read from.
+     * @return Decoded model.
+     * @throws IOException on malformed JSON or when stream cannot be read.
+     */
+    public T decode(InputStream inputStream) throws IOException {
+        return decode(new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Decode model from UTF-8 encoded bytes, e.g. from a memory mapped cache file. The
+     * buffer's position is advanced to its limit.
+     * @param buffer - Buffer to read from.
+     * @return Decoded model.
+     * @throws IOException on malformed JSON.
+     */
+    public T decode(final ByteBuffer buffer) throws IOException {
+        return decode(new InputStream() {
+            @Override
+            public int read() {
+                return (buffer.hasRemaining()) ? (buffer.get() & 0xff) : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        });
+    }
+
+    /**
+     * Decode model from string, e.g. from cache content.
+     * @param data - JSON string.
+     * @return Decoded model.
+     * @throws IOException on malformed JSON.
+     */
+    public T decode(String data) throws IOException {
+        return decode(new JsonReader(new StringReader(data)));
+    }
+
+    /**
+     * Reads next value as string. Numbers and booleans are converted, null is returned
+     * for JSON null.
+     * @param reader - Reader to read from.
+     * @return String value or null.
+     * @throws IOException if next value is not a scalar.
+     */
+    public static String nextString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        }
+
+        return reader.nextString();
+    }
+
+    /**
+     * Reads next value as string, JSON null gets mapped to empty string.
+     * @param reader - Reader to read from.
+     * @return String value.
+     * @throws IOException if next value is not a scalar.
+     */
+    public static String optString(JsonReader reader) throws IOException {
+        String s = nextString(reader);
+        return (s != null) ? s : "";
+    }
+}
@@ -0,0 +1,100 @@
+package com.rmkrings.helper;
+
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.security.KeyPairGeneratorSpec;
+import android.util.Base64;
+
+import java.math.BigInteger;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.Calendar;
+
+import javax.crypto.Cipher;
+import javax.security.auth.x500.X500Principal;
+
+import com.rmkrings.pius_app_for_android;
+
+/**
+ * AES key source backed by Android Keystore. The AES key is stored in shared preferences
+ * wrapped with an RSA key pair that never leaves Keystore.
+ */
+class KeystoreSecretKeySource implements SecretKeySource {
+    private static final String RSA_MODE =  "RSA/ECB/PKCS1Padding";
+    private static final String KEY_ALIAS = "com.rmkrings.pius_app";
+    private static final String AndroidKeyStore = "AndroidKeyStore";
+    private static final String ENCRYPTED_KEY = "EncryptedKey";
+
+    private final KeyStore keyStore;
+
+    KeystoreSecretKeySource() throws Exception
+    {
+        keyStore = KeyStore.getInstance(AndroidKeyStore);
+        keyStore.load(null);
+
+        // Generate the RSA key pairs
+        if (!keyStore.containsAlias(KEY_ALIAS)) {
+            // Generate a key pair for encryption
+            Calendar start = Calendar.getInstance();
+            Calendar end = Calendar.getInstance();
+            end.add(Calendar.YEAR, 30);
+            KeyPairGeneratorSpec spec = new KeyPairGeneratorSpec.Builder(pius_app_for_android.getAppContext())
+                    .setAlias(KEY_ALIAS)
+                    .setSubject(new X500Principal("CN=" + KEY_ALIAS))
+                    .setSerialNumber(BigInteger.TEN)
+                    .setStartDate(start.getTime())
+                    .setEndDate(end.getTime())
+                    .build();
+            KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA", AndroidKeyStore);
+            kpg.initialize(spec);
+            kpg.generateKeyPair();
+        }
+    }
+
+    private String getRSAProvider() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) { // below android m
+            return "AndroidOpenSSL"; // error in android 6: InvalidKeyException: Need RSA private or public key
+        } else { // android m and above
+            return "AndroidKeyStoreBCWorkaround"; // error in android 5: NoSuchProviderException: Provider not available: AndroidKeyStoreBCWorkaround
+        }
+    }
+
+    private byte[] rsaEncrypt(byte[] secret) throws Exception {
+        PublicKey publicKey = keyStore.getCertificate(KEY_ALIAS).getPublicKey();
+
+        Cipher cipher = Cipher.getInstance(RSA_MODE, getRSAProvider());
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+        return cipher.doFinal(secret);
+    }
+
+    private byte[] rsaDecrypt(byte[] encrypted) throws Exception {
+        PrivateKey privateKey = (PrivateKey)keyStore.getKey(KEY_ALIAS, null);
+
+        Cipher cipher = Cipher.getInstance(RSA_MODE, getRSAProvider());
+        cipher.init(Cipher.DECRYPT_MODE, privateKey);
+        return cipher.doFinal(encrypted);
+    }
+
+    @Override
+    public byte[] loadKey() throws Exception {
+        SharedPreferences sharedPreferences = AppDefaults.getSharedPreferences();
+        String encryptedKeyB64 = sharedPreferences.getString(ENCRYPTED_KEY, null);
+
+        if (encryptedKeyB64 == null) {
+            byte[] key = new byte[16];
+            SecureRandom secureRandom = new SecureRandom();
+            secureRandom.nextBytes(key);
+
+            encryptedKeyB64 = Base64.encodeToString(rsaEncrypt(key), Base64.DEFAULT);
+            SharedPreferences.Editor edit = AppDefaults.getEdit();
+            edit.putString(ENCRYPTED_KEY, encryptedKeyB64);
+            edit.commit();
+            return key;
+        }
+
+        return rsaDecrypt(Base64.decode(encryptedKeyB64, Base64.DEFAULT));
+    }
+}
@@ -0,0 +1,146 @@
+package com.rmkrings.helper;
+
+import android.util.LruCache;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * In-process cache of parsed models layered over Cache. Models are keyed by dataset name
+ * and digest, thus all consumers of a dataset share the very same instance as long as the
+ * cached data has not changed. Whenever Cache.storeRecord() writes a new version of a
+ * dataset all models parsed from it get dropped.
+ *
+ * Models handed out by this cache are shared and must not be modified by consumers.
+ */
+public class ModelCache {
+    private final static Logger logger = Logger.getLogger(ModelCache.class.getName());
+
+    // Bound is measured in bytes of JSON source the models have been parsed from.
+    static final int MAX_SIZE = 2 * 1024 * 1024;
+
+    private static ModelCache self;
+
+    private static class Entry {
+        final Object model;
+        final int size;
+
+        Entry(Object model, int size) {
+            this.model = model;
+            this.size = Math.max(size, 1);
+        }
+    }
+
+    private final Cache cache = new Cache();
+    private final LruCache<String, Entry> entries = new LruCache<String, Entry>(MAX_SIZE) {
+        @Override
+        protected int sizeOf(String key, Entry entry) {
+            return entry.size;
+        }
+    };
+    private int generation = 0;
+
+    public static synchronized ModelCache getInstance() {
+        if (self == null) {
+            self = new ModelCache();
+        }
+
+        return self;
+    }
+
+    private static String key(String name, String digest) {
+        return name + "#" + ((digest != null) ? digest : "");
+    }
+
+    /**
+     * Get model of dataset. When model is not in memory yet it is read from cache and
+     * parsed.
+     * @param name - Dataset name as passed to Cache.storeRecord().
+     * @param decoder - Decoder to parse cached data with.
+     * @param <T> - Model type
+     * @return Shared model instance.
+     * @throws FileNotFoundException when there is no cached data for dataset.
+     * @throws IOException when cached data cannot be parsed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, JsonDecoder<T> decoder) throws IOException {
+        final int startGeneration;
+
+        if (!cache.hasRecord(name)) {
+            throw new FileNotFoundException(String.format("No cached data for %s", name));
+        }
+
+        synchronized (this) {
+            startGeneration = generation;
+            Entry entry = entries.get(key(name, cache.getDigest(name)));
+            if (entry != null) {
+                return (T)entry.model;
+            }
+        }
+
+        final CacheRecord record = cache.readRecord(name);
+        if (record == null) {
+            throw new IOException(String.format("Cannot read cached data for %s", name));
+        }
+
+        final ByteBuffer data = record.getPayload();
+        final T model = decoder.decode(data);
+
+        logger.info(String.format("Parsed %s from cache.", name));
+
+        // Do not keep model if dataset has been written while it was being parsed.
+        synchronized (this) {
+            if (generation == startGeneration) {
+                entries.put(key(name, record.getDigest()), new Entry(model, record.getSize()));
+            }
+        }
+
+        return model;
+    }
+
+    /**
+     * Get model a handle refers to. When dataset has been updated since handle has been
+     * created the current model is returned; resolving the handle's path is up to caller.
+     * @param handle - Handle of model.
+     * @param decoder - Decoder to parse cached data with.
+     * @param <T> - Model type
+     * @return Shared model instance.
+     * @throws FileNotFoundException when there is no cached data for dataset.
+     * @throws IOException when cached data cannot be parsed.
+     */
+    public <T> T get(ModelHandle handle, JsonDecoder<T> decoder) throws IOException {
+        if (handle.getDigest() != null && !handle.getDigest().equals(cache.getDigest(handle.getName()))) {
+            logger.info(String.format("%s has been updated, resolving handle %s on current data.", handle.getName(), handle));
+        }
+
+        return get(handle.getName(), decoder);
+    }
+
+    /**
+     * Add model that has been parsed from data just stored in cache.
+     * @param name - Dataset name as passed to Cache.storeRecord().
+     * @param digest - Digest of data the model has been parsed from.
+     * @param model - Model to share.
+     * @param size - Size of data the model has been parsed from.
+     */
+    public synchronized void put(String name, String digest, Object model, int size) {
+        invalidate(name);
+        entries.put(key(name, digest), new Entry(model, size));
+    }
+
+    /**
+     * Drop all models parsed from dataset. Called whenever dataset is written to cache.
+     * @param name - Dataset name.
+     */
+    synchronized void invalidate(String name) {
+        generation += 1;
+
+        for (String key: entries.snapshot().keySet()) {
+            if (key.startsWith(name + "#")) {
+                entries.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.rmkrings.helper;
+
+import android.os.Bundle;
+
+import java.util.Arrays;
+
+/**
+ * Small key of a model shared through ModelCache: dataset name, digest of data the model
+ * has been parsed from and a path of keys that leads to an element of the model. Fragments
+ * pass handles in their arguments instead of models; after process death the model is
+ * parsed from cache again.
+ *
+ * Path elements are content keys, e.g. date and grade, not positions, thus a handle still
+ * finds its element when dataset has been updated in the meantime. For the same reason the
+ * digest is informational only: a handle always resolves on current data, ModelCache just
+ * logs when that is not the data the handle has been created from.
+ */
+public final class ModelHandle {
+    private static final String NAME = "name";
+    private static final String DIGEST = "digest";
+    private static final String PATH = "path";
+
+    private final String name;
+    private final String digest;
+    private final String[] path;
+
+    /**
+     * @param name - Dataset name as passed to Cache.storeRecord().
+     * @param digest - Digest of data the model has been parsed from, may be null; for
+     *               logging only.
+     * @param path - Keys of element in model, empty if handle refers to model itself.
+     */
+    public ModelHandle(String name, String digest, String... path) {
+        this.name = name;
+        this.digest = digest;
+        this.path = path;
+    }
+
+    /**
+     * @param bundle - Bundle as returned by toBundle().
+     * @return Handle or null if bundle is null or holds no handle.
+     */
+    public static ModelHandle fromBundle(Bundle bundle) {
+        if (bundle == null || bundle.getString(NAME) == null) {
+            return null;
+        }
+
+        final String[] path = bundle.getStringArray(PATH);
+        return new ModelHandle(bundle.getString(NAME), bundle.getString(DIGEST), (path != null) ? path : new String[0]);
+    }
+
+    /**
+     * @return Bundle that holds this handle, to be put into fragment arguments.
+     */
+    public Bundle toBundle() {
+        final Bundle bundle = new Bundle();
+        bundle.putString(NAME, name);
+        bundle.putString(DIGEST, digest);
+        bundle.putStringArray(PATH, path);
+        return bundle;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * @param i - Index of path element.
+     * @return Key at given position of path.
+     */
+    public String getPath(int i) {
+        return path[i];
+    }
+
+    public int getPathLength() {
+        return path.length;
+    }
+
+    @Override
+    public String toString() {
+        return name + "#" + ((digest != null) ? digest : "") + Arrays.toString(path);
+    }
+}
@@ -0,0 +1,155 @@
+package com.rmkrings.helper;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs searches for text input on a worker thread. Input is debounced: a search starts when
+ * input has not changed for the debounce delay. When new input arrives while a search is
+ * running that search is cancelled. Searches run one after the other, thus search() may
+ * keep state between calls; results are handed over to main thread in the order they have
+ * been produced.
+ * @param <R> - Search result type
+ */
+public abstract class SearchExecutor<R> {
+    private final static Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+    private final long debounceMillis;
+    private final ExecutorService executor;
+
+    // Incremented with each input, searches for older input are stale.
+    private volatile int generation = 0;
+    private volatile boolean shutdown = false;
+
+    // Main thread only.
+    private Runnable pendingSearch = null;
+    private Future<?> runningSearch = null;
+
+    /**
+     * @param threadName - Name of worker thread.
+     * @param debounceMillis - Time input must not change before search starts.
+     */
+    protected SearchExecutor(final String threadName, long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Worker thread: Search for query. Long searches should check isCancelled() and give up
+     * when it returns true.
+     * @param query - Text to search for.
+     * @return Result or null if search has been cancelled.
+     */
+    protected abstract R search(String query);
+
+    /**
+     * Main thread: Show result.
+     * @param result - Result as returned by search().
+     */
+    protected abstract void onResult(R result);
+
+    /**
+     * Worker thread: Check if search is stale.
+     * @return true when newer input has arrived or executor has been shut down.
+     */
+    protected boolean isCancelled() {
+        return shutdown || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Main thread: Search for query once input settles.
+     * @param query - Current input.
+     */
+    public void submit(String query) {
+        schedule(query, debounceMillis);
+    }
+
+    /**
+     * Main thread: Search for query without waiting, e.g. to fill a list initially.
+     * @param query - Current input.
+     */
+    public void submitNow(String query) {
+        schedule(query, 0);
+    }
+
+    private void schedule(final String query, long delayMillis) {
+        if (shutdown) {
+            return;
+        }
+
+        final int searchGeneration = ++generation;
+        if (pendingSearch != null) {
+            mainThreadHandler.removeCallbacks(pendingSearch);
+        }
+        if (runningSearch != null) {
+            runningSearch.cancel(true);
+            runningSearch = null;
+        }
+
+        pendingSearch = new Runnable() {
+            @Override
+            public void run() {
+                pendingSearch = null;
+                runningSearch = executor.submit(newSearchTask(query, searchGeneration));
+            }
+        };
+        mainThreadHandler.postDelayed(pendingSearch, delayMillis);
+    }
+
+    private Runnable newSearchTask(final String query, final int searchGeneration) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (searchGeneration != generation || isCancelled()) {
+                    return;
+                }
+
+                final R result;
+                try {
+                    result = search(query);
+                }
+                catch (RuntimeException e) {
+                    e.printStackTrace();
+                    return;
+                }
+
+                // Once search() has returned a result it is shown, search() may have
+                // built it upon its previous result.
+                if (result != null) {
+                    mainThreadHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!shutdown) {
+                                onResult(result);
+                            }
+                        }
+                    });
+                }
+            }
+        };
+    }
+
+    /**
+     * Main thread: Cancel all searches, no result is shown after this call.
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (pendingSearch != null) {
+            mainThreadHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package com.rmkrings.helper;
+
+/**
+ * Provides the raw AES key that protects secrets stored in shared preferences. On device
+ * the key is wrapped by an RSA key from Android Keystore, see KeystoreSecretKeySource.
+ * Unit tests may provide a fixed key instead.
+ */
+interface SecretKeySource {
+    /**
+     * Load or, if it does not exist yet, create AES key.
+     * @return Raw AES key bytes.
+     * @throws Exception when key cannot be loaded.
+     */
+    byte[] loadKey() throws Exception;
+}
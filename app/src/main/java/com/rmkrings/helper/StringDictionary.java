@@ -0,0 +1,69 @@
+package com.rmkrings.helper;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Maps strings to dense int ids and back. Models that hold many repeating strings, like
+ * rooms and teachers of a substitution schedule, store ids instead of references; all
+ * rows share one instance of each distinct string.
+ *
+ * Models that keep plain strings use intern() while parsing, thus equal values share one
+ * instance and can be compared by identity. Such a dictionary is scoped to a single parse
+ * and dropped afterwards.
+ *
+ * A dictionary is filled while a model is being parsed and must not be modified once the
+ * model has been published to other threads.
+ */
+public final class StringDictionary implements Serializable {
+    // @serial
+    private final ArrayList<String> strings = new ArrayList<>();
+
+    // Rebuilt on first add() after deserialization.
+    private transient HashMap<String, Integer> ids;
+
+    /**
+     * Get id of string, adds string if it is not in dictionary yet.
+     * @param s - String to look up.
+     * @return Id of string.
+     */
+    public int add(String s) {
+        if (ids == null) {
+            ids = new HashMap<>();
+            for (int id = 0; id < strings.size(); id++) {
+                ids.put(strings.get(id), id);
+            }
+        }
+
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.add(s);
+            ids.put(s, id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Get the dictionary's instance of a string.
+     * @param s - String to look up, may be null.
+     * @return Instance equal to s that is shared by all callers, null if s is null.
+     */
+    public String intern(String s) {
+        return (s != null) ? get(add(s)) : null;
+    }
+
+    /**
+     * @param id - Id as returned by add().
+     * @return String with given id.
+     */
+    public String get(int id) {
+        return strings.get(id);
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,98 @@
+package com.rmkrings.helper;
+
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * Defers writes to a dedicated I/O thread. Writes to the same key that are still pending
+ * get coalesced, only the last value is written. A value stays visible through
+ * getPending() until it has been written, thus readers that consult the queue first
+ * always see their own writes.
+ * @param <V> - Type of value to write.
+ */
+abstract class WriteBehindQueue<V> {
+    private final static Logger logger = Logger.getLogger(WriteBehindQueue.class.getName());
+
+    private final HashMap<String, V> pending = new HashMap<>();
+    private final ExecutorService executor;
+
+    WriteBehindQueue(final String threadName) {
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Write value. Called on I/O thread, never concurrently.
+     * @param key - Key value has been enqueued with.
+     * @param value - Value to write.
+     */
+    protected abstract void write(String key, V value);
+
+    /**
+     * Queue value for writing. When a value for the same key is still pending it gets
+     * replaced.
+     * @param key - Key to write value for.
+     * @param value - Value to write.
+     */
+    synchronized void enqueue(String key, V value) {
+        final boolean scheduled = pending.containsKey(key);
+
+        pending.put(key, value);
+        if (!scheduled) {
+            executor.execute(newWriteTask(key));
+        }
+    }
+
+    /**
+     * @param key - Key to look up.
+     * @return Value that has been enqueued for key but not yet written, null if there is none.
+     */
+    synchronized V getPending(String key) {
+        return pending.get(key);
+    }
+
+    /**
+     * Block until all values that have been enqueued so far have been written.
+     * @throws InterruptedException when waiting thread gets interrupted.
+     */
+    synchronized void flush() throws InterruptedException {
+        while (!pending.isEmpty()) {
+            wait();
+        }
+    }
+
+    private Runnable newWriteTask(final String key) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final V value = getPending(key);
+
+                try {
+                    write(key, value);
+                }
+                catch (RuntimeException e) {
+                    logger.severe(String.format("Failed to write %s: %s", key, e.toString()));
+                }
+
+                synchronized (WriteBehindQueue.this) {
+                    if (pending.get(key) == value) {
+                        pending.remove(key);
+                        WriteBehindQueue.this.notifyAll();
+                    } else {
+                        // Value has been replaced while being written.
+                        executor.execute(newWriteTask(key));
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.rmkrings.http;
+
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+
+/**
+ * Cached version of a document a request may receive a delta for. When a request carries a
+ * delta base it advertises delta support; backend then may answer with a patch against the
+ * cached payload instead of the entire document. Should the patch not apply the document
+ * is fetched in full with a second request.
+ */
+public abstract class DeltaBase {
+    private final String digest;
+    private final URLConnection fullRequest;
+
+    /**
+     * @param digest - Digest of cached document as sent with request.
+     * @param fullRequest - Request for entire document, not connected yet.
+     */
+    protected DeltaBase(String digest, URLConnection fullRequest) {
+        this.digest = digest;
+        this.fullRequest = fullRequest;
+    }
+
+    String getDigest() {
+        return digest;
+    }
+
+    URLConnection getFullRequest() {
+        return fullRequest;
+    }
+
+    /**
+     * Worker thread: Read cached payload.
+     * @return Payload the digest has been computed for or null if it is not available
+     * anymore.
+     */
+    protected abstract ByteBuffer readPayload();
+}
@@ -0,0 +1,151 @@
+package com.rmkrings.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Applies a delta sent by backend to a cached payload. Client advertises delta support with
+ * header "A-IM: pius-delta" (RFC 3229); backend answers with status 226 and header
+ * "IM: pius-delta" when it sends a delta instead of the document.
+ *
+ * A delta is a header followed by operations, all numbers are decimal:
+ * <pre>
+ * base &lt;digest of cached document&gt;\n
+ * sha256 &lt;hex SHA-256 of patched document&gt;\n
+ * \n
+ * C &lt;offset&gt; &lt;length&gt;\n           copy bytes of cached document
+ * I &lt;length&gt;\n&lt;bytes&gt;               insert bytes
+ * </pre>
+ * Operations are applied in order and build the new document from scratch. A delta is
+ * accepted only if its base is the cached document and the result has the announced hash.
+ */
+final class DeltaPatch {
+    static final String INSTANCE_MANIPULATION = "pius-delta";
+    static final int HTTP_IM_USED = 226;
+
+    private final byte[] patch;
+    private int position = 0;
+
+    private DeltaPatch(byte[] patch) {
+        this.patch = patch;
+    }
+
+    /**
+     * Apply delta to cached payload.
+     * @param base - Cached payload, position and limit are left untouched.
+     * @param baseDigest - Digest of cached payload as sent with request.
+     * @param patch - Delta as received from backend.
+     * @return Patched document.
+     * @throws IOException when delta is malformed, refers to another base or does not
+     * result in announced document.
+     */
+    static byte[] apply(ByteBuffer base, String baseDigest, byte[] patch) throws IOException {
+        return new DeltaPatch(patch).apply(base.duplicate(), baseDigest);
+    }
+
+    private byte[] apply(ByteBuffer base, String baseDigest) throws IOException {
+        final int baseOffset = base.position();
+        final int baseSize = base.remaining();
+
+        if (!baseDigest.equals(readHeader("base"))) {
+            throw new IOException("Delta refers to another base");
+        }
+
+        final String sha256 = readHeader("sha256");
+        if (!readLine().isEmpty()) {
+            throw new IOException("Delta header is not terminated");
+        }
+
+        final ByteArrayOutputStream document = new ByteArrayOutputStream(baseSize);
+        while (position < patch.length) {
+            final String[] operation = readLine().split(" ");
+
+            if (operation.length == 3 && operation[0].equals("C")) {
+                final int offset = parseLength(operation[1]);
+                final int length = parseLength(operation[2]);
+                if (offset > baseSize - length) {
+                    throw new IOException(String.format("Copy of %d bytes at %d exceeds base of %d bytes", length, offset, baseSize));
+                }
+
+                final byte[] range = new byte[length];
+                base.position(baseOffset + offset);
+                base.get(range);
+                document.write(range, 0, length);
+            } else if (operation.length == 2 && operation[0].equals("I")) {
+                final int length = parseLength(operation[1]);
+                if (length > patch.length - position) {
+                    throw new IOException(String.format("Insert of %d bytes exceeds delta", length));
+                }
+
+                document.write(patch, position, length);
+                position += length;
+            } else {
+                throw new IOException("Invalid delta operation");
+            }
+        }
+
+        final byte[] result = document.toByteArray();
+        if (!sha256(result).equals(sha256)) {
+            throw new IOException("Patched document does not match digest");
+        }
+
+        return result;
+    }
+
+    private String readLine() throws IOException {
+        for (int end = position; end < patch.length; end++) {
+            if (patch[end] == '\n') {
+                final String line = new String(patch, position, end - position, StandardCharsets.US_ASCII);
+                position = end + 1;
+                return line;
+            }
+        }
+
+        throw new IOException("Delta is truncated");
+    }
+
+    private String readHeader(String name) throws IOException {
+        final String line = readLine();
+        if (!line.startsWith(name + " ")) {
+            throw new IOException(String.format("Expected delta header %s not found", name));
+        }
+
+        return line.substring(name.length() + 1);
+    }
+
+    private static int parseLength(String s) throws IOException {
+        try {
+            final int value = Integer.parseInt(s);
+            if (value < 0) {
+                throw new IOException("Negative offset or length in delta");
+            }
+            return value;
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Invalid number in delta: " + s);
+        }
+    }
+
+    /**
+     * @param data - Data to hash.
+     * @return SHA-256 of data as lower case hex string.
+     */
+    static String sha256(byte[] data) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            final StringBuilder hex = new StringBuilder(2 * hash.length);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on every platform.
+            throw new RuntimeException(e);
+        }
+    }
+}
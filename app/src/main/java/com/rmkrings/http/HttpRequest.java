@@ -1,33 +1,97 @@
 package com.rmkrings.http;
 
-import android.os.AsyncTask;
 import android.os.Build;
 
-import java.io.BufferedReader;
+import android.util.MalformedJsonException;
+
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.logging.Logger;
 import javax.net.ssl.HttpsURLConnection;
 
+import com.rmkrings.helper.JsonDecoder;
 import com.rmkrings.helper.KitkatSocketFactory;
 import com.rmkrings.loader.VertretungsplanLoader;
 
-public class HttpRequest extends AsyncTask<HttpRequestData, Void, HttpResponseData> {
+/**
+ * Performs a single HTTP request synchronously. Requests are not meant to be run directly
+ * but are scheduled by HttpRequestEngine which calls perform() on one of its worker threads.
+ */
+class HttpRequest {
 
     private final static Logger logger = Logger.getLogger(VertretungsplanLoader.class.getName());
+    private final static int BUFFER_SIZE = 8192;
+
+    /**
+     * Copies all bytes read from the wrapped stream into a sink. This allows decoding a
+     * response directly from the connection while keeping raw body for the cache.
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final ByteArrayOutputStream sink;
+
+        TeeInputStream(InputStream in, ByteArrayOutputStream sink) {
+            super(in);
+            this.sink = sink;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                sink.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                sink.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int)Math.min(n, BUFFER_SIZE)];
+            int read = read(buffer, 0, buffer.length);
+            return (read > 0) ? read : 0;
+        }
 
-    @Override
-    protected HttpResponseData doInBackground(HttpRequestData... params) {
-        HttpRequestData data = params[0];
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Read remaining bytes, e.g. when decoder has stopped early.
+         * @throws IOException when stream cannot be read.
+         */
+        void drain() throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            //noinspection StatementWithEmptyBody
+            while (read(buffer, 0, buffer.length) != -1) { }
+        }
+    }
+
+    HttpResponseData perform(HttpRequestData data) {
         URLConnection connection = data.getConnection();
         DataOutputStream dos = null;
         byte[] bodyData = {};
         HttpResponseData response;
-        String inputLine;
+
+        // Advertise delta support only if cached document can actually be read.
+        DeltaBase deltaBase = data.getDeltaBase();
+        ByteBuffer basePayload = (deltaBase != null) ? deltaBase.readPayload() : null;
+        boolean fetchInFull = false;
 
         try {
             connection.setReadTimeout(60000);
@@ -54,6 +118,10 @@ public class HttpRequest extends AsyncTask<HttpRequestData, Void, HttpResponseDa
                 connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
             }
 
+            if (basePayload != null) {
+                connection.setRequestProperty("A-IM", DeltaPatch.INSTANCE_MANIPULATION);
+            }
+
             connection.connect();
 
             if (bodyData.length > 0) {
@@ -64,33 +132,74 @@ public class HttpRequest extends AsyncTask<HttpRequestData, Void, HttpResponseDa
             // Ok: Read reply data.
             int responseCode = ((HttpURLConnection)connection).getResponseCode();
 
-            if (responseCode == 200) {
-                InputStreamReader streamReader = new InputStreamReader(connection.getInputStream());
-
-                //Create a new buffered reader and String Builder
-                BufferedReader reader = new BufferedReader(streamReader);
-                StringBuilder stringBuilder = new StringBuilder();
-
-                //Check if the line we are reading is not null
-                while ((inputLine = reader.readLine()) != null) {
-                    stringBuilder.append(inputLine);
+            if (responseCode == DeltaPatch.HTTP_IM_USED && basePayload != null) {
+                InputStream inputStream = connection.getInputStream();
+                ByteArrayOutputStream patch = new ByteArrayOutputStream(BUFFER_SIZE);
+                new TeeInputStream(inputStream, patch).drain();
+                inputStream.close();
+
+                try {
+                    String instanceManipulation = connection.getHeaderField("IM");
+                    if (!DeltaPatch.INSTANCE_MANIPULATION.equals(instanceManipulation)) {
+                        throw new IOException("Unsupported instance manipulation " + instanceManipulation);
+                    }
+
+                    byte[] document = DeltaPatch.apply(basePayload, deltaBase.getDigest(), patch.toByteArray());
+                    Object model = null;
+
+                    JsonDecoder<?> decoder = data.getDecoder();
+                    if (decoder != null) {
+                        try {
+                            model = decoder.decode(ByteBuffer.wrap(document));
+                        }
+                        catch (IOException | RuntimeException e) {
+                            logger.warning(String.format("Failed to decode patched document from %s: %s", connection.getURL().toString(), e.getMessage()));
+                        }
+                    }
+
+                    logger.info(String.format("Patched %d bytes of cached data with a %d bytes delta.", document.length, patch.size()));
+
+                    // Consumers get the patched document just like a full response.
+                    response = new HttpResponseData(200, false, document, model, data.getCallback());
+                }
+                catch (IOException e) {
+                    logger.warning(String.format("Cannot apply delta from %s, fetching in full: %s", connection.getURL().toString(), e.getMessage()));
+                    response = null;
+                    fetchInFull = true;
+                }
+            }
+            else if (responseCode == 200) {
+                InputStream inputStream = connection.getInputStream();
+                int contentLength = connection.getContentLength();
+                ByteArrayOutputStream responseBody = new ByteArrayOutputStream((contentLength > 0) ? contentLength : BUFFER_SIZE);
+                TeeInputStream teeInputStream = new TeeInputStream(inputStream, responseBody);
+                Object model = null;
+
+                // Build model while body is being received. Raw body is kept as it is
+                // needed for caching.
+                JsonDecoder<?> decoder = data.getDecoder();
+                if (decoder != null) {
+                    try {
+                        model = decoder.decode(teeInputStream);
+                    }
+                    catch (MalformedJsonException | RuntimeException e) {
+                        logger.warning(String.format("Failed to decode response from %s: %s", connection.getURL().toString(), e.getMessage()));
+                    }
                 }
 
-                //Close our InputStream and Buffered reader
-                reader.close();
-                streamReader.close();
+                teeInputStream.drain();
+                inputStream.close();
 
-                //Set our result equal to our stringBuilder
-                response = new HttpResponseData(responseCode, false, stringBuilder.toString(), data.getCallback());
+                response = new HttpResponseData(responseCode, false, responseBody.toByteArray(), model, data.getCallback());
             }
             // Failed with HTTP Status.
             else {
-                response = new HttpResponseData(responseCode, false, null, data.getCallback());
+                response = new HttpResponseData(responseCode, false, null, null, data.getCallback());
             }
         }
         catch (java.io.IOException e) {
             logger.info(String.format("Failed to submit HTTP GET request to %s: %s", connection.getURL().toString(), e.getMessage()));
-            response = new HttpResponseData(null, true, null, data.getCallback());
+            response = new HttpResponseData(null, true, null, null, data.getCallback());
         }
         finally {
             ((HttpURLConnection)connection).disconnect();
@@ -100,12 +209,10 @@ public class HttpRequest extends AsyncTask<HttpRequestData, Void, HttpResponseDa
             }
         }
 
-        return response;
-    }
+        if (fetchInFull) {
+            return perform(new HttpRequestData(deltaBase.getFullRequest(), data.getCallback(), data.getDecoder()));
+        }
 
-    @Override
-    protected void onPostExecute(HttpResponseData response) {
-        super.onPostExecute(response);
-        response.getCallback().execute(response);
+        return response;
     }
 }
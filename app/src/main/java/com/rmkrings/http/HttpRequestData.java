@@ -1,5 +1,6 @@
 package com.rmkrings.http;
 
+import com.rmkrings.helper.JsonDecoder;
 import com.rmkrings.interfaces.HttpResponseCallback;
 
 import java.net.URLConnection;
@@ -8,17 +9,46 @@ public class HttpRequestData {
     private final URLConnection connection;
     private final HttpResponseCallback callback;
     private final String body;
+    private final JsonDecoder<?> decoder;
+    private final DeltaBase deltaBase;
 
     public HttpRequestData(URLConnection connection, HttpResponseCallback callback) {
         this.connection = connection;
         this.callback = callback;
         this.body = null;
+        this.decoder = null;
+        this.deltaBase = null;
     }
 
     public HttpRequestData(URLConnection connection, HttpResponseCallback callback, String body) {
         this.connection = connection;
         this.callback = callback;
         this.body = body;
+        this.decoder = null;
+        this.deltaBase = null;
+    }
+
+    public HttpRequestData(URLConnection connection, HttpResponseCallback callback, JsonDecoder<?> decoder) {
+        this.connection = connection;
+        this.callback = callback;
+        this.body = null;
+        this.decoder = decoder;
+        this.deltaBase = null;
+    }
+
+    /**
+     * Request that accepts a delta against a cached document.
+     * @param connection - Request for document.
+     * @param callback - Callback to receive response.
+     * @param decoder - Decoder to build model with.
+     * @param deltaBase - Cached document or null if nothing is cached.
+     */
+    public HttpRequestData(URLConnection connection, HttpResponseCallback callback, JsonDecoder<?> decoder, DeltaBase deltaBase) {
+        this.connection = connection;
+        this.callback = callback;
+        this.body = null;
+        this.decoder = decoder;
+        this.deltaBase = deltaBase;
     }
 
     URLConnection getConnection() {
@@ -32,4 +62,16 @@ public class HttpRequestData {
     String getBody() {
         return body;
     }
+
+    JsonDecoder<?> getDecoder() {
+        return decoder;
+    }
+
+    DeltaBase getDeltaBase() {
+        return deltaBase;
+    }
+
+    String getHost() {
+        return connection.getURL().getHost();
+    }
 }
@@ -0,0 +1,235 @@
+package com.rmkrings.http;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.rmkrings.interfaces.BackgroundHttpResponseCallback;
+import com.rmkrings.interfaces.HttpResponseCallback;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs HTTP requests on a bounded pool of worker threads. Requests are queued and started
+ * as soon as the overall limit and the limit for the request's host permit. Responses are
+ * delivered on main thread, thus HttpResponseCallback implementations may update their views
+ * directly just like they did with AsyncTask. BackgroundHttpResponseCallback implementations
+ * get called on a separate pool of callback threads instead, thus slow parsing never holds
+ * up a request thread.
+ */
+public class HttpRequestEngine {
+    private final static Logger logger = Logger.getLogger(HttpRequestEngine.class.getName());
+
+    private static final int MAX_REQUESTS = 6;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+    private static final int MAX_CALLBACKS = 2;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static HttpRequestEngine self;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor callbackExecutor;
+    private Executor mainThreadExecutor;
+
+    // Requests waiting for a free slot and number of running requests by host.
+    private final ArrayDeque<HttpRequestData> readyRequests = new ArrayDeque<>();
+    private final HashMap<String, Integer> runningRequestsByHost = new HashMap<>();
+    private int runningRequests = 0;
+
+    public static synchronized HttpRequestEngine getInstance() {
+        if (self == null) {
+            self = new HttpRequestEngine();
+        }
+
+        return self;
+    }
+
+    /**
+     * Runs callbacks on main thread, right away when caller already is on main thread.
+     */
+    private static class MainThreadExecutor implements Executor {
+        private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable r) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                r.run();
+            } else {
+                mainThreadHandler.post(r);
+            }
+        }
+    }
+
+    /**
+     * Thread that runs background callbacks.
+     */
+    private static class CallbackThread extends Thread {
+        CallbackThread(Runnable r, String name) {
+            super(r, name);
+        }
+    }
+
+    private HttpRequestEngine() {
+        executor = new ThreadPoolExecutor(
+                MAX_REQUESTS, MAX_REQUESTS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "HttpRequestEngine #" + count.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        callbackExecutor = new ThreadPoolExecutor(
+                MAX_CALLBACKS, MAX_CALLBACKS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new CallbackThread(r, "HttpRequestEngine callback #" + count.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        callbackExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private synchronized Executor getMainThreadExecutor() {
+        if (mainThreadExecutor == null) {
+            mainThreadExecutor = new MainThreadExecutor();
+        }
+
+        return mainThreadExecutor;
+    }
+
+    /**
+     * JVM tests only: There is no main looper on host, regular callbacks are executed by
+     * given executor instead.
+     * @param executor - Executor to run regular callbacks.
+     */
+    synchronized void setMainThreadExecutor(Executor executor) {
+        mainThreadExecutor = executor;
+    }
+
+    /**
+     * Queue request for execution. Callback from request data is called on main thread
+     * when request has finished.
+     * @param data - Request to execute.
+     */
+    public synchronized void enqueue(HttpRequestData data) {
+        readyRequests.add(data);
+        promoteRequests();
+    }
+
+    /**
+     * Start as many ready requests as limits allow. Requests for a host that has reached its
+     * limit are skipped but keep their position in queue.
+     */
+    private void promoteRequests() {
+        Iterator<HttpRequestData> it = readyRequests.iterator();
+        while (it.hasNext() && runningRequests < MAX_REQUESTS) {
+            final HttpRequestData data = it.next();
+            final String host = data.getHost();
+            final int runningForHost = runningRequestsForHost(host);
+
+            if (runningForHost < MAX_REQUESTS_PER_HOST) {
+                it.remove();
+                runningRequests += 1;
+                runningRequestsByHost.put(host, runningForHost + 1);
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        execute(data);
+                    }
+                });
+            }
+        }
+    }
+
+    private int runningRequestsForHost(String host) {
+        Integer count = runningRequestsByHost.get(host);
+        return (count != null) ? count : 0;
+    }
+
+    private synchronized void finished(HttpRequestData data) {
+        final String host = data.getHost();
+        final int runningForHost = runningRequestsForHost(host) - 1;
+
+        runningRequests -= 1;
+        if (runningForHost > 0) {
+            runningRequestsByHost.put(host, runningForHost);
+        } else {
+            runningRequestsByHost.remove(host);
+        }
+
+        promoteRequests();
+    }
+
+    /**
+     * Worker thread: Perform request and hand over response to main thread.
+     * @param data - Request to execute.
+     */
+    private void execute(final HttpRequestData data) {
+        HttpResponseData response;
+
+        // Caller must get a response in any case, e.g. RequestCoalescer waits for it.
+        try {
+            response = new HttpRequest().perform(data);
+        }
+        catch (Throwable e) {
+            logger.severe(String.format("Request to %s failed: %s", data.getHost(), e));
+            response = new HttpResponseData(null, true, null, null, data.getCallback());
+        }
+        finally {
+            finished(data);
+        }
+
+        deliver(response.getCallback(), response);
+    }
+
+    /**
+     * Hand over response to callback on the thread the callback expects. Regular callbacks
+     * are executed on main thread, background callbacks on a callback thread. Callback is
+     * executed right away when calling thread already is the expected one.
+     * @param callback - Callback to execute.
+     * @param response - Response to pass to callback.
+     */
+    public void deliver(final HttpResponseCallback callback, final HttpResponseData response) {
+        Runnable r = new Runnable() {
+            @Override
+            public void run() {
+                callback.execute(response);
+            }
+        };
+
+        final boolean onCallbackThread = Thread.currentThread() instanceof CallbackThread;
+        final boolean inBackground = callback instanceof BackgroundHttpResponseCallback;
+
+        if (inBackground) {
+            if (onCallbackThread) {
+                r.run();
+            } else {
+                callbackExecutor.execute(r);
+            }
+        } else {
+            getMainThreadExecutor().execute(r);
+        }
+    }
+}
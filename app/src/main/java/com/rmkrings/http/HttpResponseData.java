@@ -2,22 +2,29 @@ package com.rmkrings.http;
 
 import com.rmkrings.interfaces.HttpResponseCallback;
 
+import java.nio.charset.StandardCharsets;
+
 public class HttpResponseData {
+    private final byte[] body;
     private String data;
+    private final Object model;
     private final Integer httpStatusCode;
     private final boolean error;
     private final HttpResponseCallback callback;
 
-    public HttpResponseData(Integer httpStatusCode, boolean error, String data, HttpResponseCallback callback) {
+    public HttpResponseData(Integer httpStatusCode, boolean error, byte[] body, Object model, HttpResponseCallback callback) {
         this.httpStatusCode = httpStatusCode;
         this.error = error;
-        this.data = data;
+        this.body = body;
+        this.model = model;
         this.callback = callback;
     }
 
     public HttpResponseData(Integer httpStatusCode, boolean error) {
         this.httpStatusCode = httpStatusCode;
         this.error = error;
+        this.body = null;
+        this.model = null;
         this.callback = null;
     }
 
@@ -29,10 +36,32 @@ public class HttpResponseData {
         return error;
     }
 
-    public String getData() {
+    /**
+     * @return Raw response body or null if there is no body.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return Response body as string or null if there is no body.
+     */
+    public synchronized String getData() {
+        if (data == null && body != null) {
+            data = new String(body, StandardCharsets.UTF_8);
+        }
+
         return data;
     }
 
+    /**
+     * @return Model that has been decoded from response body by loader's decoder or null
+     * if loader does not decode or decoding has failed.
+     */
+    public Object getModel() {
+        return model;
+    }
+
     HttpResponseCallback getCallback() {
         return callback;
     }
@@ -0,0 +1,131 @@
+package com.rmkrings.http;
+
+import com.rmkrings.interfaces.BackgroundHttpResponseCallback;
+import com.rmkrings.interfaces.HttpResponseCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.logging.Logger;
+
+/**
+ * Joins identical requests while they are in flight. The first caller for a request key
+ * actually sends the request, any later caller with the same key is attached to it and
+ * receives the very same response. This avoids downloading identical payloads when e.g.
+ * Today view, Dashboard and widget refresh at the same time.
+ */
+public class RequestCoalescer {
+    private final static Logger logger = Logger.getLogger(RequestCoalescer.class.getName());
+
+    // Backstop for a response that never arrives: HttpRequest times out after 70 s,
+    // a failed delta is fetched again in full.
+    private static final long MAX_IN_FLIGHT_MILLIS = 180 * 1000;
+
+    private static RequestCoalescer self;
+
+    private static class InFlightRequest {
+        final ArrayList<HttpResponseCallback> callbacks = new ArrayList<>();
+        final long startTime;
+
+        InFlightRequest(long startTime) {
+            this.startTime = startTime;
+        }
+    }
+
+    private final HashMap<String, InFlightRequest> inFlightRequests = new HashMap<>();
+    private final long maxInFlightMillis;
+    private int savedRoundTrips = 0;
+
+    public static synchronized RequestCoalescer getInstance() {
+        if (self == null) {
+            self = new RequestCoalescer(MAX_IN_FLIGHT_MILLIS);
+        }
+
+        return self;
+    }
+
+    /**
+     * @param maxInFlightMillis - Time after which a request that has not completed is not
+     * joined anymore but sent again.
+     */
+    RequestCoalescer(long maxInFlightMillis) {
+        this.maxInFlightMillis = maxInFlightMillis;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    /**
+     * Registers callback for request identified by key. If there is no request in flight for
+     * this key the caller must send the request and use the returned callback for it. If
+     * there is one, callback is attached to the running request and null is returned.
+     *
+     * A request that has been in flight for too long is considered lost. Its callbacks are
+     * moved to a new request which the caller must send.
+     * @param key - Request key, e.g. URL plus authorization.
+     * @param callback - Callback that wants to receive response.
+     * @return Callback to use for new request or null if caller has joined a running one.
+     */
+    public synchronized HttpResponseCallback join(final String key, HttpResponseCallback callback) {
+        final InFlightRequest inFlightRequest = inFlightRequests.get(key);
+        final long now = now();
+
+        if (inFlightRequest != null && now - inFlightRequest.startTime < maxInFlightMillis) {
+            inFlightRequest.callbacks.add(callback);
+            savedRoundTrips += 1;
+            logger.info(String.format("Joined in-flight request, %d round trips saved so far.", savedRoundTrips));
+            return null;
+        }
+
+        final InFlightRequest request = new InFlightRequest(now);
+        if (inFlightRequest != null) {
+            logger.warning(String.format("Request has not completed within %d ms, sending it again.", maxInFlightMillis));
+            request.callbacks.addAll(inFlightRequest.callbacks);
+            inFlightRequest.callbacks.clear();
+        }
+        request.callbacks.add(callback);
+        inFlightRequests.put(key, request);
+
+        // Shared callback runs on worker thread and hands over response to each joined
+        // callback on the thread that callback expects.
+        return new BackgroundHttpResponseCallback() {
+            @Override
+            public void execute(HttpResponseData data) {
+                for (HttpResponseCallback c : complete(key, request)) {
+                    HttpRequestEngine.getInstance().deliver(c, data);
+                }
+            }
+        };
+    }
+
+    /**
+     * Take callbacks of request. A request that has been replaced by a new one for the same
+     * key does not remove the new one; its callbacks have been moved to it.
+     * @param key - Request key.
+     * @param request - Request that has completed.
+     * @return Callbacks to deliver response to.
+     */
+    private synchronized ArrayList<HttpResponseCallback> complete(String key, InFlightRequest request) {
+        if (inFlightRequests.get(key) == request) {
+            inFlightRequests.remove(key);
+        }
+
+        final ArrayList<HttpResponseCallback> callbacks = new ArrayList<>(request.callbacks);
+        request.callbacks.clear();
+        return callbacks;
+    }
+
+    /**
+     * @return Number of requests in flight.
+     */
+    synchronized int getInFlightRequests() {
+        return inFlightRequests.size();
+    }
+
+    /**
+     * @return Number of network round trips that have been saved by joining in-flight requests.
+     */
+    public synchronized int getSavedRoundTrips() {
+        return savedRoundTrips;
+    }
+}
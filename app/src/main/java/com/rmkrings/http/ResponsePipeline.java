@@ -0,0 +1,62 @@
+package com.rmkrings.http;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.rmkrings.interfaces.BackgroundHttpResponseCallback;
+
+/**
+ * Processes a response on a worker thread and hands over the result to main thread.
+ * Implementations update the cache, parse the response and build everything a view needs
+ * in process(). Only the finished, immutable view model gets passed to main thread, thus
+ * views do not spend time on data processing while they are being refreshed.
+ * @param <V> - View model type
+ */
+public abstract class ResponsePipeline<V> implements BackgroundHttpResponseCallback {
+    private final static Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Worker thread: Process response and build view model from it.
+     * @param responseData - Response as received from backend.
+     * @return View model.
+     * @throws Exception when response cannot be processed.
+     */
+    protected abstract V process(HttpResponseData responseData) throws Exception;
+
+    /**
+     * Main thread: Show view model.
+     * @param viewModel - View model as built by process().
+     */
+    protected abstract void onViewModel(V viewModel);
+
+    /**
+     * Main thread: Response could not be processed.
+     * @param responseData - Response as received from backend.
+     */
+    protected abstract void onFailure(HttpResponseData responseData);
+
+    @Override
+    public final void execute(final HttpResponseData responseData) {
+        V viewModel;
+
+        try {
+            viewModel = process(responseData);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            viewModel = null;
+        }
+
+        final V result = viewModel;
+        mainThreadHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (result != null) {
+                    onViewModel(result);
+                } else {
+                    onFailure(responseData);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package com.rmkrings.interfaces;
+
+/**
+ * Marks a response callback that must not be executed on main thread. HttpRequestEngine
+ * calls execute() of such callbacks on a worker thread, thus implementations may do cache
+ * I/O and parsing there but must hand over results to main thread on their own.
+ */
+public interface BackgroundHttpResponseCallback extends HttpResponseCallback {
+}
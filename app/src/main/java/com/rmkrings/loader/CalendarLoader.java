@@ -1,11 +1,18 @@
 package com.rmkrings.loader;
 
+import com.rmkrings.data.calendar.Calendar;
 import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.JsonDecoder;
 
 import java.net.URL;
 
 public class CalendarLoader extends HttpGet {
 
+    @Override
+    JsonDecoder<?> getDecoder() {
+        return Calendar.decoder;
+    }
+
     @Override
     protected URL getURL(String digest) throws java.net.MalformedURLException {
         String urlString = String.format("%s/calendar", AppDefaults.getBaseUrl());
@@ -1,6 +1,8 @@
 package com.rmkrings.loader;
 
+import com.rmkrings.data.eva.Eva;
 import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.JsonDecoder;
 
 import java.net.URL;
 
@@ -13,6 +15,11 @@ public class EvaLoader extends HttpAuthenticatedGetLoader {
         this.forGrade = forGrade;
     }
 
+    @Override
+    JsonDecoder<?> getDecoder() {
+        return Eva.decoder;
+    }
+
     protected URL getURL(String digest) throws java.net.MalformedURLException {
         String separator = "?";
         String urlString = String.format("%s/v2/eva", AppDefaults.getBaseUrl());
@@ -1,35 +1,32 @@
 package com.rmkrings.loader;
 
-import android.util.Base64;
-
-import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.CredentialSession;
 
 import java.net.URLConnection;
 
 abstract class HttpAuthenticatedGetLoader extends HttpGet {
-    static String getAndEncodeCredentials(String username, String password) {
-        String realUsername;
-        String realPassword;
+    private String authorization;
 
-        if (username == null && password == null) {
-            realUsername = AppDefaults.getUsername();
-            realPassword = AppDefaults.getPassword();
-            //(realUsername, realPassword) = AppDefaults.credentials;
-        } else {
-            realUsername = username;
-            realPassword = password;
-        }
-
-        String loginString = String.format("%s:%s", realUsername, realPassword);
-        byte[] loginData = Base64.encode(loginString.getBytes(), Base64.DEFAULT);
-        return new String(loginData);
+    static String getAndEncodeCredentials(String username, String password) {
+        return CredentialSession.encode(username, password);
     }
 
     @Override
     public URLConnection addRequestProperties(URLConnection connection) {
+        authorization = CredentialSession.getAuthorization();
         super
                 .addRequestProperties(connection)
-                .addRequestProperty("Authorization", "Basic " + getAndEncodeCredentials(null, null));
+                .addRequestProperty("Authorization", authorization);
         return connection;
     }
+
+    /**
+     * Authenticated requests are identical only when they are sent with the same credentials.
+     * @param connection - Connection with all request properties set.
+     * @return Request key
+     */
+    @Override
+    String getRequestKey(URLConnection connection) {
+        return super.getRequestKey(connection) + " " + authorization;
+    }
 }
@@ -1,8 +1,13 @@
 package com.rmkrings.loader;
 
+import com.rmkrings.helper.Cache;
+import com.rmkrings.helper.CacheRecord;
+import com.rmkrings.helper.JsonDecoder;
 import com.rmkrings.helper.Reachability;
-import com.rmkrings.http.HttpRequest;
+import com.rmkrings.http.DeltaBase;
+import com.rmkrings.http.HttpRequestEngine;
 import com.rmkrings.http.HttpRequestData;
+import com.rmkrings.http.RequestCoalescer;
 import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.http.HttpResponseData;
 
@@ -10,6 +15,7 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 
 abstract class HttpGet {
     protected abstract URL getURL(String digest) throws java.net.MalformedURLException;
@@ -18,7 +24,54 @@ abstract class HttpGet {
         return connection;
     }
 
+    /**
+     * Key that identifies identical requests. Requests with same key that are
+     * in flight at the same time are sent only once.
+     * @param connection - Connection with all request properties set.
+     * @return Request key
+     */
+    String getRequestKey(URLConnection connection) {
+        return connection.getURL().toString();
+    }
+
+    /**
+     * Decoder that builds the model while the response is being received.
+     * @return Decoder or null if response data should not be decoded.
+     */
+    JsonDecoder<?> getDecoder() {
+        return null;
+    }
+
+    /**
+     * Cached document backend may send a delta for instead of the entire document.
+     * @param digest - Digest sent with request.
+     * @return Delta base or null if no cached document has this digest.
+     * @throws IOException when request for entire document cannot be created.
+     */
+    private DeltaBase getDeltaBase(final String digest) throws IOException {
+        final Cache cache = new Cache();
+        final String name = (digest != null) ? cache.findRecord(digest) : null;
+
+        if (name == null) {
+            return null;
+        }
+
+        URLConnection fullRequest = getURL(null).openConnection();
+        ((HttpURLConnection)fullRequest).setRequestMethod("GET");
+
+        return new DeltaBase(digest, addRequestProperties(fullRequest)) {
+            @Override
+            protected ByteBuffer readPayload() {
+                // Dataset may have been replaced since request has been created.
+                final CacheRecord record = cache.readRecord(name);
+                return (record != null && digest.equals(record.getDigest())) ? record.getPayload() : null;
+            }
+        };
+    }
+
     public void load(HttpResponseCallback callback, String digest) {
+        HttpResponseCallback requestCallback = callback;
+
         try {
             if (Reachability.isReachable()) {
                 URL url = getURL(digest);
@@ -27,18 +80,26 @@ abstract class HttpGet {
                 ((HttpURLConnection)connection).setRequestMethod("GET");
                 connection = addRequestProperties(connection);
 
-                HttpRequest request = new HttpRequest();
-                HttpRequestData data = new HttpRequestData(connection, callback);
-                request.execute(data);
+                // When the very same request is in flight already wait for its response
+                // instead of sending another one.
+                requestCallback = RequestCoalescer.getInstance().join(getRequestKey(connection), callback);
+                if (requestCallback == null) {
+                    return;
+                }
+
+                HttpRequestData data = new HttpRequestData(connection, requestCallback, getDecoder(), getDeltaBase(digest));
+                HttpRequestEngine.getInstance().enqueue(data);
             } else {
                 // null, true indicates that data could not be loaded due to connection
                 // error. Callback will try to load data from cache and display an error
                 // message.
-                callback.execute(new HttpResponseData(null, true));
+                HttpRequestEngine.getInstance().deliver(callback, new HttpResponseData(null, true));
             }
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
+            // Shared callback of a coalesced request must run, too, otherwise request
+            // stays in flight.
             e.printStackTrace();
-            callback.execute(new HttpResponseData(500, true));
+            HttpRequestEngine.getInstance().deliver(requestCallback, new HttpResponseData(500, true));
         }
     }
 }
@@ -1,7 +1,7 @@
 package com.rmkrings.loader;
 
 import com.rmkrings.helper.Reachability;
-import com.rmkrings.http.HttpRequest;
+import com.rmkrings.http.HttpRequestEngine;
 import com.rmkrings.http.HttpRequestData;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.interfaces.HttpResponseCallback;
@@ -31,9 +31,8 @@ abstract class HttpPost {
                 ((HttpURLConnection)connection).setRequestMethod("POST");
                 connection = addRequestProperties(connection);
 
-                HttpRequest request = new HttpRequest();
                 HttpRequestData data = new HttpRequestData(connection, callback, getBody());
-                request.execute(data);
+                HttpRequestEngine.getInstance().enqueue(data);
             } else {
                 // null, true indicates that data could not be loaded due to connection
                 // error. Callback will try to load data from cache and display an error
@@ -1,11 +1,18 @@
 package com.rmkrings.loader;
 
+import com.rmkrings.data.news.NewsItems;
 import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.JsonDecoder;
 
 import java.net.URL;
 
 public class NewsLoader extends HttpGet {
 
+    @Override
+    JsonDecoder<?> getDecoder() {
+        return NewsItems.decoder;
+    }
+
     @Override
     protected URL getURL(String digest) throws java.net.MalformedURLException {
         String urlString = String.format("%s/v2/news", AppDefaults.getBaseUrl());
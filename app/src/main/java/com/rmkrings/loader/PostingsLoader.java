@@ -1,11 +1,18 @@
 package com.rmkrings.loader;
 
+import com.rmkrings.data.postings.Postings;
 import com.rmkrings.helper.AppDefaults;
+import com.rmkrings.helper.JsonDecoder;
 
 import java.net.URL;
 
 public class PostingsLoader extends HttpGet {
 
+    @Override
+    JsonDecoder<?> getDecoder() {
+        return Postings.decoder;
+    }
+
     @Override
     protected URL getURL(String digest) throws java.net.MalformedURLException {
         String urlString = String.format("%s/v2/postings", AppDefaults.getBaseUrl());
@@ -5,14 +5,16 @@ import android.annotation.SuppressLint;
 import com.rmkrings.data.staff.StaffDictionary;
 import com.rmkrings.helper.AppDefaults;
 import com.rmkrings.helper.Cache;
-import com.rmkrings.helper.Config;
+import com.rmkrings.helper.CacheRecord;
+import com.rmkrings.helper.JsonDecoder;
+import com.rmkrings.helper.ModelCache;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.interfaces.HttpResponseCallback;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
 import java.net.URL;
 import java.util.logging.Logger;
 
@@ -23,12 +25,16 @@ import java.util.logging.Logger;
  * called.
  */
 public class StaffLoader extends HttpGet implements HttpResponseCallback {
-    private final String cacheFileName = Config.cacheFilename("staff");
-    private final String digestFileName = Config.digestFilename(("staff"));
+    private static final String STAFF = "staff";
     private final Cache cache = new Cache();
 
     private final static Logger logger = Logger.getLogger(CalendarLoader.class.getName());
 
+    @Override
+    JsonDecoder<?> getDecoder() {
+        return StaffDictionary.decoder;
+    }
+
     @Override
     protected URL getURL(String digest) throws MalformedURLException {
         String urlString = String.format("%s/v2/staff", AppDefaults.getBaseUrl());
@@ -41,12 +47,7 @@ public class StaffLoader extends HttpGet implements HttpResponseCallback {
     }
 
     public void load() {
-        String digest = null;
-
-        if (cache.fileExists(digestFileName)) {
-            digest = cache.read(digestFileName);
-        }
-        super.load(this, digest);
+        super.load(this, cache.getDigest(STAFF));
     }
 
     /**
@@ -58,24 +59,30 @@ public class StaffLoader extends HttpGet implements HttpResponseCallback {
     @SuppressLint("DefaultLocale")
     @Override
     public void execute(HttpResponseData responseData) {
-        String data;
-        String digest;
-        JSONObject jsonData;
+        byte[] data;
+        StaffDictionary staffDictionary;
 
         if (responseData.getHttpStatusCode() != null && responseData.getHttpStatusCode() != 200 && responseData.getHttpStatusCode() != 304) {
             logger.severe(String.format("Failed to load data for Staff dictionary. HTTP Status code %d.", responseData.getHttpStatusCode()));
             return;
         }
 
-        data = responseData.getData();
+        data = responseData.getBody();
         if (data != null) {
             // When data has changed we need the new digest as it must be updated.
             try {
-                jsonData = new JSONObject(data);
-                digest = jsonData.getString("_digest");
-                cache.store(cacheFileName, data);
-                cache.store(digestFileName, digest);
-            } catch(JSONException e) {
+                staffDictionary = (responseData.getModel() != null)
+                        ? (StaffDictionary)responseData.getModel()
+                        : StaffDictionary.decoder.decode(ByteBuffer.wrap(data));
+
+                if (staffDictionary.getDigest() == null) {
+                    logger.severe("Staff dictionary has no digest.");
+                    return;
+                }
+
+                cache.storeRecord(STAFF, new CacheRecord(data, staffDictionary.getDigest(), responseData.getHttpStatusCode()));
+                ModelCache.getInstance().put(STAFF, staffDictionary.getDigest(), staffDictionary, data.length);
+            } catch(IOException | RuntimeException e) {
                 // Basically there is not much we can do here. Showing an error is not of much
                 // help for the user.
                 e.printStackTrace();
@@ -88,18 +95,11 @@ public class StaffLoader extends HttpGet implements HttpResponseCallback {
      * @return Returns current staff dictionary. This dictionary might be empty.
      */
     public StaffDictionary loadFromCache() {
-        if (!cache.fileExists(cacheFileName)) {
-            return new StaffDictionary();
-        }
-
-        String data = cache.read(cacheFileName);
-        if (data == null) {
-            return new StaffDictionary();
-        }
-
         try {
-            return new StaffDictionary(data);
-        } catch (JSONException e) {
+            return ModelCache.getInstance().get(STAFF, StaffDictionary.decoder);
+        } catch (FileNotFoundException e) {
+            return new StaffDictionary();
+        } catch (IOException | RuntimeException e) {
             e.printStackTrace();
             return new StaffDictionary();
         }
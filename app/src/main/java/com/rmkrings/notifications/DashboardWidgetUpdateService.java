@@ -11,10 +11,12 @@ import androidx.annotation.Nullable;
 import com.rmkrings.widgets.DashboardWidget;
 
 /**
- * This service is used to update Dashboard widget. It should be triggered by app whenever
- * dashboard data is likely to change. The widget itself is not able to load substitution
- * data due to time limit restrictions. It always accesses the cache in order to update
- * itself.
+ * This service is used to update Dashboard widget unconditionally after settings have
+ * changed; it is started by GeneralPreferencesFragment. The widget itself is not able to load
+ * substitution data due to time limit restrictions. It always accesses the cache in order to
+ * update itself. At lesson start DashboardWidgetScheduler sends ACTION_APPWIDGET_UPDATE to
+ * DashboardWidget directly, after new data has been loaded app uses
+ * DashboardWidgetUpdateWorker.
  */
 public class DashboardWidgetUpdateService extends Service {
 
@@ -31,9 +33,7 @@ public class DashboardWidgetUpdateService extends Service {
             return super.onStartCommand(intent, flags, startId);
         }
 
-        for (int id: ids) {
-            DashboardWidget.updateAppWidget(context, appWidgetManager, id);
-        }
+        DashboardWidget.updateAppWidgets(context, appWidgetManager, ids);
 
         // Done, wait for next start of service.
         stopSelf();
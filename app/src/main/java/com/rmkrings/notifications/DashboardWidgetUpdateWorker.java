@@ -0,0 +1,61 @@
+package com.rmkrings.notifications;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.rmkrings.widgets.DashboardWidget;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates Dashboard widget after new data has been loaded. Requests are debounced: All
+ * requests made within DELAY_SECONDS are merged into a single update, and the update is
+ * skipped when widgets already show the current widget snapshot, e.g. when a load has
+ * returned 304. These updates must render in any case and do not go through this worker:
+ * at lesson start DashboardWidgetScheduler sends ACTION_APPWIDGET_UPDATE to DashboardWidget
+ * directly, after settings have changed DashboardWidgetUpdateService is started.
+ */
+public class DashboardWidgetUpdateWorker extends Worker {
+    private static final String WORK_NAME = "dashboardWidgetUpdate";
+    private static final long DELAY_SECONDS = 2;
+
+    public DashboardWidgetUpdateWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Request widget update. A pending request is replaced, thus a burst of requests
+     * results in one update after the last one.
+     * @param context - Any context, application context is used.
+     */
+    public static void enqueue(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(DashboardWidgetUpdateWorker.class)
+                .setInitialDelay(DELAY_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager.getInstance(context.getApplicationContext()).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.REPLACE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        int[] ids = appWidgetManager.getAppWidgetIds(new ComponentName(context, DashboardWidget.class));
+
+        // No widget configured or nothing new to show, exit.
+        if (ids.length == 0 || DashboardWidget.isUpToDate()) {
+            return Result.success();
+        }
+
+        DashboardWidget.updateAppWidgets(context, appWidgetManager, ids);
+        return Result.success();
+    }
+}
@@ -24,16 +24,17 @@ import com.rmkrings.activities.ScheduleChangedActivity;
 import com.rmkrings.data.vertretungsplan.Vertretungsplan;
 import com.rmkrings.helper.AppDefaults;
 import com.rmkrings.helper.Cache;
-import com.rmkrings.helper.Config;
+import com.rmkrings.helper.CacheRecord;
+import com.rmkrings.helper.ModelCache;
 import com.rmkrings.http.HttpResponseData;
 import com.rmkrings.interfaces.HttpResponseCallback;
 import com.rmkrings.loader.HttpDeviceTokenSetter;
 import com.rmkrings.pius_app_for_android;
+import com.rmkrings.widgets.WidgetSnapshot;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -103,18 +104,19 @@ public class PiusAppMessageService extends FirebaseMessagingService implements H
         if (remoteMessage.getData().containsKey("substitutionSchedule")) {
             try {
                 final String data = remoteMessage.getData().get("substitutionSchedule");
-                final Vertretungsplan vertretungsplan = new Vertretungsplan(new JSONObject(Objects.requireNonNull(data)));
+                final Vertretungsplan vertretungsplan = Vertretungsplan.decoder.decode(Objects.requireNonNull(data));
                 final String grade = AppDefaults.getGradeSetting();
                 final Cache cache = new Cache();
-                cache.store(Config.digestFilename(grade), vertretungsplan.getDigest());
-                cache.store(Config.cacheFilename(grade), data);
+                final byte[] payload = data.getBytes(StandardCharsets.UTF_8);
+                cache.storeRecord(grade, new CacheRecord(payload, vertretungsplan.getDigest(), 200));
+                ModelCache.getInstance().put(grade, vertretungsplan.getDigest(), vertretungsplan, payload.length);
+                WidgetSnapshot.store(grade, vertretungsplan);
 
                 // Update widget when new data has been loaded.
                 Context context = pius_app_for_android.getAppContext();
-                Intent widgetIntent = new Intent(context, DashboardWidgetUpdateService.class);
-                context.startService(widgetIntent);
+                DashboardWidgetUpdateWorker.enqueue(context);
             }
-            catch(JSONException e) {
+            catch(IOException | RuntimeException e) {
                 e.printStackTrace();
             }
         }
@@ -5,6 +5,7 @@ import android.content.Context;
 import android.content.IntentFilter;
 import android.net.ConnectivityManager;
 
+import com.rmkrings.helper.Cache;
 import com.rmkrings.helper.Reachability;
 import com.rmkrings.notifications.PiusAppMessageService;
 
@@ -19,6 +20,14 @@ public class pius_app_for_android extends Application {
         super.onCreate();
         registerReceiver(Reachability.getInstance(), new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
 
+        // Read digests of cached data sets while UI is coming up.
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Cache.loadDigestIndex();
+            }
+        }).start();
+
         PiusAppMessageService piusAppMessageService = new PiusAppMessageService();
         piusAppMessageService.updateDeviceToken();
     }
@@ -1,35 +1,28 @@
 package com.rmkrings.widgets;
 
-import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
 import android.content.Intent;
-import android.os.SystemClock;
 import android.view.View;
 import android.widget.RemoteViews;
 
 import com.rmkrings.activities.MainActivity;
 import com.rmkrings.activities.R;
-import com.rmkrings.data.vertretungsplan.GradeItem;
-import com.rmkrings.data.vertretungsplan.Vertretungsplan;
-import com.rmkrings.data.vertretungsplan.VertretungsplanForDate;
 import com.rmkrings.helper.AppDefaults;
-import com.rmkrings.helper.Cache;
 import com.rmkrings.helper.Config;
 import com.rmkrings.helper.FormatHelper;
-import com.rmkrings.helper.StringHelper;
-import com.rmkrings.notifications.DashboardWidgetUpdateService;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.util.Date;
+
 
 /**
  * Implementation of App Widget functionality.
  */
 public class DashboardWidget extends AppWidgetProvider {
-    private PendingIntent pendingIntent;
+    // Digest of snapshot widgets have been rendered from, null if unknown.
+    private static volatile String renderedDigest = null;
 
     /**
      * Show a given message in comment view of Pius App widget. All other views get
@@ -52,18 +45,55 @@ public class DashboardWidget extends AppWidgetProvider {
     }
 
     /**
-     * Updates content of Pius-App widget from current cache content.
+     * Updates content of all Pius-App widgets from widget snapshot. Snapshot is read once
+     * for all widgets. Next update is scheduled for the time widget content changes.
+     * @param context - Context to get resources from
+     * @param appWidgetManager - App widget manager that finally will update the widgets
+     * @param appWidgetIds - The widget ids of widgets to update
+     */
+    public static void updateAppWidgets(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        final Date currentDate = new Date();
+        String digest = null;
+        WidgetSnapshot snapshot = null;
+
+        try {
+            // Snapshot is written whenever a new schedule is stored, schedule itself is not read here.
+            if (Config.canUseDashboard()) {
+                digest = WidgetSnapshot.getDigest();
+                snapshot = WidgetSnapshot.read(AppDefaults.getGradeSetting());
+            }
+        }
+        catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+
+        for (int appWidgetId : appWidgetIds) {
+            updateAppWidget(context, appWidgetManager, appWidgetId, snapshot, currentDate);
+        }
+
+        DashboardWidgetScheduler.schedule(context, (snapshot != null) ? snapshot.nextChange(currentDate) : 0);
+        renderedDigest = (snapshot != null) ? digest : null;
+    }
+
+    /**
+     * @return true if widgets show current widget snapshot already.
+     */
+    public static boolean isUpToDate() {
+        final String digest = WidgetSnapshot.getDigest();
+        return digest != null && digest.equals(renderedDigest);
+    }
+
+    /**
+     * Updates content of Pius-App widget.
      * @param context - Context to get resources from
      * @param appWidgetManager - App widget manager that finally will update the widget
      * @param appWidgetId - The widget id of widget to update
+     * @param snapshot - Widget snapshot or null if there is none
+     * @param currentDate - Date and time to show next substitution for
      */
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
-        final Cache cache = new Cache();
-
+    private static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId, WidgetSnapshot snapshot, Date currentDate) {
         try {
             final RemoteViews remoteViews = new RemoteViews(context.getPackageName(), R.layout.dashboard_widget);
-            final String grade = AppDefaults.getGradeSetting();
-            final String cacheFileName = Config.cacheFilename(grade);
 
             final Intent a = new Intent(context, MainActivity.class);
             a.putExtra("target", MainActivity.getTargetDashboard());
@@ -72,23 +102,14 @@ public class DashboardWidget extends AppWidgetProvider {
 
             if (!Config.canUseDashboard()) {
                 showMessage(remoteViews, context.getResources().getString(R.string.error_cannot_use_dashboard_widget));
-            } else if (!cache.fileExists(cacheFileName)) {
+            } else if (snapshot == null) {
                 showMessage(remoteViews, context.getResources().getString(R.string.error_no_data));
             } else {
                 // Ok,
-                final String data = cache.read(Config.cacheFilename(grade));
-                final JSONObject jsonObject = new JSONObject(data);
-                final Vertretungsplan vertretungsplan = new Vertretungsplan(jsonObject);
-                final VertretungsplanForDate filteredVertretungsplan = vertretungsplan.next();
+                final WidgetSnapshot.Row row = snapshot.next(currentDate);
 
                 // Update widget content.
-                if (filteredVertretungsplan != null) {
-                    final String date = filteredVertretungsplan.getDate();
-                    final GradeItem gradeItem = filteredVertretungsplan.getGradeItems().get(0);
-                    final String[] vertretungsplanItem = gradeItem.getVertretungsplanItems().get(0);
-                    final String lesson = vertretungsplanItem[0];
-                    final String course = StringHelper.replaceHtmlEntities(vertretungsplanItem[2]);
-
+                if (row != null) {
                     remoteViews.setViewVisibility(R.id.widgetVertretungsplanHeaderItem, View.VISIBLE);
                     remoteViews.setViewVisibility(R.id.widgetVertretungsplanSubHeaderItem, View.VISIBLE);
                     remoteViews.setViewVisibility(R.id.widgetDetailsLayout, View.VISIBLE);
@@ -96,35 +117,22 @@ public class DashboardWidget extends AppWidgetProvider {
                     remoteViews.setViewVisibility(R.id.widgetRoomItem, View.VISIBLE);
                     remoteViews.setViewVisibility(R.id.widgetTeacherItem, View.VISIBLE);
 
-                    remoteViews.setTextViewText(R.id.widgetVertretungsplanHeaderItem, date);
-
-                    if (course.isEmpty()) {
-                        remoteViews.setTextViewText(R.id.widgetVertretungsplanSubHeaderItem, String.format("%s. Stunde", lesson));
-                    } else {
-                        remoteViews.setTextViewText(R.id.widgetVertretungsplanSubHeaderItem, String.format("Fach/Kurs: %s %s. Stunde", course, lesson));
-                    }
-
-                    final String type = StringHelper.replaceHtmlEntities(vertretungsplanItem[1]);
-                    final String room = StringHelper.replaceHtmlEntities(vertretungsplanItem[3]);
-                    final String teacher = StringHelper.replaceHtmlEntities(vertretungsplanItem[4]);
-                    final String comment = StringHelper.replaceHtmlEntities(vertretungsplanItem[6]);
-
-                    remoteViews.setTextViewText(R.id.widgetSubstitutionTypeItem, type);
-                    remoteViews.setTextViewText(R.id.widgetRoomItem, FormatHelper.roomText(room));
-                    remoteViews.setTextViewText(R.id.widgetTeacherItem, teacher);
+                    remoteViews.setTextViewText(R.id.widgetVertretungsplanHeaderItem, row.getDate());
+                    remoteViews.setTextViewText(R.id.widgetVertretungsplanSubHeaderItem, row.getSubHeader());
+                    remoteViews.setTextViewText(R.id.widgetSubstitutionTypeItem, row.getType());
+                    remoteViews.setTextViewText(R.id.widgetRoomItem, FormatHelper.roomText(row.getRoom()));
+                    remoteViews.setTextViewText(R.id.widgetTeacherItem, row.getTeacher());
 
-                    if (comment.isEmpty()) {
+                    if (row.getComment().isEmpty()) {
                         remoteViews.setViewVisibility(R.id.widgetCommentItem, View.GONE);
                     } else {
                         remoteViews.setViewVisibility(R.id.widgetCommentItem, View.VISIBLE);
-                        remoteViews.setTextViewText(R.id.widgetCommentItem, comment);
+                        remoteViews.setTextViewText(R.id.widgetCommentItem, row.getComment());
                     }
 
-                    if (vertretungsplanItem.length == 8 && !vertretungsplanItem[7].isEmpty()) {
-                        final String eva = vertretungsplanItem[7];
+                    if (!row.getEva().isEmpty()) {
                         remoteViews.setViewVisibility(R.id.widgetEvaItem, View.VISIBLE);
-                        remoteViews.setTextViewText(R.id.widgetEvaItem, eva);
-
+                        remoteViews.setTextViewText(R.id.widgetEvaItem, row.getEva());
                     } else {
                         remoteViews.setViewVisibility(R.id.widgetEvaItem, View.GONE);
                     }
@@ -132,12 +140,12 @@ public class DashboardWidget extends AppWidgetProvider {
                     showMessage(remoteViews, context.getResources().getString(R.string.text_empty_future_schedule));
                 }
 
-                remoteViews.setTextViewText(R.id.widgetLastUpdate, vertretungsplan.getLastUpdate());
+                remoteViews.setTextViewText(R.id.widgetLastUpdate, snapshot.getLastUpdate());
             }
 
             appWidgetManager.updateAppWidget(appWidgetId, remoteViews);
         }
-        catch(JSONException e) {
+        catch(RuntimeException e) {
             e.printStackTrace();
         }
     }
@@ -150,21 +158,8 @@ public class DashboardWidget extends AppWidgetProvider {
      */
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        final RemoteViews remoteViews = new RemoteViews(context.getPackageName(), R.layout.dashboard_widget);
-        final AlarmManager alarmManager = (AlarmManager)context.getSystemService(Context.ALARM_SERVICE);
-        final Intent intent = new Intent(context, DashboardWidgetUpdateService.class);
-
-        if (pendingIntent == null) {
-            pendingIntent = PendingIntent.getService(context, 0, intent, PendingIntent.FLAG_CANCEL_CURRENT);
-        }
-
-        alarmManager.setRepeating(AlarmManager.ELAPSED_REALTIME, SystemClock.elapsedRealtime(), 60000, pendingIntent);
-
         // There may be multiple widgets active, so update all of them.
-        for (int appWidgetId : appWidgetIds) {
-            appWidgetManager.updateAppWidget(appWidgetId, remoteViews);
-            updateAppWidget(context, appWidgetManager, appWidgetId);
-        }
+        updateAppWidgets(context, appWidgetManager, appWidgetIds);
     }
 
     /**
@@ -177,12 +172,12 @@ public class DashboardWidget extends AppWidgetProvider {
     }
 
     /**
-     * Not implemented.
+     * Last widget has been removed, no more updates needed.
      * @param context - Widget context
      */
     @Override
     public void onDisabled(Context context) {
-        // Enter relevant functionality for when the last widget is disabled
+        DashboardWidgetScheduler.cancel(context);
     }
 }
 
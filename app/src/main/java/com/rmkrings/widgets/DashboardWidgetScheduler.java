@@ -0,0 +1,70 @@
+package com.rmkrings.widgets;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+
+import java.util.Date;
+import java.util.logging.Logger;
+
+/**
+ * Schedules update of dashboard widget for the moment its content changes, i.e. when the
+ * lesson it shows starts. Writing new schedule data to cache starts an update on its own,
+ * thus there is at most one pending alarm and none at all when there is no upcoming
+ * substitution.
+ */
+final class DashboardWidgetScheduler {
+    private final static Logger logger = Logger.getLogger(DashboardWidgetScheduler.class.getName());
+
+    // Alarm may be delayed by this to let system batch it with other alarms.
+    private static final long WINDOW = 60 * 1000;
+
+    private DashboardWidgetScheduler() {
+    }
+
+    /**
+     * Alarm is delivered to widget provider as update broadcast. Starting a service from
+     * an alarm is not allowed while app is in background on Android 8 and later.
+     * @param context - Context to create intent with.
+     * @return Intent that updates all dashboard widgets.
+     */
+    private static PendingIntent getPendingIntent(Context context) {
+        final int[] appWidgetIds = AppWidgetManager.getInstance(context).getAppWidgetIds(new ComponentName(context, DashboardWidget.class));
+        final Intent intent = new Intent(context, DashboardWidget.class);
+
+        intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
+        intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, appWidgetIds);
+        return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    /**
+     * Replace pending alarm, if any, by one for given time.
+     * @param context - Context to get alarm manager from.
+     * @param triggerAt - Epoch time in milliseconds widget content changes at, 0 if it does
+     *                  not change until cache gets updated.
+     */
+    static void schedule(Context context, long triggerAt) {
+        if (triggerAt == 0) {
+            cancel(context);
+            return;
+        }
+
+        // Not a wakeup alarm: Nobody looks at widget while device sleeps, it gets updated as
+        // soon as device wakes up.
+        final AlarmManager alarmManager = (AlarmManager)context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.setWindow(AlarmManager.RTC, triggerAt, WINDOW, getPendingIntent(context));
+        logger.info(String.format("Next widget update at %s.", new Date(triggerAt)));
+    }
+
+    /**
+     * Cancel pending alarm.
+     * @param context - Context to get alarm manager from.
+     */
+    static void cancel(Context context) {
+        final AlarmManager alarmManager = (AlarmManager)context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.cancel(getPendingIntent(context));
+    }
+}
@@ -0,0 +1,303 @@
+package com.rmkrings.widgets;
+
+import com.rmkrings.data.vertretungsplan.GradeItem;
+import com.rmkrings.data.vertretungsplan.Vertretungsplan;
+import com.rmkrings.data.vertretungsplan.VertretungsplanForDate;
+import com.rmkrings.helper.Cache;
+import com.rmkrings.helper.CacheRecord;
+import com.rmkrings.helper.StringHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Everything dashboard widget shows, precomputed whenever a new substitution schedule for
+ * a grade is stored. Holds the upcoming substitutions in the order widget shows them, with
+ * HTML entities already replaced, together with their start times. Widget thus reads this
+ * small record only and never has to decode the schedule itself.
+ */
+public final class WidgetSnapshot {
+    private final static Logger logger = Logger.getLogger(WidgetSnapshot.class.getName());
+
+    static final String NAME = "widget";
+    private static final int VERSION = 1;
+
+    /**
+     * A single substitution as shown by widget.
+     */
+    public static final class Row {
+        private final String date;
+        private final String lesson;
+        private final String course;
+        private final String type;
+        private final String room;
+        private final String teacher;
+        private final String comment;
+        private final String eva;
+
+        Row(String date, String lesson, String course, String type, String room, String teacher, String comment, String eva) {
+            this.date = date;
+            this.lesson = lesson;
+            this.course = course;
+            this.type = type;
+            this.room = room;
+            this.teacher = teacher;
+            this.comment = comment;
+            this.eva = eva;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        /**
+         * @return Sub header text with course and lesson.
+         */
+        public String getSubHeader() {
+            return (course.isEmpty()) ? String.format("%s. Stunde", lesson) : String.format("Fach/Kurs: %s %s. Stunde", course, lesson);
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getRoom() {
+            return room;
+        }
+
+        public String getTeacher() {
+            return teacher;
+        }
+
+        public String getComment() {
+            return comment;
+        }
+
+        /**
+         * @return EVA text, empty if there is none.
+         */
+        public String getEva() {
+            return eva;
+        }
+    }
+
+    private final String grade;
+    private final String lastUpdate;
+    private final long[] startTimes;
+    private final Row[] rows;
+
+    private WidgetSnapshot(String grade, String lastUpdate, long[] startTimes, Row[] rows) {
+        this.grade = grade;
+        this.lastUpdate = lastUpdate;
+        this.startTimes = startTimes;
+        this.rows = rows;
+    }
+
+    /**
+     * Build snapshot from schedule of a grade.
+     * @param grade - Grade schedule is for.
+     * @param vertretungsplan - Schedule filtered by grade.
+     * @param currentDate - Substitutions that start after this date are included.
+     * @return Snapshot.
+     */
+    static WidgetSnapshot build(String grade, Vertretungsplan vertretungsplan, Date currentDate) {
+        final ArrayList<Long> startTimes = new ArrayList<>();
+        final ArrayList<Row> rows = new ArrayList<>();
+
+        // Walk along the substitutions in the very order widget shows them over time.
+        Date date = currentDate;
+        VertretungsplanForDate next;
+        while ((next = vertretungsplan.next(date)) != null) {
+            final long startTime = vertretungsplan.nextChange(date);
+            final GradeItem gradeItem = next.getGradeItems().get(0);
+            final String eva = gradeItem.getEva(0);
+
+            startTimes.add(startTime);
+            rows.add(new Row(
+                    next.getDate(),
+                    gradeItem.getLesson(0),
+                    StringHelper.replaceHtmlEntities(gradeItem.getCourse(0)),
+                    StringHelper.replaceHtmlEntities(gradeItem.getSubstitutionTypeText(0)),
+                    StringHelper.replaceHtmlEntities(gradeItem.getRoom(0)),
+                    StringHelper.replaceHtmlEntities(gradeItem.getTeacher(0)),
+                    StringHelper.replaceHtmlEntities(gradeItem.getRemark(0)),
+                    (eva != null) ? eva : ""));
+            date = new Date(startTime);
+        }
+
+        final long[] a = new long[startTimes.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = startTimes.get(i);
+        }
+
+        final String lastUpdate = (vertretungsplan.getLastUpdate() != null) ? vertretungsplan.getLastUpdate() : "";
+        return new WidgetSnapshot(grade, lastUpdate, a, rows.toArray(new Row[0]));
+    }
+
+    /**
+     * Build snapshot from a schedule that has just been loaded and store it.
+     * @param grade - Grade schedule is for.
+     * @param vertretungsplan - Schedule filtered by grade.
+     */
+    public static void store(String grade, Vertretungsplan vertretungsplan) {
+        try {
+            final byte[] data = build(grade, vertretungsplan, new Date()).toBytes();
+            final CRC32 crc = new CRC32();
+            crc.update(data);
+            new Cache().storeRecord(NAME, new CacheRecord(data, Long.toHexString(crc.getValue()), 200));
+        }
+        catch (IOException e) {
+            logger.severe(String.format("Failed to store widget snapshot: %s", e.toString()));
+        }
+    }
+
+    /**
+     * Store snapshot unless there is one for grade already, e.g. when schedule has been
+     * cached before snapshots existed or grade setting has changed.
+     * @param grade - Grade schedule is for.
+     * @param vertretungsplan - Schedule filtered by grade.
+     */
+    public static void storeIfMissing(String grade, Vertretungsplan vertretungsplan) {
+        if (read(grade) == null) {
+            store(grade, vertretungsplan);
+        }
+    }
+
+    /**
+     * Digest of stored snapshot. This is answered from memory.
+     * @return Digest or null if there is no snapshot.
+     */
+    public static String getDigest() {
+        return new Cache().getDigest(NAME);
+    }
+
+    /**
+     * Read stored snapshot.
+     * @param grade - Grade widget shows.
+     * @return Snapshot or null if there is none for grade.
+     */
+    public static WidgetSnapshot read(String grade) {
+        final ByteBuffer payload = new Cache().readPayload(NAME);
+        if (payload == null) {
+            return null;
+        }
+
+        try {
+            final WidgetSnapshot snapshot = fromBuffer(payload);
+            return (snapshot.grade.equals(grade)) ? snapshot : null;
+        }
+        catch (IOException e) {
+            logger.severe(String.format("Widget snapshot is invalid: %s", e.toString()));
+            return null;
+        }
+    }
+
+    byte[] toBytes() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(VERSION);
+        out.writeUTF(grade);
+        out.writeUTF(lastUpdate);
+        out.writeInt(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            final Row row = rows[i];
+            out.writeLong(startTimes[i]);
+            out.writeUTF(row.date);
+            out.writeUTF(row.lesson);
+            out.writeUTF(row.course);
+            out.writeUTF(row.type);
+            out.writeUTF(row.room);
+            out.writeUTF(row.teacher);
+            out.writeUTF(row.comment);
+            out.writeUTF(row.eva);
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static WidgetSnapshot fromBuffer(ByteBuffer buffer) throws IOException {
+        final byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != VERSION) {
+            throw new IOException("Unsupported widget snapshot version");
+        }
+
+        final String grade = in.readUTF();
+        final String lastUpdate = in.readUTF();
+        final int size = in.readInt();
+        if (size < 0 || size > data.length) {
+            throw new IOException("Invalid number of rows in widget snapshot");
+        }
+
+        final long[] startTimes = new long[size];
+        final Row[] rows = new Row[size];
+        for (int i = 0; i < size; i++) {
+            startTimes[i] = in.readLong();
+            rows[i] = new Row(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+        }
+
+        return new WidgetSnapshot(grade, lastUpdate, startTimes, rows);
+    }
+
+    /**
+     * @param time - Epoch time in milliseconds.
+     * @return Index of first row that starts after given time or number of rows.
+     */
+    private int nextIndex(long time) {
+        int index = Arrays.binarySearch(startTimes, time);
+        if (index < 0) {
+            return -index - 1;
+        }
+
+        // Rows that start at time itself have begun already.
+        while (index < startTimes.length && startTimes[index] <= time) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @param currentDate - Date and time to search from.
+     * @return Next substitution that starts after given date or null.
+     */
+    public Row next(Date currentDate) {
+        final int index = nextIndex(currentDate.getTime());
+        return (index < rows.length) ? rows[index] : null;
+    }
+
+    /**
+     * @param currentDate - Date and time to search from.
+     * @return Start time of row next() returns, i.e. when widget must be updated, or 0 if
+     * there is none.
+     */
+    public long nextChange(Date currentDate) {
+        final int index = nextIndex(currentDate.getTime());
+        return (index < startTimes.length) ? startTimes[index] : 0;
+    }
+
+    public String getGrade() {
+        return grade;
+    }
+
+    public String getLastUpdate() {
+        return lastUpdate;
+    }
+
+    public List<Row> getRows() {
+        return Arrays.asList(rows);
+    }
+}
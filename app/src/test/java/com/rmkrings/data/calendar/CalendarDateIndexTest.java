@@ -0,0 +1,86 @@
+package com.rmkrings.data.calendar;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CalendarDateIndexTest {
+    private static int day(int year, int month, int dayOfMonth) {
+        return (int)LocalDate.of(year, month, dayOfMonth).toEpochDay();
+    }
+
+    @Test
+    public void epochDayMatchesLocalDate() {
+        for (LocalDate date = LocalDate.of(1999, 12, 1); date.getYear() < 2031; date = date.plusDays(1)) {
+            assertEquals(date.toString(), date.toEpochDay(), CalendarDateIndex.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+
+    @Test
+    public void parsesDayTexts() {
+        assertEquals(day(2020, 11, 2), CalendarDateIndex.parseEpochDay("Mo, 02.11.", "Nov 20"));
+        assertEquals(day(2021, 3, 5), CalendarDateIndex.parseEpochDay("Fr, 5.3.", "Mär 21"));
+
+        // Last date of a range counts, year changes within range.
+        assertEquals(day(2020, 12, 23), CalendarDateIndex.parseEpochDay("Mo, 21.12. - Mi, 23.12.", "Dez 20"));
+        assertEquals(day(2021, 1, 6), CalendarDateIndex.parseEpochDay("Mi, 23.12. - Mi, 06.01.", "Dez 20"));
+
+        assertEquals(day(2020, 12, 21), CalendarDateIndex.parseEpochDay("Mo, 21.12. - Mi, 23.12.", "Dez 20", true));
+        assertEquals(day(2020, 12, 23), CalendarDateIndex.parseEpochDay("Mi, 23.12. - Mi, 06.01.", "Dez 20", true));
+        assertEquals(day(2020, 12, 23), CalendarDateIndex.parseEpochDay("Mi, 23.12. - Mi, 06.01.", "Jan 21", true));
+
+        assertEquals(CalendarDateIndex.UNKNOWN, CalendarDateIndex.parseEpochDay("ganzjährig", "Nov 20"));
+        assertEquals(CalendarDateIndex.UNKNOWN, CalendarDateIndex.parseEpochDay("Mo, 02.11.", "November"));
+    }
+
+    @Test
+    public void answersRangeQueries() {
+        final String[] days = { "Mo, 02.11.", "Mo, 02.11.", "Fr, 06.11.", "??", "Di, 01.12.", "Mo, 30.11.", "Mo, 04.01." };
+        final String[] monthNames = { "Nov 20", "Nov 20", "Nov 20", "Nov 20", "Dez 20", "Nov 20", "Jan 21" };
+        final CalendarDateIndex index = new CalendarDateIndex(days, monthNames);
+
+        assertEquals(6, index.size());
+        assertArrayEquals(new int[] { 0, 1 }, index.range(day(2020, 11, 2), day(2020, 11, 2)));
+        assertArrayEquals(new int[] { 0, 1, 2 }, index.range(day(2020, 11, 2), day(2020, 11, 8)));
+        assertArrayEquals(new int[] { 5, 4 }, index.range(day(2020, 11, 30), day(2020, 12, 31)));
+        assertArrayEquals(new int[0], index.range(day(2020, 11, 3), day(2020, 11, 5)));
+        assertArrayEquals(new int[0], index.range(day(2020, 11, 8), day(2020, 11, 2)));
+
+        assertArrayEquals(new int[] { 2, 5 }, index.next(day(2020, 11, 3), 2));
+        assertArrayEquals(new int[] { 6 }, index.next(day(2020, 12, 2), 5));
+        assertArrayEquals(new int[0], index.next(day(2021, 1, 5), 5));
+    }
+
+    @Test
+    public void findsEventsOnEveryDayTheyLast() {
+        final String[] days = { "Mo, 21.12. - Mi, 23.12.", "Mi, 23.12. - Mi, 06.01.", "Do, 24.12.", "Mo, 04.01." };
+        final String[] monthNames = { "Dez 20", "Dez 20", "Dez 20", "Jan 21" };
+        final CalendarDateIndex index = new CalendarDateIndex(days, monthNames);
+
+        assertArrayEquals(new int[] { 0 }, index.range(day(2020, 12, 22), day(2020, 12, 22)));
+        assertArrayEquals(new int[] { 0, 1 }, index.range(day(2020, 12, 23), day(2020, 12, 23)));
+        assertArrayEquals(new int[] { 1, 2 }, index.range(day(2020, 12, 24), day(2020, 12, 24)));
+        assertArrayEquals(new int[] { 1 }, index.range(day(2021, 1, 1), day(2021, 1, 1)));
+        assertArrayEquals(new int[] { 1, 3 }, index.range(day(2021, 1, 4), day(2021, 1, 10)));
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, index.range(day(2020, 12, 1), day(2021, 1, 31)));
+        assertArrayEquals(new int[0], index.range(day(2021, 1, 7), day(2021, 1, 31)));
+
+        assertArrayEquals(new int[] { 1, 2 }, index.next(day(2020, 12, 24), 2));
+        assertArrayEquals(new int[] { 1, 3 }, index.next(day(2021, 1, 2), 5));
+        assertArrayEquals(new int[0], index.next(day(2021, 1, 7), 5));
+    }
+
+    @Test
+    public void ordersEventsByFirstDay() {
+        final String[] days = { "Do, 24.12.", "Do, 24.12.", "Mo, 21.12. - Mo, 28.12.", "Mi, 23.12. - Do, 24.12." };
+        final String[] monthNames = { "Dez 20", "Dez 20", "Dez 20", "Dez 20" };
+        final CalendarDateIndex index = new CalendarDateIndex(days, monthNames);
+
+        // Events that have started earlier come first, events of same first day keep calendar order.
+        assertArrayEquals(new int[] { 2, 3, 0, 1 }, index.range(day(2020, 12, 24), day(2020, 12, 24)));
+        assertArrayEquals(new int[] { 2, 3 }, index.next(day(2020, 12, 24), 2));
+    }
+}
@@ -0,0 +1,171 @@
+package com.rmkrings.data.calendar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CalendarSearchIndexTest {
+    private static final String[] WORDS = {
+            "Elternsprechtag", "Klausur", "Abitur", "Zeugnisausgabe", "Ferien", "Konferenz", "Prüfung",
+            "Mündliche", "Sportfest", "Wandertag", "Gottesdienst", "Schulpflegschaft", "Beweglicher",
+            "Ferientag", "EF", "Q1", "Q2", "Jahrgang", "Känguru", "Wettbewerb", "Studienfahrt", "Berlin"
+    };
+
+    /**
+     * Synthetic calendar with given number of school years, about 400 events each.
+     */
+    private static String[] newEvents(int years) {
+        final Random random = new Random(years);
+        final String[] events = new String[years * 400];
+
+        for (int e = 0; e < events.length; e++) {
+            final StringBuilder event = new StringBuilder();
+            final int words = 2 + random.nextInt(5);
+            for (int w = 0; w < words; w++) {
+                event.append(w > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            events[e] = event.append(String.format(Locale.ROOT, " (%d)", e % 13)).toString();
+        }
+
+        return events;
+    }
+
+    /**
+     * Search by scanning each event, the way calendar search used to work.
+     */
+    private static int[][] scan(String[] events, String s) {
+        final ArrayList<int[]> hits = new ArrayList<>();
+        final String query = CalendarSearchIndex.fold(s);
+
+        for (int e = 0; e < events.length; e++) {
+            final ArrayList<Integer> positions = new ArrayList<>();
+            int i = CalendarSearchIndex.fold(events[e]).indexOf(query);
+            while (i != -1) {
+                positions.add(i);
+                positions.add(i + query.length());
+                i = CalendarSearchIndex.fold(events[e]).indexOf(query, i + query.length());
+            }
+
+            if (!positions.isEmpty()) {
+                final int[] hit = new int[positions.size() + 1];
+                hit[0] = e;
+                for (int k = 0; k < positions.size(); k++) {
+                    hit[k + 1] = positions.get(k);
+                }
+                hits.add(hit);
+            }
+        }
+
+        return hits.toArray(new int[0][]);
+    }
+
+    private static int[][] search(CalendarSearchIndex index, String s) {
+        final CalendarSearchIndex.Result result = index.search(s);
+        final int[][] hits = new int[result.getEvents().length][];
+
+        for (int hit = 0; hit < hits.length; hit++) {
+            final int[] matches = result.getMatches(hit);
+            hits[hit] = new int[matches.length + 1];
+            hits[hit][0] = result.getEvents()[hit];
+            System.arraycopy(matches, 0, hits[hit], 1, matches.length);
+        }
+
+        return hits;
+    }
+
+    private static void assertSameHits(String query, int[][] expected, int[][] actual) {
+        assertEquals(query, expected.length, actual.length);
+        for (int k = 0; k < expected.length; k++) {
+            assertArrayEquals(query, expected[k], actual[k]);
+        }
+    }
+
+    @Test
+    public void foldingKeepsPositions() {
+        assertEquals("prufung mundliche", CalendarSearchIndex.fold("Prüfung MÜNDLICHE"));
+
+        final CalendarSearchIndex index = new CalendarSearchIndex(new String[] { "Känguru-Wettbewerb", "Mündliche Prüfung", "Abitur" });
+        final CalendarSearchIndex.Result result = index.search("PRUF");
+        assertArrayEquals(new int[] { 1 }, result.getEvents());
+        assertArrayEquals(new int[] { 10, 14 }, result.getMatches(0));
+    }
+
+    @Test
+    public void findsSameAsScan() {
+        final String[] events = newEvents(3);
+        final CalendarSearchIndex index = new CalendarSearchIndex(events);
+
+        // Typing, deleting and typing something else, with short and unknown queries.
+        for (String query : new String[] { "k", "kl", "kla", "klau", "klausur q", "klausur", "u", "ung", "ferientag",
+                "fe", "xyz", "(1", "(12)", "gu", "ungskän", "känguru", "KANGURU", " " }) {
+            assertSameHits(query, scan(events, query), search(index, query));
+        }
+    }
+
+    @Test
+    public void narrowsOnInfix() {
+        final String[] events = { "Sportfest", "Portugal", "Sport" };
+        final CalendarSearchIndex index = new CalendarSearchIndex(events);
+
+        assertArrayEquals(new int[] { 0, 1, 2 }, index.search("port").getEvents());
+        assertArrayEquals(new int[] { 0, 2 }, index.search("sport").getEvents());
+        assertArrayEquals(new int[] { 0 }, index.search("sportf").getEvents());
+        assertArrayEquals(new int[] { 1 }, index.search("portu").getEvents());
+    }
+
+    @Test
+    public void concurrentSearchesDoNotInterfere() throws InterruptedException {
+        final String[] events = newEvents(2);
+        final CalendarSearchIndex index = new CalendarSearchIndex(events);
+        final String[][] typing = {
+                { "k", "kl", "kla", "klau", "klausur" },
+                { "f", "fe", "fer", "ferien", "ferientag" },
+                { "p", "pr", "prü", "prüfung" },
+                { "w", "wa", "wan", "wandertag" },
+        };
+        final AssertionError[] failures = new AssertionError[typing.length];
+        final Thread[] threads = new Thread[typing.length];
+
+        for (int t = 0; t < threads.length; t++) {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int round = 0; round < 50; round++) {
+                            for (String query : typing[thread]) {
+                                assertSameHits(query, scan(events, query), search(index, query));
+                            }
+                        }
+                    }
+                    catch (AssertionError e) {
+                        failures[thread] = e;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            if (failures[t] != null) {
+                throw failures[t];
+            }
+        }
+    }
+
+    @Test
+    public void findsSameAsScanOnLargeCalendar() {
+        final String[] events = newEvents(20);
+        final CalendarSearchIndex index = new CalendarSearchIndex(events);
+
+        for (String query : new String[] { "s", "sc", "sch", "schu", "schul", "schulp", "schulpf", "schulpfl", "q", "q2", "prü", "prüfung" }) {
+            assertSameHits(query, scan(events, query), search(index, query));
+        }
+    }
+}
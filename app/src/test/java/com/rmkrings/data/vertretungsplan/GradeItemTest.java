@@ -0,0 +1,56 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.StringDictionary;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GradeItemTest {
+    private static final String[] WITHOUT_EVA = { "3. - 4.", "Vertretung", "M G1", "(A101)", "Foo", "", "Bemerkung" };
+    private static final String[] WITH_EVA = { "5.", "Raum-Vtr.", "E L2", "(A101)", "Bar", "", "", "Aufgabe" };
+    private static final String[] UNKNOWN_TYPE = { "Mittagspause", "Aufsicht", "", "Mensa", "Foo", "", "" };
+
+    private final StringDictionary dictionary = new StringDictionary();
+    private final GradeItem gradeItem = new GradeItem("Q1", Arrays.asList(WITHOUT_EVA, WITH_EVA, UNKNOWN_TYPE), dictionary);
+
+    @Test
+    public void parsesLessonRange() {
+        assertEquals(3, gradeItem.getLessonFrom(0));
+        assertEquals(4, gradeItem.getLessonTo(0));
+        assertEquals(5, gradeItem.getLessonFrom(1));
+        assertEquals(5, gradeItem.getLessonTo(1));
+        assertEquals(-1, gradeItem.getLessonFrom(2));
+    }
+
+    @Test
+    public void mapsSubstitutionType() {
+        assertEquals(SubstitutionType.VERTRETUNG, gradeItem.getSubstitutionType(0));
+        assertEquals(SubstitutionType.RAUMVERTRETUNG, gradeItem.getSubstitutionType(1));
+        assertEquals(SubstitutionType.OTHER, gradeItem.getSubstitutionType(2));
+        assertEquals("Aufsicht", gradeItem.getSubstitutionTypeText(2));
+    }
+
+    @Test
+    public void keepsRowsLossless() {
+        assertArrayEquals(WITHOUT_EVA, gradeItem.getDetailItems(0));
+        assertArrayEquals(WITH_EVA, gradeItem.getDetailItems(1));
+        assertNull(gradeItem.getEva(0));
+        assertEquals("Aufgabe", gradeItem.getEva(1));
+    }
+
+    @Test
+    public void sharesStrings() {
+        assertSame(gradeItem.getRoom(0), gradeItem.getRoom(1));
+        assertSame(gradeItem.getTeacher(0), gradeItem.getTeacher(2));
+
+        final GradeItem single = new GradeItem(gradeItem, 1);
+        assertEquals(1, single.size());
+        assertArrayEquals(WITH_EVA, single.getDetailItems(0));
+    }
+}
@@ -0,0 +1,139 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.StringDictionary;
+
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LessonTimelineTest {
+    private static final String[] LESSON_START_TIMES = { "07:55", "08:40", "09:45", "10:35", "11:25", "12:40", "13:25", "14:30", "15:15", "16:00", "16:45" };
+
+    private static Vertretungsplan newVertretungsplan(int days, int rowsPerDay) {
+        final DateFormat dateFormat = new SimpleDateFormat("EEEE, dd.MM.yyyy", Locale.GERMANY);
+        final Calendar calendar = Calendar.getInstance();
+        final ArrayList<VertretungsplanForDate> vertretungsplaene = new ArrayList<>();
+
+        calendar.set(2020, Calendar.NOVEMBER, 2, 0, 0, 0);
+        for (int d = 0; d < days; d++) {
+            final ArrayList<String[]> items = new ArrayList<>();
+            for (int r = 0; r < rowsPerDay; r++) {
+                final int lesson = 1 + r * LESSON_START_TIMES.length / rowsPerDay;
+                items.add(new String[] { String.format("%d. - %d.", lesson, lesson + 1), "Vertretung", "M GK" + (r % 5), "(A101)", "Foo", "", "" });
+            }
+
+            final ArrayList<GradeItem> gradeItems = new ArrayList<>();
+            gradeItems.add(new GradeItem("Q1", items, new StringDictionary()));
+            vertretungsplaene.add(new VertretungsplanForDate(dateFormat.format(calendar.getTime()), gradeItems));
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+
+        return new Vertretungsplan("", "", vertretungsplaene, null);
+    }
+
+    private static Date date(int day, int hour, int minute) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2020, Calendar.NOVEMBER, day, hour, minute);
+        return calendar.getTime();
+    }
+
+    /**
+     * Next lesson as found by scanning and parsing each row, the way next() used to work.
+     */
+    private static String[] scanNext(Vertretungsplan vertretungsplan, Date currentDate) throws Exception {
+        final Pattern datePattern = Pattern.compile("(\\d{2}.\\d{2}.\\d{4})");
+        final Pattern firstNumberPattern = Pattern.compile("\\d+");
+        final DateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy'-'HH:mm", Locale.GERMANY);
+
+        for (VertretungsplanForDate vertretungsplanForDate : vertretungsplan.getVertretungsplaene()) {
+            final Matcher dateMatcher = datePattern.matcher(vertretungsplanForDate.getDate());
+            if (dateMatcher.find()) {
+                final String forDate = dateMatcher.group(1).concat("-");
+                final GradeItem gradeItem = vertretungsplanForDate.getGradeItems().get(0);
+                for (int row = 0; row < gradeItem.size(); row++) {
+                    final String[] item = gradeItem.getDetailItems(row);
+                    final Matcher lessonMatcher = firstNumberPattern.matcher(item[0]);
+                    if (lessonMatcher.find()) {
+                        final int lesson = Integer.parseInt(lessonMatcher.group());
+                        if (dateFormat.parse(forDate.concat(LESSON_START_TIMES[lesson - 1])).after(currentDate)) {
+                            return item;
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Test
+    public void nextFindsFirstLessonAfterDate() {
+        final Vertretungsplan vertretungsplan = newVertretungsplan(3, 11);
+
+        // Lesson 3 starts 09:45, strictly after is required.
+        VertretungsplanForDate next = vertretungsplan.next(date(2, 9, 45));
+        assertEquals("Montag, 02.11.2020", next.getDate());
+        assertEquals("4. - 5.", next.getGradeItems().get(0).getLesson(0));
+
+        next = vertretungsplan.next(date(2, 17, 0));
+        assertEquals("Dienstag, 03.11.2020", next.getDate());
+        assertEquals("1. - 2.", next.getGradeItems().get(0).getLesson(0));
+
+        assertNull(vertretungsplan.next(date(4, 16, 45)));
+    }
+
+    @Test
+    public void nextChangeIsStartOfNextLesson() {
+        final Vertretungsplan vertretungsplan = newVertretungsplan(2, 11);
+
+        // Next lesson is 4th at 10:35, result of next() changes then and not before.
+        assertEquals(date(2, 10, 35).getTime(), vertretungsplan.nextChange(date(2, 9, 45)));
+        assertEquals(vertretungsplan.next(date(2, 9, 45)).getGradeItems().get(0).getLesson(0),
+                vertretungsplan.next(date(2, 10, 34)).getGradeItems().get(0).getLesson(0));
+        assertEquals("5. - 6.", vertretungsplan.next(date(2, 10, 35)).getGradeItems().get(0).getLesson(0));
+
+        assertEquals(date(3, 7, 55).getTime(), vertretungsplan.nextChange(date(2, 17, 0)));
+        assertEquals(0, vertretungsplan.nextChange(date(3, 16, 45)));
+    }
+
+    @Test
+    public void rowsWithoutLessonAreSkipped() {
+        final ArrayList<String[]> items = new ArrayList<>();
+        items.add(new String[] { "", "Entfall", "", "", "", "", "" });
+        items.add(new String[] { "12.", "Entfall", "", "", "", "", "" });
+        items.add(new String[] { "5.", "Entfall", "", "", "", "", "" });
+
+        final ArrayList<GradeItem> gradeItems = new ArrayList<>();
+        gradeItems.add(new GradeItem("Q1", items, new StringDictionary()));
+        final ArrayList<VertretungsplanForDate> vertretungsplaene = new ArrayList<>();
+        vertretungsplaene.add(new VertretungsplanForDate("Montag, 02.11.2020", gradeItems));
+
+        final Vertretungsplan vertretungsplan = new Vertretungsplan("", "", vertretungsplaene, null);
+        assertEquals(1, vertretungsplan.getTimeline().size());
+        assertEquals("5.", vertretungsplan.next(date(2, 7, 0)).getGradeItems().get(0).getLesson(0));
+    }
+
+    @Test
+    public void nextFindsSameAsScan() throws Exception {
+        final int days = 10;
+        final Vertretungsplan vertretungsplan = newVertretungsplan(days, 100);
+
+        for (int k = 0; k < 200; k++) {
+            final Date date = date(2 + k % days, 7 + k % 10, (k * 7) % 60);
+            final VertretungsplanForDate next = vertretungsplan.next(date);
+            assertArrayEquals(scanNext(vertretungsplan, date), (next != null) ? next.getGradeItems().get(0).getDetailItems(0) : null);
+        }
+    }
+}
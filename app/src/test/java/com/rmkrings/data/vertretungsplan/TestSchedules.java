@@ -0,0 +1,32 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Builds schedules for tests outside this package, constructors are package private.
+ */
+public final class TestSchedules {
+    private TestSchedules() {
+    }
+
+    /**
+     * @param grade - Grade of single grade item per date.
+     * @param lastUpdate - Last update text.
+     * @param dates - Date titles.
+     * @param rows - Rows of grade item, one array per date.
+     * @return Schedule with one grade item per date.
+     */
+    public static Vertretungsplan forGrade(String grade, String lastUpdate, String[] dates, String[][][] rows) {
+        final ArrayList<VertretungsplanForDate> vertretungsplaene = new ArrayList<>();
+        for (int d = 0; d < dates.length; d++) {
+            final ArrayList<GradeItem> gradeItems = new ArrayList<>();
+            gradeItems.add(new GradeItem(grade, Arrays.asList(rows[d]), new StringDictionary()));
+            vertretungsplaene.add(new VertretungsplanForDate(dates[d], gradeItems));
+        }
+
+        return new Vertretungsplan("", lastUpdate, vertretungsplaene, null);
+    }
+}
@@ -0,0 +1,170 @@
+package com.rmkrings.data.vertretungsplan;
+
+import com.rmkrings.helper.CourseFilter;
+import com.rmkrings.helper.StringDictionary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VertretungsplanDiffTest {
+    private static final String MONDAY = "Montag, 02.11.2020";
+    private static final String TUESDAY = "Dienstag, 03.11.2020";
+
+    private static String[] row(String lesson, String type, String course, String room) {
+        return new String[] { lesson, type, course, room, "Foo", "", "" };
+    }
+
+    private static VertretungsplanForDate forDate(String date, String grade, String[]... rows) {
+        final ArrayList<String[]> items = new ArrayList<>();
+        for (String[] row : rows) {
+            items.add(row);
+        }
+
+        final ArrayList<GradeItem> gradeItems = new ArrayList<>();
+        gradeItems.add(new GradeItem(grade, items, new StringDictionary()));
+        return new VertretungsplanForDate(date, gradeItems);
+    }
+
+    private static Vertretungsplan vertretungsplan(VertretungsplanForDate... dates) {
+        final ArrayList<VertretungsplanForDate> vertretungsplaene = new ArrayList<>();
+        for (VertretungsplanForDate date : dates) {
+            vertretungsplaene.add(date);
+        }
+        return new Vertretungsplan("", "", vertretungsplaene, null);
+    }
+
+    @Test
+    public void sameScheduleHasNoChanges() {
+        final Vertretungsplan previous = vertretungsplan(
+                forDate(MONDAY, "Q1", row("1.", "Entfall", "M GK1", "(A101)")),
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Vertretung", "D LK1", "(B201)")));
+        final Vertretungsplan current = vertretungsplan(
+                forDate(MONDAY, "Q1", row("1.", "Entfall", "M GK1", "(A101)")),
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Vertretung", "D LK1", "(B201)")));
+
+        assertTrue(VertretungsplanDiff.compute(previous, current).isEmpty());
+        assertTrue(VertretungsplanDiff.compute(current, current).isEmpty());
+    }
+
+    @Test
+    public void rowsAreAddedChangedAndDeleted() {
+        final Vertretungsplan previous = vertretungsplan(
+                forDate(MONDAY, "Q1",
+                        row("1.", "Entfall", "M GK1", "(A101)"),
+                        row("2.", "Vertretung", "E GK2", "(A102)")),
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Vertretung", "D LK1", "(B201)")));
+        final Vertretungsplan current = vertretungsplan(
+                forDate(MONDAY, "Q1",
+                        row("2.", "Raum-Vtr.", "E GK2", "(B202)"),
+                        row("5.", "Entfall", "PH GK1", "(C301)")),
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Vertretung", "D LK1", "(B201)")));
+
+        final VertretungsplanDiff diff = VertretungsplanDiff.compute(previous, current);
+        final List<VertretungsplanDiff.Change> changes = diff.getChanges();
+
+        assertFalse(diff.isEmpty());
+        assertTrue(diff.hasSameDates());
+        assertEquals(3, changes.size());
+        assertEquals(1, diff.getChangedDates().size());
+        assertTrue(diff.getChangedDates().contains(MONDAY));
+
+        assertEquals(VertretungsplanDiff.ChangeType.CHANGED, changes.get(0).getChangeType());
+        assertEquals("(A102)", changes.get(0).getDetailsOld()[3]);
+        assertEquals("(B202)", changes.get(0).getDetailsNew()[3]);
+        assertEquals("E GK2", changes.get(0).getCourse());
+
+        assertEquals(VertretungsplanDiff.ChangeType.ADDED, changes.get(1).getChangeType());
+        assertNull(changes.get(1).getDetailsOld());
+        assertArrayEquals(row("5.", "Entfall", "PH GK1", "(C301)"), changes.get(1).getDetailsNew());
+        assertEquals("PH GK1", changes.get(1).getCourse());
+
+        assertEquals(VertretungsplanDiff.ChangeType.DELETED, changes.get(2).getChangeType());
+        assertArrayEquals(row("1.", "Entfall", "M GK1", "(A101)"), changes.get(2).getDetailsOld());
+        assertNull(changes.get(2).getDetailsNew());
+        assertEquals("M GK1", changes.get(2).getCourse());
+    }
+
+    @Test
+    public void rowsWithSameKeyAreMatchedInOrder() {
+        final Vertretungsplan previous = vertretungsplan(forDate(MONDAY, "5A",
+                row("1.", "Vertretung", "", "(A101)"),
+                row("1.", "Vertretung", "", "(A102)")));
+        final Vertretungsplan current = vertretungsplan(forDate(MONDAY, "5A",
+                row("1.", "Vertretung", "", "(A101)")));
+
+        final List<VertretungsplanDiff.Change> changes = VertretungsplanDiff.compute(previous, current).getChanges();
+        assertEquals(1, changes.size());
+        assertEquals(VertretungsplanDiff.ChangeType.DELETED, changes.get(0).getChangeType());
+        assertEquals("(A102)", changes.get(0).getDetailsOld()[3]);
+    }
+
+    @Test
+    public void droppedDateIsNoRowChange() {
+        final Vertretungsplan previous = vertretungsplan(
+                forDate(MONDAY, "Q1", row("1.", "Entfall", "M GK1", "(A101)")),
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Vertretung", "D LK1", "(B201)")));
+        final Vertretungsplan current = vertretungsplan(
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Vertretung", "D LK1", "(B201)")));
+
+        final VertretungsplanDiff diff = VertretungsplanDiff.compute(previous, current);
+        assertTrue(diff.getChanges().isEmpty());
+        assertFalse(diff.hasSameDates());
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    public void changeListHasChangesByDate() {
+        final Vertretungsplan previous = vertretungsplan(forDate(MONDAY, "Q1",
+                row("2.", "Vertretung", "E GK2", "(A102)")));
+        final Vertretungsplan current = vertretungsplan(forDate(MONDAY, "Q1",
+                row("2.", "Raum-Vtr.", "E GK2", "(B202)")));
+
+        final VertretungsplanChangeList changeList = VertretungsplanDiff.compute(previous, current)
+                .toChangeList(CourseFilter.compile("Q1", Collections.<String>emptyList()));
+        final ArrayList<VertretungsplanChangeDetailItem> items = changeList.getChanges().get(MONDAY);
+
+        assertEquals(1, changeList.getChanges().size());
+        assertEquals(1, items.size());
+        assertEquals("CHANGED", items.get(0).getChangeType());
+        assertEquals("E GK2", items.get(0).getCourse());
+        assertEquals("2.", items.get(0).getLesson());
+        assertEquals("(B202)", items.get(0).getDetailNew().getRoom());
+        assertEquals("(A102)", items.get(0).getDetailOld().getRoom());
+        assertTrue(items.get(0).getDetailOld().isOutdated());
+        assertNull(items.get(0).getEvaText());
+    }
+
+    @Test
+    public void changeListSkipsFilteredCourses() {
+        final Vertretungsplan previous = vertretungsplan(
+                forDate(MONDAY, "Q1",
+                        row("1.", "Entfall", "M G1", "(A101)"),
+                        row("2.", "Vertretung", "E G2", "(A102)")),
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Vertretung", "D L1", "(B201)")));
+        final Vertretungsplan current = vertretungsplan(
+                forDate(MONDAY, "Q1",
+                        row("2.", "Raum-Vtr.", "E G2", "(B202)"),
+                        row("5.", "Entfall", "PH G1", "(C301)")),
+                forDate(TUESDAY, "Q1", row("3. - 4.", "Entfall", "D L1", "(B201)")));
+
+        final VertretungsplanChangeList changeList = VertretungsplanDiff.compute(previous, current)
+                .toChangeList(CourseFilter.compile("Q1", Arrays.asList("D LK1", "PH GK1")));
+
+        assertArrayEquals(new Object[] { MONDAY, TUESDAY }, changeList.getChanges().keySet().toArray());
+        assertEquals(1, changeList.getChanges().get(MONDAY).size());
+        assertEquals("ADDED", changeList.getChanges().get(MONDAY).get(0).getChangeType());
+        assertEquals("PH G1", changeList.getChanges().get(MONDAY).get(0).getCourse());
+        assertNull(changeList.getChanges().get(MONDAY).get(0).getDetailOld());
+        assertEquals("D L1", changeList.getChanges().get(TUESDAY).get(0).getCourse());
+    }
+}
@@ -0,0 +1,47 @@
+package com.rmkrings.helper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CourseFilterTest {
+    private final CourseFilter filter = CourseFilter.compile("Q1", Arrays.asList("M GK1", "E LK2", "BI ZK1"));
+
+    @Test
+    public void acceptsCoursesOnList() {
+        assertTrue(filter.accept("M G1"));
+        assertTrue(filter.accept("M  G 1"));
+        assertTrue(filter.accept("E L2"));
+        assertTrue(filter.accept("BI Z1"));
+        assertFalse(filter.accept("M G2"));
+        assertFalse(filter.accept("M G1X"));
+        assertFalse(filter.accept("D L1"));
+    }
+
+    @Test
+    public void acceptsEmptyCourses() {
+        assertTrue(filter.accept(""));
+        assertTrue(filter.accept("   "));
+        assertTrue(filter.accept("K"));
+        assertFalse(filter.accept("KR"));
+    }
+
+    @Test
+    public void messeUsesSecondCourse() {
+        assertTrue(filter.accept("Messe"));
+        assertTrue(filter.accept("Messe→"));
+        assertTrue(filter.accept("Messe→m G2"));
+        assertTrue(filter.accept("Messe→M G1"));
+        assertFalse(filter.accept("Messe→D G1"));
+    }
+
+    @Test
+    public void acceptsAllForLowerGradesAndEmptyCourseList() {
+        assertTrue(CourseFilter.compile("5a", Collections.singletonList("M GK1")).accept("D G1"));
+        assertTrue(CourseFilter.compile("Q1", Collections.<String>emptyList()).accept("D G1"));
+    }
+}
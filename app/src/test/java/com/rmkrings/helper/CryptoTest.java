@@ -0,0 +1,74 @@
+package com.rmkrings.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class CryptoTest {
+    private static final byte[] KEY = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private int keyLoads;
+    private Crypto crypto;
+
+    @Before
+    public void setUp() {
+        keyLoads = 0;
+        crypto = new Crypto(new SecretKeySource() {
+            @Override
+            public byte[] loadKey() {
+                keyLoads += 1;
+                return KEY.clone();
+            }
+        });
+    }
+
+    @Test
+    public void sealAndOpen() throws Exception {
+        byte[] plain = "geheim-äöü".getBytes(StandardCharsets.UTF_8);
+        byte[] sealed = crypto.seal(plain);
+
+        assertArrayEquals(plain, crypto.open(sealed));
+        assertFalse(java.util.Arrays.equals(sealed, crypto.seal(plain)));
+    }
+
+    @Test
+    public void keyIsUnwrappedOnce() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            crypto.open(crypto.seal(new byte[] { (byte)i }));
+        }
+
+        assertEquals(1, keyLoads);
+    }
+
+    @Test
+    public void tamperedDataIsRejected() throws Exception {
+        byte[] sealed = crypto.seal("geheim".getBytes(StandardCharsets.UTF_8));
+        sealed[sealed.length - 1] ^= 1;
+
+        try {
+            crypto.open(sealed);
+            fail("Tampered data must not decrypt");
+        }
+        catch (Exception e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void openLegacy() throws Exception {
+        Cipher c = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        c.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY, "AES"));
+        byte[] encrypted = c.doFinal("geheim".getBytes(StandardCharsets.UTF_8));
+
+        assertArrayEquals("geheim".getBytes(StandardCharsets.UTF_8), crypto.openLegacy(encrypted));
+    }
+}
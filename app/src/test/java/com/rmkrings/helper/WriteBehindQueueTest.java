@@ -0,0 +1,64 @@
+package com.rmkrings.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WriteBehindQueueTest {
+    private final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+    private CountDownLatch writerReleased;
+    private WriteBehindQueue<String> queue;
+
+    @Before
+    public void setUp() {
+        writerReleased = new CountDownLatch(0);
+        queue = new WriteBehindQueue<String>("test writer") {
+            @Override
+            protected void write(String key, String value) {
+                try {
+                    writerReleased.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                written.add(key + "=" + value);
+            }
+        };
+    }
+
+    @Test
+    public void flushWritesAllValues() throws Exception {
+        queue.enqueue("a", "1");
+        queue.enqueue("b", "2");
+        queue.flush();
+
+        assertEquals(2, written.size());
+        assertNull(queue.getPending("a"));
+        assertNull(queue.getPending("b"));
+    }
+
+    @Test
+    public void pendingValuesAreVisibleAndCoalesced() throws Exception {
+        writerReleased = new CountDownLatch(1);
+
+        queue.enqueue("a", "1");
+        queue.enqueue("a", "2");
+        queue.enqueue("a", "3");
+        assertEquals("3", queue.getPending("a"));
+
+        writerReleased.countDown();
+        queue.flush();
+
+        // First value may have been picked up before it got replaced, last one always wins.
+        assertEquals("a=3", written.get(written.size() - 1));
+        assertTrue(written.size() <= 2);
+    }
+}
@@ -0,0 +1,205 @@
+package com.rmkrings.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DeltaPatchTest {
+    private static final String OLD_DIGEST = "d1";
+    private static final String NEW_DIGEST = "d2";
+    private static final byte[] OLD_DOCUMENT = document(OLD_DIGEST, "Vertretung", "(A101)");
+    private static final byte[] NEW_DOCUMENT = document(NEW_DIGEST, "Raum-Vtr.", "(B202)");
+
+    private HttpServer server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private volatile boolean corruptDelta = false;
+
+    private static byte[] document(String digest, String type, String room) {
+        final StringBuilder json = new StringBuilder("{\"tickerText\":\"\",\"lastUpdate\":\"\",\"dateItems\":[");
+        for (int r = 0; r < 50; r++) {
+            json.append(r > 0 ? "," : "").append(String.format("{\"detailItems\":[\"%d.\",\"%s\",\"M GK1\",\"%s\",\"Foo\",\"\",\"\"]}",
+                    1 + r % 11, (r == 25) ? type : "Vertretung", (r == 25) ? room : "(A101)"));
+        }
+        return json.append("],\"_digest\":\"").append(digest).append("\"}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Delta as backend builds it: copy common prefix and suffix, insert everything else.
+     */
+    private static byte[] delta(String baseDigest, byte[] base, byte[] document, String sha256) throws IOException {
+        int prefix = 0;
+        while (prefix < base.length && prefix < document.length && base[prefix] == document[prefix]) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < base.length - prefix && suffix < document.length - prefix
+                && base[base.length - 1 - suffix] == document[document.length - 1 - suffix]) {
+            suffix++;
+        }
+
+        final int insert = document.length - prefix - suffix;
+        final ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        delta.write(String.format("base %s\nsha256 %s\n\nC 0 %d\nI %d\n", baseDigest, sha256, prefix, insert).getBytes(StandardCharsets.US_ASCII));
+        delta.write(document, prefix, insert);
+        delta.write(String.format("C %d %d\n", base.length - suffix, suffix).getBytes(StandardCharsets.US_ASCII));
+        return delta.toByteArray();
+    }
+
+    private static byte[] apply(byte[] base, String baseDigest, String delta) throws IOException {
+        return DeltaPatch.apply(ByteBuffer.wrap(base), baseDigest, delta.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Before
+    public void startBackend() throws IOException {
+        // Stand-in for backend: Sends delta when client has old version and supports
+        // deltas, entire document otherwise.
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v2/vertretungsplan", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final String query = exchange.getRequestURI().getQuery();
+                final String aim = exchange.getRequestHeaders().getFirst("A-IM");
+                final byte[] body;
+                final int status;
+
+                requests.add(String.valueOf(query) + " " + aim);
+
+                if (query != null && query.contains("digest=" + OLD_DIGEST) && DeltaPatch.INSTANCE_MANIPULATION.equals(aim)) {
+                    final String sha256 = corruptDelta ? DeltaPatch.sha256(OLD_DOCUMENT) : DeltaPatch.sha256(NEW_DOCUMENT);
+                    body = delta(OLD_DIGEST, OLD_DOCUMENT, NEW_DOCUMENT, sha256);
+                    status = DeltaPatch.HTTP_IM_USED;
+                    exchange.getResponseHeaders().add("IM", DeltaPatch.INSTANCE_MANIPULATION);
+                } else {
+                    body = NEW_DOCUMENT;
+                    status = 200;
+                }
+
+                exchange.sendResponseHeaders(status, body.length);
+                final OutputStream outputStream = exchange.getResponseBody();
+                outputStream.write(body);
+                outputStream.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopBackend() {
+        server.stop(0);
+    }
+
+    private URLConnection request(String digest) throws IOException {
+        String url = String.format("http://127.0.0.1:%d/v2/vertretungsplan/?forGrade=Q1", server.getAddress().getPort());
+        if (digest != null) {
+            url += "&digest=" + digest;
+        }
+
+        final URLConnection connection = new URL(url).openConnection();
+        ((HttpURLConnection)connection).setRequestMethod("GET");
+        return connection;
+    }
+
+    private DeltaBase deltaBase(final byte[] payload) throws IOException {
+        return new DeltaBase(OLD_DIGEST, request(null)) {
+            @Override
+            protected ByteBuffer readPayload() {
+                return (payload != null) ? ByteBuffer.wrap(payload).asReadOnlyBuffer() : null;
+            }
+        };
+    }
+
+    @Test
+    public void deltaIsAppliedToCachedDocument() throws IOException {
+        final HttpResponseData response = new HttpRequest().perform(
+                new HttpRequestData(request(OLD_DIGEST), null, null, deltaBase(OLD_DOCUMENT)));
+
+        assertEquals(Integer.valueOf(200), response.getHttpStatusCode());
+        assertArrayEquals(NEW_DOCUMENT, response.getBody());
+        assertEquals(1, requests.size());
+        assertEquals("forGrade=Q1&digest=d1 " + DeltaPatch.INSTANCE_MANIPULATION, requests.get(0));
+    }
+
+    @Test
+    public void digestMismatchFallsBackToFullFetch() throws IOException {
+        corruptDelta = true;
+
+        final HttpResponseData response = new HttpRequest().perform(
+                new HttpRequestData(request(OLD_DIGEST), null, null, deltaBase(OLD_DOCUMENT)));
+
+        assertEquals(Integer.valueOf(200), response.getHttpStatusCode());
+        assertArrayEquals(NEW_DOCUMENT, response.getBody());
+        assertEquals(2, requests.size());
+        assertEquals("forGrade=Q1 null", requests.get(1));
+    }
+
+    @Test
+    public void deltaIsNotAdvertisedWithoutCachedDocument() throws IOException {
+        final HttpResponseData response = new HttpRequest().perform(
+                new HttpRequestData(request(OLD_DIGEST), null, null, deltaBase(null)));
+
+        assertArrayEquals(NEW_DOCUMENT, response.getBody());
+        assertEquals(1, requests.size());
+        assertEquals("forGrade=Q1&digest=d1 null", requests.get(0));
+    }
+
+    @Test
+    public void appliesCopyAndInsert() throws IOException {
+        final byte[] base = "Hello World".getBytes(StandardCharsets.US_ASCII);
+        final byte[] expected = "Hello, dear World!".getBytes(StandardCharsets.US_ASCII);
+        final String delta = String.format("base x\nsha256 %s\n\nC 0 5\nI 7\n, dear C 6 5\nI 1\n!", DeltaPatch.sha256(expected));
+
+        assertArrayEquals(expected, apply(base, "x", delta));
+    }
+
+    @Test
+    public void rejectsInvalidDeltas() {
+        final byte[] base = "Hello World".getBytes(StandardCharsets.US_ASCII);
+        final String sha256 = DeltaPatch.sha256(base);
+        final String[] deltas = {
+                String.format("base y\nsha256 %s\n\nC 0 11\n", sha256),
+                String.format("base x\nsha256 %s\n\nC 0 10\n", sha256),
+                String.format("base x\nsha256 %s\n\nC 5 7\n", sha256),
+                String.format("base x\nsha256 %s\n\nI 20\nHello World", sha256),
+                String.format("base x\nsha256 %s\n\nX 0 11\n", sha256),
+                String.format("base x\nsha256 %s\nC 0 11\n", sha256),
+                "base x\n",
+        };
+
+        for (String delta : deltas) {
+            try {
+                apply(base, "x", delta);
+                fail("Delta must be rejected: " + delta);
+            }
+            catch (IOException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void sha256IsLowerCaseHex() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", DeltaPatch.sha256(new byte[0]));
+    }
+}
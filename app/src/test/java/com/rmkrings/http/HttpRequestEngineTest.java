@@ -0,0 +1,116 @@
+package com.rmkrings.http;
+
+import com.rmkrings.interfaces.BackgroundHttpResponseCallback;
+import com.rmkrings.interfaces.HttpResponseCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HttpRequestEngineTest {
+
+    /**
+     * Connection that fails with an unchecked exception, e.g. like a broken decoder would.
+     */
+    private static class ThrowingConnection extends HttpURLConnection {
+        ThrowingConnection(URL url) {
+            super(url);
+        }
+
+        @Override
+        public void connect() {
+            throw new IllegalStateException("Broken request");
+        }
+
+        @Override
+        public void disconnect() { }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+
+    /**
+     * Test thread takes the role of main thread.
+     */
+    @Before
+    public void setUp() {
+        HttpRequestEngine.getInstance().setMainThreadExecutor(new Executor() {
+            @Override
+            public void execute(Runnable r) {
+                r.run();
+            }
+        });
+    }
+
+    @Test
+    public void callbackIsCalledWhenRequestThrows() throws Exception {
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final AtomicReference<HttpResponseData> response = new AtomicReference<>();
+
+        HttpResponseCallback callback = new HttpResponseCallback() {
+            @Override
+            public void execute(HttpResponseData data) {
+                response.set(data);
+                delivered.countDown();
+            }
+        };
+
+        HttpRequestEngine.getInstance().enqueue(new HttpRequestData(new ThrowingConnection(new URL("http://localhost/throws")), callback));
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(response.get().isError());
+        assertNull(response.get().getHttpStatusCode());
+    }
+
+    @Test
+    public void engineKeepsRunningAfterRequestThrows() throws Exception {
+        final int requests = 20;
+        final CountDownLatch delivered = new CountDownLatch(requests);
+
+        HttpResponseCallback callback = new HttpResponseCallback() {
+            @Override
+            public void execute(HttpResponseData data) {
+                delivered.countDown();
+            }
+        };
+
+        // More requests than slots, each slot must be given back.
+        for (int i = 0; i < requests; i++) {
+            HttpRequestEngine.getInstance().enqueue(new HttpRequestData(new ThrowingConnection(new URL("http://localhost/throws/" + i)), callback));
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void backgroundCallbacksDoNotRunOnRequestThreads() throws Exception {
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final AtomicReference<String> threadName = new AtomicReference<>();
+
+        HttpResponseCallback callback = new BackgroundHttpResponseCallback() {
+            @Override
+            public void execute(HttpResponseData data) {
+                threadName.set(Thread.currentThread().getName());
+                delivered.countDown();
+            }
+        };
+
+        HttpRequestEngine.getInstance().enqueue(new HttpRequestData(new ThrowingConnection(new URL("http://localhost/background")), callback));
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(threadName.get().startsWith("HttpRequestEngine callback"));
+        assertFalse(threadName.get().startsWith("HttpRequestEngine #"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.rmkrings.http;
+
+import com.rmkrings.interfaces.HttpResponseCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RequestCoalescerTest {
+    private static final String KEY = "http://localhost/vertretungsplan#Basic Zm9vOmJhcg==";
+
+    private static class RecordingCallback implements HttpResponseCallback {
+        final List<HttpResponseData> responses = Collections.synchronizedList(new ArrayList<HttpResponseData>());
+
+        @Override
+        public void execute(HttpResponseData data) {
+            responses.add(data);
+        }
+    }
+
+    /**
+     * Test thread takes the role of main thread.
+     */
+    @Before
+    public void setUp() {
+        HttpRequestEngine.getInstance().setMainThreadExecutor(new Executor() {
+            @Override
+            public void execute(Runnable r) {
+                r.run();
+            }
+        });
+    }
+
+    @Test
+    public void firstCallerSendsLaterCallersJoin() {
+        final RequestCoalescer coalescer = new RequestCoalescer(60000);
+
+        assertNotNull(coalescer.join(KEY, new RecordingCallback()));
+        assertNull(coalescer.join(KEY, new RecordingCallback()));
+        assertNull(coalescer.join(KEY, new RecordingCallback()));
+        assertNotNull(coalescer.join(KEY + "other", new RecordingCallback()));
+
+        assertEquals(2, coalescer.getSavedRoundTrips());
+        assertEquals(2, coalescer.getInFlightRequests());
+    }
+
+    @Test
+    public void responseIsFannedOutToAllCallers() {
+        final RequestCoalescer coalescer = new RequestCoalescer(60000);
+        final RecordingCallback[] callbacks = { new RecordingCallback(), new RecordingCallback(), new RecordingCallback() };
+
+        final HttpResponseCallback shared = coalescer.join(KEY, callbacks[0]);
+        coalescer.join(KEY, callbacks[1]);
+        coalescer.join(KEY, callbacks[2]);
+
+        final HttpResponseData response = new HttpResponseData(200, false, new byte[] { '{', '}' }, null, shared);
+        shared.execute(response);
+
+        for (RecordingCallback callback : callbacks) {
+            assertEquals(1, callback.responses.size());
+            assertSame(response, callback.responses.get(0));
+        }
+        assertEquals(0, coalescer.getInFlightRequests());
+    }
+
+    @Test
+    public void failureCompletesRequest() {
+        final RequestCoalescer coalescer = new RequestCoalescer(60000);
+        final RecordingCallback first = new RecordingCallback();
+        final RecordingCallback joined = new RecordingCallback();
+
+        final HttpResponseCallback shared = coalescer.join(KEY, first);
+        coalescer.join(KEY, joined);
+        shared.execute(new HttpResponseData(null, true, null, null, shared));
+
+        assertEquals(1, first.responses.size());
+        assertEquals(1, joined.responses.size());
+        assertEquals(true, joined.responses.get(0).isError());
+
+        // Next load of same key is sent again.
+        assertNotNull(coalescer.join(KEY, new RecordingCallback()));
+    }
+
+    @Test
+    public void lostRequestIsSentAgain() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer(10);
+        final RecordingCallback first = new RecordingCallback();
+        final RecordingCallback retry = new RecordingCallback();
+
+        final HttpResponseCallback lost = coalescer.join(KEY, first);
+        Thread.sleep(50);
+
+        final HttpResponseCallback shared = coalescer.join(KEY, retry);
+        assertNotNull(shared);
+
+        // Late response of lost request neither completes new request nor is delivered twice.
+        lost.execute(new HttpResponseData(200, false, null, null, lost));
+        assertEquals(1, coalescer.getInFlightRequests());
+        assertEquals(0, first.responses.size());
+
+        shared.execute(new HttpResponseData(200, false, null, null, shared));
+        assertEquals(1, first.responses.size());
+        assertEquals(1, retry.responses.size());
+        assertEquals(0, coalescer.getInFlightRequests());
+    }
+}
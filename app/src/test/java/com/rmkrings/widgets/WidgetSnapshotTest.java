@@ -0,0 +1,96 @@
+package com.rmkrings.widgets;
+
+import com.rmkrings.data.vertretungsplan.TestSchedules;
+import com.rmkrings.data.vertretungsplan.Vertretungsplan;
+import com.rmkrings.data.vertretungsplan.VertretungsplanForDate;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class WidgetSnapshotTest {
+    private static final String[] DATES = { "Montag, 02.11.2020", "Dienstag, 03.11.2020" };
+    private static final String[][][] ROWS = {
+            {
+                    { "2", "Vertretung", "M GK1", "(A101) &rarr; B202", "Foo", "", "" },
+                    { "3 - 4", "Entfall", "", "", "", "", "Aufgaben f&uuml;r alle" },
+            },
+            {
+                    { "1", "Raum-Vtr.", "D LK1", "C303", "Bar", "", "", "Lesen" },
+            },
+    };
+
+    private static Date date(int day, int hour, int minute) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2020, Calendar.NOVEMBER, day, hour, minute);
+        return calendar.getTime();
+    }
+
+    private static WidgetSnapshot roundTrip(WidgetSnapshot snapshot) throws IOException {
+        return WidgetSnapshot.fromBuffer(ByteBuffer.wrap(snapshot.toBytes()));
+    }
+
+    @Test
+    public void selectsSameRowAsSchedule() throws IOException {
+        final Vertretungsplan vertretungsplan = TestSchedules.forGrade("Q1", "02.11.2020 07:00", DATES, ROWS);
+        final WidgetSnapshot snapshot = roundTrip(WidgetSnapshot.build("Q1", vertretungsplan, date(2, 7, 0)));
+
+        assertEquals("Q1", snapshot.getGrade());
+        assertEquals("02.11.2020 07:00", snapshot.getLastUpdate());
+        assertEquals(3, snapshot.getRows().size());
+
+        for (Date currentDate : new Date[] { date(2, 7, 0), date(2, 8, 40), date(2, 9, 0), date(2, 12, 0), date(3, 7, 55) }) {
+            final VertretungsplanForDate expected = vertretungsplan.next(currentDate);
+            final WidgetSnapshot.Row row = snapshot.next(currentDate);
+
+            assertEquals(vertretungsplan.nextChange(currentDate), snapshot.nextChange(currentDate));
+            if (expected == null) {
+                assertNull(row);
+            } else {
+                assertEquals(expected.getDate(), row.getDate());
+                assertEquals(expected.getGradeItems().get(0).getTeacher(0), row.getTeacher());
+            }
+        }
+    }
+
+    @Test
+    public void rowsArePreDecoded() throws IOException {
+        final Vertretungsplan vertretungsplan = TestSchedules.forGrade("Q1", "", DATES, ROWS);
+        final WidgetSnapshot snapshot = roundTrip(WidgetSnapshot.build("Q1", vertretungsplan, date(2, 7, 0)));
+
+        WidgetSnapshot.Row row = snapshot.getRows().get(0);
+        assertEquals("Fach/Kurs: M GK1 2. Stunde", row.getSubHeader());
+        assertEquals("(A101) → B202", row.getRoom());
+        assertEquals("", row.getEva());
+
+        row = snapshot.getRows().get(1);
+        assertEquals("3 - 4. Stunde", row.getSubHeader());
+        assertEquals("Aufgaben für alle", row.getComment());
+
+        row = snapshot.getRows().get(2);
+        assertEquals("Lesen", row.getEva());
+    }
+
+    @Test
+    public void pastRowsAreNotIncluded() {
+        final Vertretungsplan vertretungsplan = TestSchedules.forGrade("Q1", "", DATES, ROWS);
+        final WidgetSnapshot snapshot = WidgetSnapshot.build("Q1", vertretungsplan, date(2, 12, 0));
+
+        assertEquals(1, snapshot.getRows().size());
+        assertNull(snapshot.next(date(3, 7, 55)));
+        assertEquals(0, snapshot.nextChange(date(3, 7, 55)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedSnapshot() throws IOException {
+        final byte[] data = WidgetSnapshot.build("Q1", TestSchedules.forGrade("Q1", "", DATES, ROWS), date(2, 7, 0)).toBytes();
+        WidgetSnapshot.fromBuffer(ByteBuffer.wrap(data, 0, data.length - 3));
+    }
+}